@@ -0,0 +1,96 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests touching {@code batch} random keys, through {@link RLU#readAll}, {@link RLU#writeAll}
+ * and one commit ({@code api=bulk}) against a loop of {@link RLU#read} or {@link RLU#write}
+ * calls ({@code api=perKey}). Each thread prepares its key batches up front, so only the RLU
+ * calls are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(2)
+public class BulkOperationsBenchmark {
+
+    @Param({"50", "500"})
+    public int batch;
+
+    @Param({"bulk", "perKey"})
+    public String api;
+
+    @Param({"100000"})
+    public int keyRange;
+
+    @Param({"16"})
+    public int shards;
+
+    private RLU<Integer> rlu;
+
+    @State(Scope.Thread)
+    public static class Batches {
+        final List<List<Integer>> keys = new ArrayList<>();
+        final List<Map<Integer, Integer>> writes = new ArrayList<>();
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(BulkOperationsBenchmark benchmark) {
+            ThreadLocalRandom rand = ThreadLocalRandom.current();
+            for (int b = 0; b < 64; b++) {
+                List<Integer> batchKeys = new ArrayList<>(benchmark.batch);
+                Map<Integer, Integer> batchWrites = new HashMap<>();
+                for (int i = 0; i < benchmark.batch; i++) {
+                    Integer key = rand.nextInt(benchmark.keyRange);
+                    batchKeys.add(key);
+                    batchWrites.put(key, i);
+                }
+                keys.add(batchKeys);
+                writes.add(batchWrites);
+            }
+        }
+
+        int next() {
+            return next = (next + 1) & 63;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rlu = new RLU<>(new RLUConfig().shards(shards));
+        for (int i = 0; i < keyRange; i++) rlu.write(i, i);
+        rlu.commit();
+    }
+
+    @Benchmark
+    public void readBatch(Batches batches, Blackhole bh) {
+        List<Integer> keys = batches.keys.get(batches.next());
+        if (api.equals("bulk")) {
+            bh.consume(rlu.readAll(keys));
+        } else {
+            for (Integer key : keys) bh.consume(rlu.read(key));
+        }
+    }
+
+    @Benchmark
+    public boolean writeBatch(Batches batches) {
+        Map<Integer, Integer> writes = batches.writes.get(batches.next());
+        if (api.equals("bulk")) {
+            rlu.writeAll(writes);
+        } else {
+            for (Map.Entry<Integer, Integer> e : writes.entrySet()) rlu.write(e.getKey(), e.getValue());
+        }
+        return rlu.commit();
+    }
+}
@@ -0,0 +1,80 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-key commits with change capture off ({@code subscriber=none}), on with no subscriber
+ * ({@code idle}), and with one subscriber that takes every batch under each
+ * {@link Backpressure} policy ({@code BLOCK}, {@code DROP}, {@code COALESCE}). Prints how many
+ * batches and changes the subscriber received.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ChangeStreamBenchmark {
+    private static final int KEYS = 4096;
+
+    @Param({"none", "idle", "BLOCK", "DROP", "COALESCE"})
+    public String subscriber;
+
+    private RLU<Integer> rlu;
+    private Integer[] keys;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder changes = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RLUConfig config = new RLUConfig();
+        if (!subscriber.equals("none")) {
+            Backpressure backpressure = subscriber.equals("idle") ? Backpressure.DROP : Backpressure.valueOf(subscriber);
+            config.changeCapture(1024, backpressure);
+        }
+        rlu = new RLU<>(config);
+        keys = new Integer[KEYS];
+        for (int i = 0; i < KEYS; i++) keys[i] = i;
+        if (subscriber.equals("none") || subscriber.equals("idle")) return;
+        rlu.changes().subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ChangeBatch<Integer> batch) {
+                batches.increment();
+                changes.add(batch.getChanges().size());
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        rlu.close();
+        System.out.printf("%nbatches delivered: %d, changes: %d%n", batches.sum(), changes.sum());
+    }
+
+    @Benchmark
+    public boolean commit() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        rlu.write(keys[random.nextInt(KEYS)], keys[random.nextInt(KEYS)]);
+        rlu.write(keys[random.nextInt(KEYS)], keys[random.nextInt(KEYS)]);
+        return rlu.commit();
+    }
+}
@@ -0,0 +1,68 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot keys under many writers, committed directly with entry CAS ({@code combining=false})
+ * against through the shard combiners ({@code combining=true}). {@code increment} is a
+ * serializable read-modify-write retried until it commits, {@code overwrite} a blind write
+ * whose commit may fail. Prints how many commits a combiner applied for another thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class CombiningBenchmark {
+
+    @Param({"false", "true"})
+    public boolean combining;
+
+    @Param({"1", "16"})
+    public int hotKeys;
+
+    private RLU<Integer> rlu;
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rlu = new RLU<>(new RLUConfig().combining(combining).serializable(true).shards(16));
+        keys = new Integer[hotKeys];
+        for (int i = 0; i < hotKeys; i++) {
+            keys[i] = i;
+            rlu.write(keys[i], 0);
+        }
+        rlu.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long combined = rlu.getShardStats().stream().mapToLong(ShardStats::getCombinedCommits).sum();
+        System.out.println("\ncombined commits: " + combined);
+    }
+
+    private Integer hotKey() {
+        return keys[ThreadLocalRandom.current().nextInt(hotKeys)];
+    }
+
+    @Benchmark
+    public Integer increment() {
+        Integer key = hotKey();
+        return rlu.atomically(tx -> {
+            int value = tx.read(key) + 1;
+            tx.write(key, value);
+            return value;
+        });
+    }
+
+    @Benchmark
+    public boolean overwrite() {
+        rlu.write(hotKey(), ThreadLocalRandom.current().nextInt());
+        return rlu.commit();
+    }
+}
@@ -0,0 +1,69 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch commits whose write sets overlap: every transaction writes {@code writeSetSize} keys
+ * drawn from a small hot range, so committers keep meeting on the same entries. The aux
+ * counters report how many commits succeeded and how many aborted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ContentionBenchmark {
+
+    @Param({"16", "256"})
+    public int hotKeys;
+
+    @Param({"4", "16"})
+    public int writeSetSize;
+
+    private RLU<Integer> rlu;
+    private Integer[] keys;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcome {
+        public long commits;
+        public long aborts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            commits = 0;
+            aborts = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rlu = new RLU<>(hotKeys, true);
+        keys = new Integer[hotKeys];
+        for (int i = 0; i < hotKeys; i++) {
+            keys[i] = i;
+            rlu.write(keys[i], keys[i]);
+        }
+        rlu.commit();
+    }
+
+    @Benchmark
+    public boolean overlappingBatch(Outcome outcome) {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        for (int i = 0; i < writeSetSize; i++) {
+            Integer key = keys[rand.nextInt(hotKeys)];
+            rlu.write(key, key);
+        }
+        boolean committed = rlu.commit();
+        if (committed) {
+            outcome.commits++;
+        } else {
+            outcome.aborts++;
+        }
+        return committed;
+    }
+}
@@ -0,0 +1,68 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Commit throughput with the write-ahead log off and in each {@link Durability} mode. Run with
+ * {@code -t} above 1 to see group commit share forces between committers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DurabilityBenchmark {
+
+    @Param({"OFF", "NONE", "ASYNC", "GROUP_SYNC"})
+    public String mode;
+
+    @Param({"1", "8"})
+    public int keysPerCommit;
+
+    @Param({"100000"})
+    public int keyRange;
+
+    private RLU<Integer> rlu;
+    private Integer[] keys;
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        RLUConfig config = new RLUConfig().bucketSize(keyRange);
+        if (!mode.equals("OFF")) {
+            dir = Files.createTempDirectory("rlu-wal-bench");
+            config.durable(dir, Serializer.INTEGER, Durability.valueOf(mode));
+        }
+        rlu = new RLU<>(config);
+        keys = new Integer[keyRange];
+        for (int i = 0; i < keyRange; i++) keys[i] = i;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        rlu.close();
+        if (dir == null) return;
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    public boolean commit() {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        for (int i = 0; i < keysPerCommit; i++) {
+            Integer key = keys[rand.nextInt(keyRange)];
+            rlu.write(key, key);
+        }
+        return rlu.commit();
+    }
+}
@@ -0,0 +1,58 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicStampedReference;
+
+/**
+ * Before/after for the {@link LogEntry} cell: the AtomicStampedReference it used to wrap
+ * allocates a Pair on every successful update, the seqlock cell allocates nothing.
+ * Run with {@code -prof gc} and compare gc.alloc.rate.norm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LogEntryAllocationBenchmark {
+    private static final Integer KEY = 1;
+    private static final Integer[] VALUES = {1000, 2000};
+
+    private AtomicStampedReference<Integer> stampedReference;
+    private LogEntry<Integer> logEntry;
+    private int version;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        stampedReference = new AtomicStampedReference<>(VALUES[0], 0);
+        logEntry = new LogEntry<>(KEY, VALUES[0], 0);
+        version = 0;
+    }
+
+    @Benchmark
+    public boolean atomicStampedReferenceUpdate() {
+        Integer oldValue = stampedReference.getReference();
+        int oldVersion = stampedReference.getStamp();
+        Integer newValue = VALUES[(oldVersion + 1) & 1];
+        return stampedReference.compareAndSet(oldValue, newValue, oldVersion, oldVersion + 1);
+    }
+
+    @Benchmark
+    public boolean logEntryUpdate() {
+        Integer newValue = VALUES[(version + 1) & 1];
+        boolean success = logEntry.updateValue(newValue, version, version + 1);
+        version++;
+        return success;
+    }
+
+    @Benchmark
+    public Integer logEntryConsistentRead() {
+        while (true) {
+            long stamp = logEntry.beginRead();
+            Integer value = logEntry.getValue();
+            if (logEntry.validate(stamp)) return value;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+
+/**
+ * Shared counters incremented by every thread: {@code api=merge} buffers a commutative
+ * {@link RLU#merge} and commits once, {@code api=readModifyWrite} reads and writes the counter
+ * in a serializable {@link RLU#atomically} that retries until it commits. Prints the abort
+ * rate, from the metrics both variants keep.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class MergeBenchmark {
+    private static final BinaryOperator<Integer> ADD = (current, delta) -> current == null ? delta : current + delta;
+
+    @Param({"merge", "readModifyWrite"})
+    public String api;
+
+    @Param({"1", "64"})
+    public int counters;
+
+    private RLU<Integer> rlu;
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rlu = new RLU<>(new RLUConfig().serializable(true).metrics(true));
+        keys = new Integer[counters];
+        for (int i = 0; i < counters; i++) {
+            keys[i] = i;
+            rlu.write(keys[i], 0);
+        }
+        rlu.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RLUMetrics metrics = rlu.getMetrics();
+        System.out.printf("%ncommits: %d, aborts: %d, abort rate: %.4f%n",
+                metrics.getCommits(), metrics.getAborts(), metrics.getAbortRate());
+    }
+
+    @Benchmark
+    public Object increment() {
+        Integer key = keys[ThreadLocalRandom.current().nextInt(counters)];
+        if (api.equals("merge")) {
+            rlu.merge(key, 1, ADD);
+            return rlu.commit();
+        }
+        return rlu.atomically(tx -> tx.write(key, tx.read(key) + 1));
+    }
+}
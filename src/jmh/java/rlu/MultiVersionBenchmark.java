@@ -0,0 +1,75 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scanning readers next to committing writers, single-version ({@code maxVersions = 0}) versus
+ * multi-version. In single-version mode the scan sees a moving target; in multi-version mode it
+ * reads one snapshot and writers pay for linking versions. Retained versions per key are
+ * printed at the end of each trial; run with {@code -prof gc} for the allocation cost.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MultiVersionBenchmark {
+
+    @Param({"10000"})
+    public int keyRange;
+
+    @Param({"0", "4", "16"})
+    public int maxVersions;
+
+    @Param({"64"})
+    public int scanLength;
+
+    private RLU<Integer> rlu;
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rlu = new RLU<>(new RLUConfig().bucketSize(keyRange).multiVersion(maxVersions));
+        keys = new Integer[keyRange];
+        for (int i = 0; i < keyRange; i++) {
+            keys[i] = i;
+            rlu.write(keys[i], keys[i]);
+        }
+        rlu.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%nmaxVersions=%d: %.2f versions retained per key%n",
+                maxVersions, (double) rlu.retainedVersions() / keyRange);
+    }
+
+    @Benchmark
+    @Group("scanAndWrite")
+    @GroupThreads(2)
+    public void scan(Blackhole bh) {
+        int start = ThreadLocalRandom.current().nextInt(keyRange - scanLength);
+        rlu.readerLock();
+        try {
+            for (int i = 0; i < scanLength; i++) bh.consume(rlu.read(keys[start + i]));
+        } catch (SnapshotTooOldException e) {
+            bh.consume(e);
+        } finally {
+            rlu.readerUnlock();
+        }
+    }
+
+    @Benchmark
+    @Group("scanAndWrite")
+    @GroupThreads(2)
+    public boolean write() {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        for (int i = 0; i < 4; i++) rlu.write(keys[rand.nextInt(keyRange)], rand.nextInt());
+        return rlu.commit();
+    }
+}
@@ -0,0 +1,84 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the boxing generic {@link RLU} with {@link IntRLU} and {@link LongRLU} on the same
+ * read and write+commit workload. Run with -prof gc to see the allocation difference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PrimitiveRLUBenchmark {
+
+    @Param({"1000", "100000"})
+    public int keyRange;
+
+    @Param({"true", "false"})
+    public boolean batchCommit;
+
+    private RLU<Integer> generic;
+    private IntRLU ints;
+    private LongRLU longs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generic = new RLU<>(keyRange, batchCommit);
+        ints = new IntRLU(keyRange, batchCommit);
+        longs = new LongRLU(keyRange, batchCommit);
+        for (int key = 0; key < keyRange; key++) {
+            generic.write(key, key);
+            ints.write(key, key);
+            longs.write(key, key);
+        }
+        generic.commit();
+        ints.commit();
+        longs.commit();
+    }
+
+    private int randomKey() {
+        return ThreadLocalRandom.current().nextInt(keyRange);
+    }
+
+    @Benchmark
+    public Integer genericRead() {
+        return generic.read(randomKey());
+    }
+
+    @Benchmark
+    public int intRead() {
+        return ints.read(randomKey(), -1);
+    }
+
+    @Benchmark
+    public long longRead() {
+        return longs.read(randomKey(), -1L);
+    }
+
+    @Benchmark
+    public boolean genericWriteCommit() {
+        int key = randomKey();
+        generic.write(key, key);
+        return generic.commit();
+    }
+
+    @Benchmark
+    public boolean intWriteCommit() {
+        int key = randomKey();
+        ints.write(key, key);
+        return ints.commit();
+    }
+
+    @Benchmark
+    public boolean longWriteCommit() {
+        int key = randomKey();
+        longs.write(key, key);
+        return longs.commit();
+    }
+}
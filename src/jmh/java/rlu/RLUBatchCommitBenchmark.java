@@ -0,0 +1,51 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for committing a batch of N keys written by one thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RLUBatchCommitBenchmark {
+
+    @Param({"1000", "100000"})
+    public int keyRange;
+
+    @Param({"true", "false"})
+    public boolean batchCommit;
+
+    @Param({"1", "8", "64"})
+    public int batchSize;
+
+    private RLU<Integer> rlu;
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rlu = new RLU<>(keyRange, batchCommit);
+        keys = new Integer[keyRange];
+        for (int i = 0; i < keyRange; i++) {
+            keys[i] = i;
+            rlu.write(keys[i], keys[i]);
+        }
+        rlu.commit();
+    }
+
+    @Benchmark
+    public boolean batchCommit() {
+        int start = ThreadLocalRandom.current().nextInt(keyRange);
+        for (int i = 0; i < batchSize; i++) {
+            Integer key = keys[(start + i) % keyRange];
+            rlu.write(key, key);
+        }
+        return rlu.commit();
+    }
+}
@@ -0,0 +1,70 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives {@link MainLog#commit} into its conflict path: every batch carries one stale
+ * version, so in batch mode the locks already taken are released without publishing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RLUConflictBenchmark {
+
+    @Param({"1000", "100000"})
+    public int keyRange;
+
+    @Param({"true", "false"})
+    public boolean batchCommit;
+
+    @Param({"8", "64"})
+    public int batchSize;
+
+    private MainLog<Integer> mainLog;
+    private final AtomicInteger threadCounter = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final LocalLog<Integer> localLog = new LocalLog<>();
+        Integer[] keys;
+
+        @Setup(Level.Trial)
+        public void setUp(RLUConflictBenchmark bench) {
+            // Each thread works on its own key window so conflicts are the ones we inject
+            int window = Math.max(bench.batchSize, bench.keyRange / 64);
+            int offset = (bench.threadCounter.getAndIncrement() * window) % bench.keyRange;
+            keys = new Integer[bench.batchSize];
+            for (int i = 0; i < bench.batchSize; i++) {
+                keys[i] = offset + i;
+            }
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mainLog = new MainLog<>(keyRange);
+        LocalLog<Integer> seed = new LocalLog<>();
+        for (int i = 0; i < keyRange; i++) {
+            seed.write(i, i, 0);
+        }
+        seed.commit(mainLog, true);
+    }
+
+    @Benchmark
+    public boolean conflictAbort(ThreadState state) {
+        Integer[] keys = state.keys;
+        int last = keys.length - 1;
+        for (int i = 0; i < last; i++) {
+            state.localLog.write(keys[i], keys[i], mainLog.getVersion(keys[i]));
+        }
+        // A version that can never match makes the batch fail
+        state.localLog.write(keys[last], keys[last], mainLog.getVersion(keys[last]) - 1);
+        return state.localLog.commit(mainLog, batchCommit);
+    }
+}
@@ -0,0 +1,34 @@
+package rlu;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the RLU benchmarks once per thread count (1, 2, 4 ... 64, like the bundled
+ * {@link WorkloadDriver} scenarios) and writes one JSON result file per thread count.
+ *
+ * Usage: RLUJmhSweep [outputDir] [maxThreads] [includeRegex]
+ */
+public class RLUJmhSweep {
+
+    public static void main(String[] args) throws RunnerException {
+        String outputDir = args.length > 0 ? args[0] : "build/results/jmh";
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        String include = args.length > 2 ? args[2] : "rlu.RLU.*Benchmark";
+
+        new File(outputDir).mkdirs();
+        for (int numThreads = 1; numThreads <= maxThreads; numThreads *= 2) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .threads(numThreads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(outputDir + "/results-t" + numThreads + ".json");
+            new Runner(options.build()).run();
+        }
+    }
+}
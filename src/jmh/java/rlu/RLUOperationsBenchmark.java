@@ -0,0 +1,64 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the RLU read and write+commit paths.
+ * Thread counts are not a JMH parameter; use -Pjmh.threads or {@link RLUJmhSweep}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RLUOperationsBenchmark {
+
+    @Param({"1000", "100000"})
+    public int keyRange;
+
+    @Param({"true", "false"})
+    public boolean batchCommit;
+
+    @Param({"false", "true"})
+    public boolean globalClock;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private RLU<Integer> rlu;
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rlu = new RLU<>(new RLUConfig().bucketSize(keyRange).batchCommit(batchCommit).globalClock(globalClock).metrics(metrics));
+        // Pre-box the keys so the benchmark measures RLU, not Integer.valueOf
+        keys = new Integer[keyRange];
+        for (int i = 0; i < keyRange; i++) {
+            keys[i] = i;
+        }
+        for (int i = 0; i < keyRange; i++) {
+            rlu.write(keys[i], keys[i]);
+        }
+        rlu.commit();
+    }
+
+    private Integer randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keyRange)];
+    }
+
+    @Benchmark
+    public Integer read() {
+        return rlu.read(randomKey());
+    }
+
+    @Benchmark
+    public boolean writeCommit() {
+        Integer key = randomKey();
+        rlu.write(key, key);
+        return rlu.commit();
+    }
+}
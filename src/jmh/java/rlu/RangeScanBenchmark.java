@@ -0,0 +1,96 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Range scans over the ordered index while writers commit, against reading the same keys one
+ * by one. With {@code maxVersions > 0} the scans run inside a snapshot.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RangeScanBenchmark {
+
+    @Param({"100000"})
+    public int keyRange;
+
+    @Param({"16", "256"})
+    public int scanLength;
+
+    @Param({"0", "8"})
+    public int maxVersions;
+
+    private RLU<Integer> rlu;
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rlu = new RLU<>(new RLUConfig().bucketSize(keyRange).ordered(true).multiVersion(maxVersions));
+        keys = new Integer[keyRange];
+        for (int i = 0; i < keyRange; i++) {
+            keys[i] = i;
+            rlu.write(keys[i], keys[i]);
+        }
+        rlu.commit();
+    }
+
+    private int randomStart() {
+        return ThreadLocalRandom.current().nextInt(keyRange - scanLength);
+    }
+
+    @Benchmark
+    @Group("scan")
+    @GroupThreads(2)
+    public void scanRange(Blackhole bh) {
+        int start = randomStart();
+        rlu.readerLock();
+        try {
+            Iterator<Map.Entry<Integer, Integer>> it = rlu.scan(keys[start], keys[start + scanLength]);
+            while (it.hasNext()) bh.consume(it.next());
+        } catch (SnapshotTooOldException e) {
+            bh.consume(e);
+        } finally {
+            rlu.readerUnlock();
+        }
+    }
+
+    @Benchmark
+    @Group("scan")
+    @GroupThreads(2)
+    public boolean scanWriter() {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        rlu.write(keys[rand.nextInt(keyRange)], rand.nextInt());
+        return rlu.commit();
+    }
+
+    @Benchmark
+    @Group("pointReads")
+    @GroupThreads(2)
+    public void pointReads(Blackhole bh) {
+        int start = randomStart();
+        rlu.readerLock();
+        try {
+            for (int i = 0; i < scanLength; i++) bh.consume(rlu.read(keys[start + i]));
+        } catch (SnapshotTooOldException e) {
+            bh.consume(e);
+        } finally {
+            rlu.readerUnlock();
+        }
+    }
+
+    @Benchmark
+    @Group("pointReads")
+    @GroupThreads(2)
+    public boolean pointWriter() {
+        return scanWriter();
+    }
+}
@@ -0,0 +1,61 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time to reopen a durable store of {@code keys} keys, either by replaying its whole
+ * write-ahead log or by loading a checkpoint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RestartBenchmark {
+
+    @Param({"100000", "1000000", "4000000"})
+    public int keys;
+
+    @Param({"log", "checkpoint"})
+    public String source;
+
+    private Path dir;
+
+    private RLUConfig config() {
+        return new RLUConfig().durable(dir, Serializer.INTEGER, Durability.NONE).shards(16);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("rlu-restart-bench");
+        try (RLU<Integer> rlu = new RLU<>(config())) {
+            for (int k = 0; k < keys; k += 1000) {
+                for (int i = k; i < Math.min(keys, k + 1000); i++) rlu.write(i, i);
+                rlu.commit();
+            }
+            if (source.equals("checkpoint")) rlu.checkpoint();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    public Integer restart() {
+        try (RLU<Integer> rlu = new RLU<>(config())) {
+            return rlu.read(keys - 1);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of read-set tracking and commit-time validation: the same transactions run with
+ * {@link RLUConfig#serializable} off and on.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SerializableBenchmark {
+
+    @Param({"1000", "100000"})
+    public int keyRange;
+
+    @Param({"false", "true"})
+    public boolean serializable;
+
+    @Param({"4", "16"})
+    public int readsPerTransaction;
+
+    private RLU<Integer> rlu;
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rlu = new RLU<>(new RLUConfig().bucketSize(keyRange).serializable(serializable));
+        keys = new Integer[keyRange];
+        for (int i = 0; i < keyRange; i++) {
+            keys[i] = i;
+            rlu.write(keys[i], keys[i]);
+        }
+        rlu.commit();
+    }
+
+    @Benchmark
+    public boolean readModifyWrite() {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        int sum = 0;
+        for (int i = 0; i < readsPerTransaction; i++) {
+            Integer value = rlu.read(keys[rand.nextInt(keyRange)]);
+            if (value != null) sum += value;
+        }
+        rlu.write(keys[rand.nextInt(keyRange)], sum);
+        return rlu.commit();
+    }
+
+    @Benchmark
+    public boolean readOnly() {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        for (int i = 0; i < readsPerTransaction; i++) {
+            rlu.read(keys[rand.nextInt(keyRange)]);
+        }
+        return rlu.commit();
+    }
+}
@@ -0,0 +1,55 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Commits that only write random keys, like the all-update {@code mpp-100}
+ * {@link WorkloadDriver} scenario, against 1 to 64 shards. Each iteration starts from
+ * an empty, unsized store, so table resizes are part of the measurement. For the scaling curve
+ * run it once per thread count:
+ * {@code gradle jmhSweep -Pjmh.includes=ShardScalingBenchmark -Pjmh.maxThreads=64}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ShardScalingBenchmark {
+
+    @Param({"1000", "100000"})
+    public int keyRange;
+
+    @Param({"1", "8", "64"})
+    public int shards;
+
+    @Param({"1", "4"})
+    public int keysPerCommit;
+
+    private RLU<Integer> rlu;
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void boxKeys() {
+        keys = new Integer[keyRange];
+        for (int i = 0; i < keyRange; i++) keys[i] = i;
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        rlu = new RLU<>(new RLUConfig().shards(shards));
+    }
+
+    @Benchmark
+    public boolean update() {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        for (int i = 0; i < keysPerCommit; i++) {
+            Integer key = keys[rand.nextInt(keyRange)];
+            rlu.write(key, key);
+        }
+        return rlu.commit();
+    }
+}
@@ -0,0 +1,78 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same transactions against every {@link TransactionalStore}: a read-only transaction of
+ * {@code keysPerTransaction} reads with probability {@code readRatio}, otherwise one that
+ * increments as many keys. RLU runs serializable, as the lock-based stores are. Run with
+ * {@code -t} to vary the thread count; the workload driver's {@code compare} scenario covers
+ * mixed operations and scans.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class StoreComparisonBenchmark {
+
+    @Param({"rlu", "globallock", "rwlock", "stamped", "cow"})
+    public String store;
+
+    @Param({"0.9", "0.99"})
+    public double readRatio;
+
+    @Param({"10000"})
+    public int keyRange;
+
+    @Param({"4"})
+    public int keysPerTransaction;
+
+    private TransactionalStore<Integer> kv;
+    private Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Properties scenario = new Properties();
+        scenario.setProperty("recordcount", Integer.toString(keyRange));
+        scenario.setProperty("serializable", "true");
+        kv = new Workload(store, scenario).newStore(store);
+        keys = new Integer[keyRange];
+        for (int i = 0; i < keyRange; i++) keys[i] = i;
+        kv.atomically(tx -> {
+            for (Integer key : keys) tx.write(key, key);
+            return null;
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (kv instanceof RLU) ((RLU<Integer>) kv).close();
+    }
+
+    @Benchmark
+    public int transaction() {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        int first = rand.nextInt(keyRange);
+        if (rand.nextDouble() < readRatio) {
+            return kv.atomically(tx -> {
+                int sum = 0;
+                for (int i = 0; i < keysPerTransaction; i++) sum += tx.read(keys[(first + i) % keyRange]);
+                return sum;
+            });
+        }
+        return kv.atomically(tx -> {
+            for (int i = 0; i < keysPerTransaction; i++) {
+                Integer key = keys[(first + i) % keyRange];
+                tx.write(key, tx.read(key) + 1);
+            }
+            return first;
+        });
+    }
+}
@@ -0,0 +1,75 @@
+package rlu;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@code tasks} small transactions at once on a virtual-thread-per-task executor (on
+ * JDK 21+; a work-stealing pool otherwise). With {@code api=handle} each transaction is begun
+ * in one task and written and committed in another, the hop an async request handler makes;
+ * with {@code api=thread} each runs within a single task on the thread-bound API, which
+ * cannot hop. Prints how many logs the handle pool had to create.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TransactionHandleBenchmark {
+
+    @Param({"100000"})
+    public int tasks;
+
+    @Param({"handle", "thread"})
+    public String api;
+
+    @Param({"1024"})
+    public int keys;
+
+    private RLU<Integer> rlu;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rlu = new RLU<>(new RLUConfig().shards(16));
+        for (int i = 0; i < keys; i++) rlu.write(i, i);
+        rlu.commit();
+        executor = newExecutor();
+    }
+
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return new ForkJoinPool(Runtime.getRuntime().availableProcessors() * 4);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+        System.out.println("\nexecutor: " + executor.getClass().getSimpleName()
+                + ", pooled logs created: " + rlu.pooledLogsCreated());
+    }
+
+    @Benchmark
+    public void transactions() {
+        CompletableFuture<?>[] all = new CompletableFuture<?>[tasks];
+        for (int i = 0; i < tasks; i++) {
+            int key = i % keys;
+            if (api.equals("handle")) {
+                all[i] = CompletableFuture.supplyAsync(rlu::begin, executor)
+                        .thenApplyAsync(tx -> tx.write(key, tx.read(key) + 1) && tx.commit(), executor);
+            } else {
+                all[i] = CompletableFuture.supplyAsync(() -> rlu.write(key, rlu.read(key) + 1) && rlu.commit(), executor);
+            }
+        }
+        CompletableFuture.allOf(all).join();
+    }
+}
@@ -0,0 +1,25 @@
+package rlu;
+
+/**
+ * What a commit does when a change subscriber's ring buffer has no room for its batch; see
+ * {@link RLUConfig#changeCapture}.
+ */
+public enum Backpressure {
+    /**
+     * Wait until the subscriber has requested and taken enough to make room. Committers then
+     * run at the pace of the slowest subscriber. They wait after unlocking their entries, so
+     * {@code onNext} may read the store; it must not commit, since that commit would wait
+     * behind them.
+     */
+    BLOCK,
+    /**
+     * Skip the batch for that subscriber, which sees a gap in the batch sequence numbers.
+     */
+    DROP,
+    /**
+     * Keep only the newest change of each key until the subscriber catches up, then deliver
+     * them as one coalesced batch. The only policy that allocates on the commit path, and only
+     * while the subscriber is behind.
+     */
+    COALESCE
+}
@@ -0,0 +1,156 @@
+package rlu;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * The transaction of the lock-based baseline stores: reads go to a committed map the store
+ * guards, writes are buffered until the store applies them, so a body that throws leaves the
+ * map untouched. One per thread, reset for each attempt.
+ *
+ * <p>A store that first runs a body as a read-only attempt, under a shared lock or on a
+ * snapshot, begins it with {@code readOnly}; the first write then throws {@link Upgrade}, and
+ * the store runs the body again with exclusive access.
+ */
+final class BufferedTransaction<T> implements Transaction<T> {
+    private static final Object REMOVED = new Object();
+
+    /**
+     * Thrown out of a read-only attempt that tries to write. Preallocated, without a stack trace.
+     */
+    static final class Upgrade extends RuntimeException {
+        static final Upgrade INSTANCE = new Upgrade();
+
+        private Upgrade() {
+            super("read-only attempt wrote", null, false, false);
+        }
+    }
+
+    private final HashMap<T, Object> writes = new HashMap<>();
+    private Map<T, T> committed;
+    private boolean readOnly;
+
+    /**
+     * @return the committed map of a baseline store: sorted if the store must scan
+     */
+    static <T> Map<T, T> newMap(boolean ordered) {
+        return ordered ? new TreeMap<>() : new HashMap<>();
+    }
+
+    void begin(Map<T, T> committed, boolean readOnly) {
+        this.committed = committed;
+        this.readOnly = readOnly;
+        writes.clear();
+    }
+
+    void end() {
+        committed = null;
+        writes.clear();
+    }
+
+    boolean hasWrites() {
+        return !writes.isEmpty();
+    }
+
+    /**
+     * Applies the buffered writes to {@code target}.
+     */
+    @SuppressWarnings("unchecked")
+    void applyTo(Map<T, T> target) {
+        for (Map.Entry<T, Object> write : writes.entrySet()) {
+            if (write.getValue() == REMOVED) {
+                target.remove(write.getKey());
+            } else {
+                target.put(write.getKey(), (T) write.getValue());
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T read(T key) {
+        Object pending = writes.get(key);
+        if (pending != null) return pending == REMOVED ? null : (T) pending;
+        return committed.get(key);
+    }
+
+    @Override
+    public boolean write(T key, T value) {
+        if (readOnly) throw Upgrade.INSTANCE;
+        writes.put(key, value == null ? REMOVED : value);
+        return true;
+    }
+
+    @Override
+    public boolean remove(T key) {
+        if (read(key) == null) return false;
+        return write(key, null);
+    }
+
+    @Override
+    public void discard(T key) {
+        writes.remove(key);
+    }
+
+    @Override
+    public Iterator<Map.Entry<T, T>> scan(T from, T to) {
+        if (!(committed instanceof NavigableMap)) throw new IllegalStateException("The store is not ordered");
+        NavigableMap<T, T> all = (NavigableMap<T, T>) committed;
+        NavigableMap<T, T> range;
+        if (from == null && to == null) {
+            range = all;
+        } else if (from == null) {
+            range = all.headMap(to, false);
+        } else if (to == null) {
+            range = all.tailMap(from, true);
+        } else {
+            range = all.subMap(from, true, to, false);
+        }
+        Iterator<Map.Entry<T, T>> base = range.entrySet().iterator();
+        return new Iterator<>() {
+            private Map.Entry<T, T> next = advance();
+
+            @SuppressWarnings("unchecked")
+            private Map.Entry<T, T> advance() {
+                while (base.hasNext()) {
+                    Map.Entry<T, T> entry = base.next();
+                    Object pending = writes.get(entry.getKey());
+                    if (pending == REMOVED) continue;
+                    return Map.entry(entry.getKey(), pending != null ? (T) pending : entry.getValue());
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Map.Entry<T, T> next() {
+                if (next == null) throw new NoSuchElementException();
+                Map.Entry<T, T> result = next;
+                next = advance();
+                return result;
+            }
+        };
+    }
+
+    @Override
+    public boolean commit() {
+        throw new IllegalStateException("atomically commits its own transaction");
+    }
+
+    @Override
+    public void abort() {
+        throw new IllegalStateException("atomically aborts its own transaction");
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,81 @@
+package rlu;
+
+import java.util.List;
+
+/**
+ * The keys one commit published, as delivered to a subscriber of {@link RLU#changes()}.
+ */
+public final class ChangeBatch<T> {
+
+    /**
+     * One key of a batch: its new value, null if the commit removed it, and the version the
+     * commit gave it.
+     */
+    public static final class Change<T> {
+        private final T key;
+        private final T value;
+        private final int version;
+
+        Change(T key, T value, int version) {
+            this.key = key;
+            this.value = value;
+            this.version = version;
+        }
+
+        public T getKey() {
+            return key;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value + "@" + version;
+        }
+    }
+
+    private final long sequence;
+    private final List<Change<T>> changes;
+    private final boolean coalesced;
+
+    ChangeBatch(long sequence, List<Change<T>> changes, boolean coalesced) {
+        this.sequence = sequence;
+        this.changes = changes;
+        this.coalesced = coalesced;
+    }
+
+    /**
+     * @return the number of the commit within this subscription, counting from 0; a jump
+     *         means batches were dropped, and a coalesced batch carries the number of the last
+     *         commit it covers
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return the changes in the order the commit locked their keys
+     */
+    public List<Change<T>> getChanges() {
+        return changes;
+    }
+
+    /**
+     * @return true if this batch merges several commits under {@link Backpressure#COALESCE},
+     *         keeping the newest change of each key; those commits were not atomic as seen here
+     */
+    public boolean isCoalesced() {
+        return coalesced;
+    }
+
+    @Override
+    public String toString() {
+        return "batch " + sequence + (coalesced ? " (coalesced) " : " ") + changes;
+    }
+}
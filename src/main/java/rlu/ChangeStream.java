@@ -0,0 +1,395 @@
+package rlu;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The committed batches of a {@link MainLog}, published to any number of subscribers. Each
+ * subscription owns a ring buffer of {@code capacity} changes, allocated when it subscribes,
+ * and a daemon thread that delivers batches from it as the subscriber requests them.
+ *
+ * <p>A committer takes a {@link #ticket} while it still holds its entry locks, so batches that
+ * share a key hold tickets in commit order, and appends once it has published and unlocked,
+ * in ticket order. A committer held by a full ring therefore holds no entry locks, and
+ * subscribers may read the store from {@code onNext}. Appending copies references into the
+ * ring and allocates nothing; what happens when a ring is full is the configured
+ * {@link Backpressure}. Without subscribers a commit only reads one volatile field.
+ */
+final class ChangeStream<T> implements Flow.Publisher<ChangeBatch<T>> {
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    @SuppressWarnings("rawtypes")
+    private static final Subscription[] NONE = new Subscription[0];
+
+    private final int capacity;
+    private final Backpressure backpressure;
+    @SuppressWarnings("unchecked")
+    private volatile Subscription<T>[] subscriptions = NONE;
+    private boolean closed; // guarded by this
+    private final AtomicLong tickets = new AtomicLong();
+    private final Object turns = new Object();
+    private volatile long turn;        // the ticket whose batch is appended next
+    private volatile int turnWaiters;  // changed under turns
+
+    ChangeStream(int capacity, Backpressure backpressure) {
+        this.capacity = capacity;
+        this.backpressure = backpressure;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ChangeBatch<T>> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        Subscription<T> subscription = new Subscription<>(this, subscriber, capacity, backpressure);
+        synchronized (this) {
+            if (!closed) {
+                Subscription<T>[] current = subscriptions;
+                Subscription<T>[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = subscription;
+                subscriptions = grown;
+            } else {
+                subscription.complete();
+            }
+        }
+        subscriber.onSubscribe(subscription);
+        subscription.start();
+    }
+
+    /**
+     * Places a batch in the stream. Call while its entries are locked, then pass the ticket to
+     * {@code publish} exactly once, after unlocking.
+     * @return the batch's ticket, or -1 if there is no subscriber to publish to
+     */
+    long ticket() {
+        return subscriptions.length == 0 ? -1L : tickets.getAndIncrement();
+    }
+
+    /**
+     * Appends the first {@code count} slots of a published batch, in lock order, to every
+     * subscription, once the batches with earlier tickets are appended.
+     */
+    void publish(long ticket, WriteSet<T> writeSet, int count) {
+        if (ticket < 0) return;
+        awaitTurn(ticket);
+        try {
+            for (Subscription<T> subscription : subscriptions) subscription.offer(writeSet, count, null, null, 0);
+        } finally {
+            endTurn(ticket);
+        }
+    }
+
+    /**
+     * Appends a single published key as a batch of its own.
+     */
+    void publish(long ticket, T key, T value, int version) {
+        if (ticket < 0) return;
+        awaitTurn(ticket);
+        try {
+            for (Subscription<T> subscription : subscriptions) subscription.offer(null, 1, key, value, version);
+        } finally {
+            endTurn(ticket);
+        }
+    }
+
+    private void awaitTurn(long ticket) {
+        if (turn == ticket) return;
+        boolean interrupted = false;
+        synchronized (turns) {
+            turnWaiters++;
+            try {
+                while (turn != ticket) {
+                    try {
+                        turns.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true; // the ticket must still be served
+                    }
+                }
+            } finally {
+                turnWaiters--;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private void endTurn(long ticket) {
+        turn = ticket + 1;
+        if (turnWaiters > 0) { // read after the turn, so a waiter either sees it or is notified
+            synchronized (turns) {
+                turns.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Completes every subscription once it has delivered what it holds. Later subscribers are
+     * completed at once.
+     */
+    void close() {
+        Subscription<T>[] current;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            current = subscriptions;
+        }
+        for (Subscription<T> subscription : current) subscription.complete();
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized void remove(Subscription<T> subscription) {
+        Subscription<T>[] current = subscriptions;
+        int at = Arrays.asList(current).indexOf(subscription);
+        if (at < 0) return;
+        Subscription<T>[] shrunk = (Subscription<T>[]) new Subscription[current.length - 1];
+        System.arraycopy(current, 0, shrunk, 0, at);
+        System.arraycopy(current, at + 1, shrunk, at, current.length - at - 1);
+        subscriptions = shrunk;
+    }
+
+    /**
+     * One subscriber's ring and delivery thread. Producers and the delivery thread share the
+     * ring under this object's monitor; {@code onNext} runs outside it.
+     */
+    private static final class Subscription<T> implements Flow.Subscription, Runnable {
+        private final ChangeStream<T> stream;
+        private final Flow.Subscriber<? super ChangeBatch<T>> subscriber;
+        private final Backpressure backpressure;
+        private final int capacity;
+        private final int mask;
+        private final Object[] keys;
+        private final Object[] values;
+        private final int[] versions;
+        private final long[] batchEnds; // the batch sequence on a batch's last change, else -1
+
+        private long head;     // next slot to fill
+        private long tail;     // next slot to deliver
+        private long sequence; // of the next batch offered
+        private long demand;
+        private boolean appending; // a blocked producer is midway through a batch larger than the ring
+        private int waitingProducers;
+        private boolean consumerWaiting;
+        private boolean cancelled;
+        private boolean completed;
+        private Throwable error;
+        private LinkedHashMap<T, ChangeBatch.Change<T>> overflow; // COALESCE only, while behind
+        private long lastCoalesced;
+
+        Subscription(ChangeStream<T> stream, Flow.Subscriber<? super ChangeBatch<T>> subscriber,
+                     int capacity, Backpressure backpressure) {
+            this.stream = stream;
+            this.subscriber = subscriber;
+            this.backpressure = backpressure;
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+            this.keys = new Object[capacity];
+            this.values = new Object[capacity];
+            this.versions = new int[capacity];
+            this.batchEnds = new long[capacity];
+        }
+
+        void start() {
+            Thread thread = new Thread(this, "rlu-changes-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Appends a batch: the first {@code count} lock-ordered slots of {@code writeSet}, or the
+         * single given key when it is null.
+         */
+        synchronized void offer(WriteSet<T> writeSet, int count, T key, T value, int version) {
+            if (cancelled || completed || count == 0) return;
+            if (backpressure == Backpressure.BLOCK) {
+                offerBlocking(writeSet, count, key, value, version);
+            } else if (overflow == null && count <= capacity - (int) (head - tail)) {
+                long batch = sequence++;
+                for (int n = 0; n < count; n++) append(writeSet, n, key, value, version, n == count - 1 ? batch : -1L);
+            } else if (backpressure == Backpressure.DROP) {
+                sequence++;
+            } else {
+                if (overflow == null) overflow = new LinkedHashMap<>();
+                lastCoalesced = sequence++;
+                for (int n = 0; n < count; n++) {
+                    T k = writeSet != null ? writeSet.keyAt(writeSet.lockSlotAt(n)) : key;
+                    overflow.remove(k); // so iteration follows the latest change of each key
+                    overflow.put(k, change(writeSet, n, key, value, version));
+                }
+            }
+            if (consumerWaiting) notifyAll();
+        }
+
+        private void offerBlocking(WriteSet<T> writeSet, int count, T key, T value, int version) {
+            boolean interrupted = false;
+            try {
+                int room = Math.min(count, capacity);
+                while (!cancelled && (appending || capacity - (int) (head - tail) < room)) interrupted |= await();
+                if (cancelled) return;
+                long batch = sequence++;
+                appending = count > capacity;
+                for (int n = 0; n < count; n++) {
+                    while (!cancelled && head - tail == capacity) {
+                        if (consumerWaiting) notifyAll(); // for what this batch appended so far
+                        interrupted |= await();
+                    }
+                    if (cancelled) return;
+                    append(writeSet, n, key, value, version, n == count - 1 ? batch : -1L);
+                }
+            } finally {
+                if (appending) {
+                    appending = false;
+                    notifyAll();
+                }
+                if (interrupted) Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Waits for the delivery thread without giving up the committer's turn.
+         * @return true if the wait was interrupted
+         */
+        private boolean await() {
+            waitingProducers++;
+            try {
+                wait();
+                return false;
+            } catch (InterruptedException e) {
+                return true;
+            } finally {
+                waitingProducers--;
+            }
+        }
+
+        private void append(WriteSet<T> writeSet, int n, T key, T value, int version, long batchEnd) {
+            int i = (int) (head++ & mask);
+            if (writeSet != null) {
+                int slot = writeSet.lockSlotAt(n);
+                keys[i] = writeSet.keyAt(slot);
+                values[i] = writeSet.valueAt(slot);
+                versions[i] = writeSet.versionAt(slot) + 1;
+            } else {
+                keys[i] = key;
+                values[i] = value;
+                versions[i] = version;
+            }
+            batchEnds[i] = batchEnd;
+        }
+
+        private static <T> ChangeBatch.Change<T> change(WriteSet<T> writeSet, int n, T key, T value, int version) {
+            if (writeSet == null) return new ChangeBatch.Change<>(key, value, version);
+            int slot = writeSet.lockSlotAt(n);
+            return new ChangeBatch.Change<>(writeSet.keyAt(slot), writeSet.valueAt(slot), writeSet.versionAt(slot) + 1);
+        }
+
+        @Override
+        public synchronized void request(long n) {
+            if (cancelled) return;
+            if (n <= 0) {
+                error = new IllegalArgumentException("Requested " + n + " batches; must be positive");
+            } else {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            notifyAll();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                if (cancelled) return;
+                cancelled = true;
+                Arrays.fill(keys, null);
+                Arrays.fill(values, null);
+                overflow = null;
+                notifyAll();
+            }
+            stream.remove(this);
+        }
+
+        synchronized void complete() {
+            completed = true;
+            notifyAll();
+        }
+
+        @Override
+        public void run() {
+            List<ChangeBatch.Change<T>> staging = new ArrayList<>();
+            while (true) {
+                ChangeBatch<T> batch = null;
+                Throwable failed;
+                boolean done = false;
+                synchronized (this) {
+                    while (true) {
+                        if (cancelled) return;
+                        failed = error;
+                        if (failed != null) break;
+                        if (demand > 0) {
+                            batch = take(staging);
+                            if (batch != null) {
+                                if (!batch.isCoalesced()) staging = new ArrayList<>();
+                                demand--;
+                                break;
+                            }
+                        }
+                        if (completed && head == tail && overflow == null && staging.isEmpty()) {
+                            done = true;
+                            break;
+                        }
+                        consumerWaiting = true;
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            // a daemon thread; only cancel or completion stops it
+                        } finally {
+                            consumerWaiting = false;
+                        }
+                    }
+                }
+                if (failed != null) {
+                    cancel();
+                    subscriber.onError(failed);
+                    return;
+                }
+                if (done) {
+                    stream.remove(this);
+                    subscriber.onComplete();
+                    return;
+                }
+                try {
+                    subscriber.onNext(batch);
+                } catch (Throwable t) {
+                    cancel(); // a subscriber that throws is treated as cancelled
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Moves changes from the ring to {@code staging} up to the end of a batch, then, once
+         * the ring is empty, takes the coalesced overflow.
+         * @return the next batch to deliver, or null if none is complete yet
+         */
+        @SuppressWarnings("unchecked")
+        private ChangeBatch<T> take(List<ChangeBatch.Change<T>> staging) {
+            ChangeBatch<T> batch = null;
+            while (tail < head) {
+                int i = (int) (tail++ & mask);
+                staging.add(new ChangeBatch.Change<>((T) keys[i], (T) values[i], versions[i]));
+                keys[i] = null;
+                values[i] = null;
+                if (batchEnds[i] >= 0) {
+                    batch = new ChangeBatch<>(batchEnds[i], staging, false);
+                    break;
+                }
+            }
+            if (waitingProducers > 0) notifyAll();
+            if (batch == null && staging.isEmpty() && overflow != null) {
+                batch = new ChangeBatch<>(lastCoalesced, new ArrayList<>(overflow.values()), true);
+                overflow = null;
+            }
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package rlu;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Binary snapshot of every present key with its value and version, written next to the
+ * {@link WriteAheadLog}. Entries are grouped into chunks of about {@value #CHUNK_SIZE} bytes
+ * so that loading can map and decode the chunks in parallel. The footer records the log
+ * position the checkpoint started at; replaying the log from there on top of the checkpoint
+ * restores the state.
+ *
+ * <p>Layout: magic and format, the chunks (per entry: version, key, value), the chunk index
+ * (offset, length and entry count per chunk) and the footer.
+ */
+final class Checkpoint {
+    static final String FILE_NAME = "checkpoint.rlu";
+    static final int CHUNK_SIZE = 1 << 20;
+
+    private static final int MAGIC = 0x524C5543; // "RLUC"
+    private static final int FORMAT = 1;
+    private static final int HEADER = 8;
+    private static final int FOOTER = 32; // index offset, chunk count, entries, log position, magic
+
+    private Checkpoint() {
+    }
+
+    static final class Footer {
+        final long indexOffset;
+        final int chunks;
+        final long entries;
+        final long logPosition;
+
+        Footer(long indexOffset, int chunks, long entries, long logPosition) {
+            this.indexOffset = indexOffset;
+            this.chunks = chunks;
+            this.entries = entries;
+            this.logPosition = logPosition;
+        }
+    }
+
+    /**
+     * Receives the entries of a checkpoint being loaded. Called from several threads at once,
+     * each key exactly once.
+     */
+    interface Sink<T> {
+        void accept(T key, T value, int version);
+    }
+
+    /**
+     * Writes the present entries to {@code file} and forces it.
+     * @return the number of entries written
+     */
+    static <T> long write(Path file, Iterable<LogEntry<T>> entries, Serializer<T> serializer, long logPosition) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(FORMAT).flip();
+            channel.write(header);
+            long position = HEADER;
+
+            List<long[]> index = new ArrayList<>(); // offset, length, count
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+            int inChunk = 0;
+            long total = 0;
+            for (LogEntry<T> entry : entries) {
+                T value;
+                int version;
+                while (true) {
+                    long stamp = entry.beginRead(); // waits out a commit in progress
+                    value = entry.getValue();
+                    if (entry.validate(stamp)) {
+                        version = Stamp.version(stamp);
+                        break;
+                    }
+                }
+                if (value == null) continue; // removed keys are not carried over
+                while (true) {
+                    int mark = chunk.position();
+                    try {
+                        chunk.putInt(version);
+                        serializer.write(entry.getKey(), chunk);
+                        serializer.write(value, chunk);
+                        break;
+                    } catch (BufferOverflowException e) {
+                        chunk.position(mark);
+                        if (inChunk == 0) {
+                            chunk = ByteBuffer.allocate(chunk.capacity() * 2); // one entry larger than a chunk
+                            continue;
+                        }
+                        position = flush(channel, chunk, position, inChunk, index);
+                        inChunk = 0;
+                    }
+                }
+                inChunk++;
+                total++;
+            }
+            if (inChunk > 0) position = flush(channel, chunk, position, inChunk, index);
+
+            ByteBuffer tail = ByteBuffer.allocate(index.size() * 16 + FOOTER);
+            for (long[] c : index) tail.putLong(c[0]).putInt((int) c[1]).putInt((int) c[2]);
+            tail.putLong(position).putInt(index.size()).putLong(total).putLong(logPosition).putInt(MAGIC).flip();
+            while (tail.hasRemaining()) channel.write(tail);
+            channel.force(true);
+            return total;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint " + file, e);
+        }
+    }
+
+    private static long flush(FileChannel channel, ByteBuffer chunk, long position, int count, List<long[]> index) throws IOException {
+        chunk.flip();
+        int length = chunk.remaining();
+        while (chunk.hasRemaining()) channel.write(chunk);
+        chunk.clear();
+        index.add(new long[]{position, length, count});
+        return position + length;
+    }
+
+    /**
+     * @return the footer of {@code file}, or null if there is no complete checkpoint
+     */
+    static Footer readFooter(Path file) {
+        if (!Files.exists(file)) return null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER + FOOTER) return null;
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER);
+            channel.read(footer, size - FOOTER);
+            footer.flip();
+            Footer f = new Footer(footer.getLong(), footer.getInt(), footer.getLong(), footer.getLong());
+            if (footer.getInt() != MAGIC) return null;
+            return f;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read checkpoint " + file, e);
+        }
+    }
+
+    /**
+     * Maps each chunk of {@code file} and decodes the chunks in parallel into {@code sink}.
+     */
+    static <T> void load(Path file, Footer footer, Serializer<T> serializer, Sink<T> sink) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, footer.indexOffset, footer.chunks * 16L);
+            IntStream.range(0, footer.chunks).parallel().forEach(c -> {
+                long offset = index.getLong(c * 16);
+                int length = index.getInt(c * 16 + 8);
+                int count = index.getInt(c * 16 + 12);
+                ByteBuffer chunk;
+                try {
+                    chunk = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot map checkpoint chunk " + c, e);
+                }
+                for (int i = 0; i < count; i++) {
+                    int version = chunk.getInt();
+                    T key = serializer.read(chunk);
+                    sink.accept(key, serializer.read(chunk), version);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load checkpoint " + file, e);
+        }
+    }
+}
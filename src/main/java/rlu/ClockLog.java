@@ -0,0 +1,98 @@
+package rlu;
+
+import java.util.ArrayList;
+
+/**
+ * Per-thread state of the global-clock engine: the section counters that
+ * {@link GlobalClock#synchronize} waits on, and the write log of objects this thread has locked.
+ */
+public class ClockLog {
+    private final GlobalClock clock;
+    private volatile long runCounter;  // odd while the thread is inside a section
+    private volatile long localClock;
+    private volatile long writeClock = Long.MAX_VALUE;
+    private final ArrayList<RLUObject<?>> writeLog = new ArrayList<>();
+
+    ClockLog(GlobalClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Starts a section by sampling the global clock (rlu_reader_lock). No-op if already inside one.
+     */
+    public void readerLock() {
+        if (isInSection()) return;
+        runCounter++;
+        localClock = clock.get();
+    }
+
+    /**
+     * Ends the section (rlu_reader_unlock), committing the write log if anything was locked.
+     * @return true if a write log was committed
+     */
+    public boolean readerUnlock() {
+        if (!isInSection()) return false;
+        runCounter++;
+        if (writeLog.isEmpty()) return false;
+        commitWriteLog();
+        return true;
+    }
+
+    /**
+     * Ends the section and drops every lock and copy taken in it (rlu_abort).
+     */
+    public void abort() {
+        if (isInSection()) runCounter++;
+        for (RLUObject<?> object : writeLog) {
+            object.unlock();
+        }
+        writeLog.clear();
+    }
+
+    public boolean isInSection() {
+        return (runCounter & 1) == 1;
+    }
+
+    public boolean hasWrites() {
+        return !writeLog.isEmpty();
+    }
+
+    public int writeCount() {
+        return writeLog.size();
+    }
+
+    private void commitWriteLog() {
+        // Readers that sample the clock after the increment will steal our copies
+        writeClock = clock.get() + 1;
+        clock.increment();
+        clock.synchronize(this, writeClock);
+        for (RLUObject<?> object : writeLog) {
+            object.writeBack();
+        }
+        for (RLUObject<?> object : writeLog) {
+            object.unlock();
+        }
+        writeClock = Long.MAX_VALUE;
+        writeLog.clear();
+    }
+
+    void logLocked(RLUObject<?> object) {
+        writeLog.add(object);
+    }
+
+    void release(RLUObject<?> object) {
+        if (writeLog.remove(object)) object.unlock();
+    }
+
+    long getRunCounter() {
+        return runCounter;
+    }
+
+    long getLocalClock() {
+        return localClock;
+    }
+
+    long getWriteClock() {
+        return writeClock;
+    }
+}
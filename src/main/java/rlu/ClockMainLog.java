@@ -0,0 +1,54 @@
+package rlu;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Key-value store of the global-clock engine. Each key maps to an {@link RLUObject}; writers
+ * lock the object and stage their value in its copy, readers dereference through the writer's
+ * log and never CAS.
+ */
+public class ClockMainLog<T> {
+    private final ConcurrentHashMap<T, RLUObject<T>> entries;
+    private final GlobalClock clock = new GlobalClock();
+
+    public ClockMainLog() {
+        entries = new ConcurrentHashMap<>();
+    }
+
+    public ClockMainLog(int bucketSize) {
+        entries = new ConcurrentHashMap<>(bucketSize);
+    }
+
+    public ClockLog getLog() {
+        return clock.getLog();
+    }
+
+    public void deregister() {
+        clock.deregister();
+    }
+
+    public T read(T key, ClockLog log) {
+        RLUObject<T> object = entries.get(key);
+        return object != null ? object.dereference(log) : null;
+    }
+
+    /**
+     * Locks the key's object for {@code log} and stages {@code value} (null removes the key).
+     * @return false if another writer holds the key
+     */
+    public boolean write(T key, T value, ClockLog log) {
+        RLUObject<T> object = entries.computeIfAbsent(key, k -> new RLUObject<>(null));
+        if (!object.tryLock(log)) return false;
+        object.setCopy(log, value);
+        return true;
+    }
+
+    public void discard(T key, ClockLog log) {
+        RLUObject<T> object = entries.get(key);
+        if (object != null && object.isLockedBy(log)) log.release(object);
+    }
+
+    public void synchronize(ClockLog log) {
+        clock.synchronize(log);
+    }
+}
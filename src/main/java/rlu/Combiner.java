@@ -0,0 +1,124 @@
+package rlu;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Flat combining for the commits of one {@link MainLog} shard. A committer pushes its batch onto
+ * the shard's publication stack and spins until it is applied; whichever waiter holds the
+ * combiner flag takes the whole stack and applies every batch on it in arrival order. Under
+ * contention one thread then locks and publishes the shard's hot entries while the others wait
+ * on their own request, instead of all of them spinning on the same entry locks.
+ *
+ * <p>Each write set owns one {@link Request}, reused for every commit, so combining allocates
+ * nothing. Batches are still validated one by one, so a stale batch fails exactly as it would
+ * have on its own.
+ */
+final class Combiner<T> {
+    private static final int MAX_PASSES = 4; // then hand the flag to a waiter
+    private static final int SPINS = 64;     // before yielding the CPU to the combiner
+
+    /**
+     * A batch waiting to be applied, with its outcome once {@link #done} is set.
+     */
+    static final class Request<T> {
+        final WriteSet<T> writeSet;
+        ReadSet<T> readSet;
+        Request<T> next;
+        boolean committed;
+        long logged;
+        boolean compactionDue;
+        Throwable failure;
+        volatile boolean done;
+
+        Request(WriteSet<T> writeSet) {
+            this.writeSet = writeSet;
+        }
+
+        void reset(ReadSet<T> readSet) {
+            this.readSet = readSet;
+            committed = false;
+            logged = 0;
+            compactionDue = false;
+            failure = null;
+        }
+
+        /**
+         * Throws what {@code apply} threw on this request, if anything, on its owner's thread.
+         */
+        void rethrowFailure() {
+            if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+            if (failure instanceof Error) throw (Error) failure;
+            if (failure != null) throw new IllegalStateException("Commit failed", failure);
+        }
+    }
+
+    private final AtomicReference<Request<T>> pending = new AtomicReference<>();
+    private final AtomicBoolean combining = new AtomicBoolean();
+    private final LongAdder combined = new LongAdder();
+
+    /**
+     * Queues {@code request} and returns once {@code apply} has run on it, on this thread or
+     * on the combiner's. Whatever {@code apply} throws, errors included, is left in the request
+     * and the request still completes, so no waiter is stranded by another's failure.
+     */
+    void commit(Request<T> request, Consumer<Request<T>> apply) {
+        request.done = false;
+        Request<T> head;
+        do {
+            head = pending.get();
+            request.next = head;
+        } while (!pending.compareAndSet(head, request));
+
+        int spins = 0;
+        while (!request.done) {
+            if (!combining.get() && combining.compareAndSet(false, true)) {
+                try {
+                    combine(request, apply);
+                } finally {
+                    combining.set(false);
+                }
+            } else if (++spins < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    private void combine(Request<T> own, Consumer<Request<T>> apply) {
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            Request<T> stack = pending.getAndSet(null);
+            if (stack == null) return;
+            Request<T> fifo = null; // the stack is newest first
+            while (stack != null) {
+                Request<T> next = stack.next;
+                stack.next = fifo;
+                fifo = stack;
+                stack = next;
+            }
+            while (fifo != null) {
+                Request<T> request = fifo;
+                fifo = request.next; // read before done: its owner may push it again
+                request.next = null;
+                try {
+                    apply.accept(request);
+                    if (request != own) combined.increment();
+                } catch (Throwable t) {
+                    request.failure = t;
+                } finally {
+                    request.done = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return batches this combiner applied on behalf of another thread
+     */
+    long combined() {
+        return combined.sum();
+    }
+}
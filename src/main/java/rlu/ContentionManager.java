@@ -0,0 +1,25 @@
+package rlu;
+
+/**
+ * Decides what a transaction run by {@link RLU#atomically} does between attempts.
+ * Implementations are shared by all threads; per-attempt state is passed in.
+ */
+public interface ContentionManager {
+
+    /**
+     * Called before every attempt, starting with attempt 1. May block.
+     */
+    default void beforeAttempt(int attempt) {
+    }
+
+    /**
+     * Called after every attempt, whether it committed, aborted or threw.
+     */
+    default void afterAttempt(int attempt, boolean committed) {
+    }
+
+    /**
+     * Called after attempt {@code attempt} aborted, before the next one starts.
+     */
+    void onAbort(int attempt);
+}
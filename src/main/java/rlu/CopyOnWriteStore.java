@@ -0,0 +1,66 @@
+package rlu;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Baseline {@link TransactionalStore}: an immutable snapshot map behind a volatile reference.
+ * Reads and read-only transactions use the current snapshot without any lock and always see a
+ * consistent state. A transaction that writes runs again under the writer lock on the latest
+ * snapshot, then publishes a copy with its writes applied, so every writing commit copies the
+ * whole map.
+ */
+public class CopyOnWriteStore<T> implements TransactionalStore<T> {
+    private final ReentrantLock writer = new ReentrantLock();
+    private final boolean ordered;
+    private volatile Map<T, T> snapshot;
+    private final ThreadLocal<BufferedTransaction<T>> transactions = ThreadLocal.withInitial(BufferedTransaction::new);
+
+    public CopyOnWriteStore() {
+        this(false);
+    }
+
+    /**
+     * @param ordered keep keys sorted, so transactions can scan
+     */
+    public CopyOnWriteStore(boolean ordered) {
+        this.ordered = ordered;
+        this.snapshot = BufferedTransaction.newMap(ordered);
+    }
+
+    @Override
+    public T read(T key) {
+        return snapshot.get(key);
+    }
+
+    @Override
+    public <R> R atomically(Function<Transaction<T>, R> body) {
+        BufferedTransaction<T> tx = transactions.get();
+        try {
+            tx.begin(snapshot, true);
+            return body.apply(tx);
+        } catch (BufferedTransaction.Upgrade e) {
+            // wrote: run again as the only writer
+        } finally {
+            tx.end();
+        }
+        writer.lock();
+        try {
+            Map<T, T> base = snapshot;
+            tx.begin(base, false);
+            R result = body.apply(tx);
+            if (tx.hasWrites()) {
+                Map<T, T> copy = ordered ? new TreeMap<>(base) : new HashMap<>(base);
+                tx.applyTo(copy);
+                snapshot = copy; // never modified after this
+            }
+            return result;
+        } finally {
+            tx.end();
+            writer.unlock();
+        }
+    }
+}
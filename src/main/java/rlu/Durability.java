@@ -0,0 +1,22 @@
+package rlu;
+
+/**
+ * When the {@link WriteAheadLog} forces committed batches to disk.
+ */
+public enum Durability {
+    /**
+     * Batches are written to the mapped log but never forced: they survive the process
+     * crashing, not the machine losing power.
+     */
+    NONE,
+    /**
+     * A background thread forces the log periodically; a power loss can drop the batches of the
+     * last interval.
+     */
+    ASYNC,
+    /**
+     * A commit returns only once its batch is on disk. Committers waiting at the same time share
+     * one force.
+     */
+    GROUP_SYNC
+}
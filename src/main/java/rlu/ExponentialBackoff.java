@@ -0,0 +1,29 @@
+package rlu;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Backs off for a random time below a ceiling that doubles with every abort, so retrying
+ * threads spread out instead of colliding again.
+ */
+public class ExponentialBackoff implements ContentionManager {
+    private final long minNanos;
+    private final long maxNanos;
+
+    public ExponentialBackoff() {
+        this(1_000, 1_000_000);
+    }
+
+    public ExponentialBackoff(long minNanos, long maxNanos) {
+        if (minNanos <= 0 || maxNanos < minNanos) throw new IllegalArgumentException("need 0 < minNanos <= maxNanos");
+        this.minNanos = minNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    @Override
+    public void onAbort(int attempt) {
+        long ceiling = attempt >= 62 ? maxNanos : Math.min(maxNanos, minNanos << Math.min(attempt - 1, 30));
+        LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(ceiling) + 1);
+    }
+}
@@ -0,0 +1,65 @@
+package rlu;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The global write clock of the global-clock engine and the registry of threads whose sections
+ * a grace period has to wait for.
+ */
+public class GlobalClock {
+    private final AtomicLong clock = new AtomicLong(0);
+    private final ThreadRegistry<ClockLog> logs = new ThreadRegistry<>(() -> new ClockLog(this), ClockLog::abort);
+
+    /**
+     * Returns the calling thread's log, registering the thread on first use.
+     */
+    public ClockLog getLog() {
+        return logs.get();
+    }
+
+    /**
+     * Releases the calling thread's log so another thread can reuse it.
+     */
+    public void deregister() {
+        logs.deregister();
+    }
+
+    public long get() {
+        return clock.get();
+    }
+
+    void increment() {
+        clock.incrementAndGet();
+    }
+
+    /**
+     * Waits until every other thread that is inside a section which started before
+     * {@code writeClock} has left it (rlu_synchronize). Threads that died inside a section
+     * are not waited for.
+     */
+    void synchronize(ClockLog self, long writeClock) {
+        for (ThreadRegistry.Slot<ClockLog> slot : logs.slots()) {
+            if (slot == null) continue;
+            ClockLog log = slot.getState();
+            if (log == self) continue;
+            long run = log.getRunCounter();
+            if ((run & 1) == 0) continue;
+            int spins = 0;
+            while (log.getRunCounter() == run && log.getLocalClock() < writeClock) {
+                if (++spins < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    if (!slot.isActive()) break;
+                    Thread.yield();
+                }
+            }
+        }
+    }
+
+    /**
+     * Grace period for callers outside a commit: waits for every section that is already running.
+     */
+    public void synchronize(ClockLog self) {
+        synchronize(self, clock.get() + 1);
+    }
+}
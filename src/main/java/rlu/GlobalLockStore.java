@@ -0,0 +1,51 @@
+package rlu;
+
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Baseline {@link TransactionalStore}: one map behind one lock, held for every read and for
+ * the whole of every transaction.
+ */
+public class GlobalLockStore<T> implements TransactionalStore<T> {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<T, T> map;
+    private final ThreadLocal<BufferedTransaction<T>> transactions = ThreadLocal.withInitial(BufferedTransaction::new);
+
+    public GlobalLockStore() {
+        this(false);
+    }
+
+    /**
+     * @param ordered keep keys sorted, so transactions can scan
+     */
+    public GlobalLockStore(boolean ordered) {
+        this.map = BufferedTransaction.newMap(ordered);
+    }
+
+    @Override
+    public T read(T key) {
+        lock.lock();
+        try {
+            return map.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public <R> R atomically(Function<Transaction<T>, R> body) {
+        BufferedTransaction<T> tx = transactions.get();
+        lock.lock();
+        try {
+            tx.begin(map, false);
+            R result = body.apply(tx);
+            tx.applyTo(map);
+            return result;
+        } finally {
+            tx.end();
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package rlu;
+
+/**
+ * {@link LocalLog} specialized for int keys and values. Private to one thread, so it is a plain
+ * open-addressing table that is cleared in place and reused by the next transaction.
+ */
+public class IntLocalLog {
+    private static final byte EMPTY = 0;
+    private static final byte WRITTEN = 1;
+    private static final byte REMOVED = 2;
+    private static final byte DISCARDED = 3;
+
+    private int[] keys;
+    private int[] values;
+    private int[] versions;
+    private byte[] flags;
+    private int[] order; // occupied slots in insertion order, for commit and clear
+    private int size;
+    private int pending; // slots that are not discarded
+    private int mask;
+
+    // Filled by the running commit: the main log slot of each local slot, the stamp it had
+    // when this thread locked it, and the pending slots sorted by main log slot (lock order)
+    private int[] mainSlots;
+    private long[] lockedStamps;
+    private int[] lockOrder;
+
+    public IntLocalLog() {
+        this(16);
+    }
+
+    public IntLocalLog(int initialCapacity) {
+        allocate(Integer.highestOneBit(Math.max(2, initialCapacity) * 2 - 1) << 1);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        versions = new int[capacity];
+        flags = new byte[capacity];
+        order = new int[capacity];
+        mainSlots = new int[capacity];
+        lockedStamps = new long[capacity];
+        lockOrder = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    public void write(int key, int value, int version) {
+        put(key, value, version, WRITTEN);
+    }
+
+    public void remove(int key, int version) {
+        put(key, 0, version, REMOVED);
+    }
+
+    public void discard(int key) {
+        int slot = find(key);
+        if (slot >= 0 && flags[slot] != DISCARDED) {
+            flags[slot] = DISCARDED;
+            pending--;
+        }
+    }
+
+    /**
+     * @return true if this log holds a pending write or remove for {@code key}
+     */
+    public boolean isPending(int key) {
+        int slot = find(key);
+        return slot >= 0 && flags[slot] != DISCARDED;
+    }
+
+    public boolean isPendingRemove(int key) {
+        int slot = find(key);
+        return slot >= 0 && flags[slot] == REMOVED;
+    }
+
+    public int read(int key, IntMainLog mainLog, int absentValue) {
+        int slot = find(key);
+        if (slot >= 0 && flags[slot] != DISCARDED) {
+            return flags[slot] == WRITTEN ? values[slot] : absentValue;
+        }
+        return mainLog.getValue(key, absentValue);
+    }
+
+    public boolean commit(IntMainLog mainLog, boolean batchCommit) {
+        if (pending == 0) return false;
+        return mainLog.commit(this, batchCommit);
+    }
+
+    private void put(int key, int value, int version, byte flag) {
+        if ((size + 1) * 2 > keys.length) grow();
+        int i = IntMainLog.hash(key) & mask;
+        while (flags[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (flags[i] == EMPTY) {
+            keys[i] = key;
+            order[size++] = i;
+        }
+        if ((flags[i] == EMPTY || flags[i] == DISCARDED) && flag != DISCARDED) pending++;
+        values[i] = value;
+        versions[i] = version;
+        flags[i] = flag;
+    }
+
+    private int find(int key) {
+        int i = IntMainLog.hash(key) & mask;
+        while (flags[i] != EMPTY) {
+            if (keys[i] == key) return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys, oldValues = values, oldVersions = versions, oldOrder = order;
+        byte[] oldFlags = flags;
+        int oldSize = size;
+        allocate(oldKeys.length * 2);
+        size = 0;
+        pending = 0;
+        for (int n = 0; n < oldSize; n++) {
+            int slot = oldOrder[n];
+            put(oldKeys[slot], oldValues[slot], oldVersions[slot], oldFlags[slot]);
+        }
+    }
+
+    void clear() {
+        for (int n = 0; n < size; n++) {
+            flags[order[n]] = EMPTY;
+        }
+        size = 0;
+        pending = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int slotAt(int n) {
+        return order[n];
+    }
+
+    int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    int valueAt(int slot) {
+        return values[slot];
+    }
+
+    int versionAt(int slot) {
+        return versions[slot];
+    }
+
+    boolean isRemoved(int slot) {
+        return flags[slot] == REMOVED;
+    }
+
+    boolean isPendingSlot(int slot) {
+        return flags[slot] == WRITTEN || flags[slot] == REMOVED;
+    }
+
+    void setMainSlot(int slot, int mainSlot) {
+        mainSlots[slot] = mainSlot;
+    }
+
+    int mainSlotAt(int slot) {
+        return mainSlots[slot];
+    }
+
+    void setLockedStamp(int slot, long stamp) {
+        lockedStamps[slot] = stamp;
+    }
+
+    long lockedStampAt(int slot) {
+        return lockedStamps[slot];
+    }
+
+    /**
+     * Sorts the pending slots by their main log slot, the global lock order.
+     * @return number of slots in lock order, read back with {@link #lockSlotAt}
+     */
+    int prepareLockOrder() {
+        int count = 0;
+        for (int n = 0; n < size; n++) {
+            int slot = order[n];
+            if (isPendingSlot(slot)) lockOrder[count++] = slot;
+        }
+        // Insertion sort; transactions are short and this must not allocate
+        for (int i = 1; i < count; i++) {
+            int slot = lockOrder[i];
+            int j = i;
+            while (j > 0 && mainSlots[lockOrder[j - 1]] > mainSlots[slot]) {
+                lockOrder[j] = lockOrder[j - 1];
+                j--;
+            }
+            lockOrder[j] = slot;
+        }
+        return count;
+    }
+
+    int lockSlotAt(int n) {
+        return lockOrder[n];
+    }
+}
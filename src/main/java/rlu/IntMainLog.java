@@ -0,0 +1,333 @@
+package rlu;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link MainLog} specialized for int keys and values: an open-addressing table over
+ * primitive arrays. Slots are claimed once and never freed, like entries in {@link MainLog};
+ * each slot's value is guarded by a {@link Stamp} so reads are allocation-free seqlock reads.
+ *
+ * <p>When the table passes half full it is copied into one twice the size. The copier marks
+ * the old table frozen, then locks each of its slots for good, waiting out any committer that
+ * holds one, and copies it with its stamp, so versions carry over. Committers and readers
+ * that meet a frozen table wait for the copy and go again on the new one.
+ */
+public class IntMainLog {
+    private static final VarHandle STATES = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle STAMPS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private static final int EMPTY = 0;
+    private static final int CLAIMING = 1;
+    private static final int READY = 2;
+    private static final int MOVED = 3; // an empty slot of a frozen table
+
+    private static final int NOT_FOUND = -1;
+    private static final int RETRY = -2; // the table is frozen; go again on the next one
+    private static final long FROZEN = -2L; // from lock: the slot was copied away
+
+    private static final class Table {
+        final int[] states;
+        final int[] keys;
+        final long[] stamps;
+        final int[] values;
+        final int mask;
+        final AtomicInteger used = new AtomicInteger();
+        volatile boolean frozen;
+
+        Table(int size) {
+            states = new int[size];
+            keys = new int[size];
+            stamps = new long[size];
+            values = new int[size];
+            mask = size - 1;
+        }
+    }
+
+    private volatile Table table;
+
+    public IntMainLog() {
+        this(1 << 16);
+    }
+
+    /**
+     * @param capacity number of distinct keys the table holds before it first grows
+     */
+    public IntMainLog(int capacity) {
+        table = new Table(Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1); // keep load <= 0.5
+    }
+
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return the slot of {@code key} in {@code t}, {@link #NOT_FOUND} if the key was never
+     *         written, or {@link #RETRY} if {@code t} was frozen
+     */
+    private static int find(Table t, int key) {
+        int i = hash(key) & t.mask;
+        for (int probes = 0; probes <= t.mask; probes++) {
+            int state = (int) STATES.getAcquire(t.states, i);
+            if (state == EMPTY) return NOT_FOUND;
+            while (state == CLAIMING) {
+                Thread.onSpinWait();
+                state = (int) STATES.getAcquire(t.states, i);
+            }
+            if (state == MOVED) return RETRY;
+            if (t.keys[i] == key) return i;
+            i = (i + 1) & t.mask;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * @return the slot of {@code key} in {@code t}, claimed if it had none, or {@link #RETRY}
+     *         if {@code t} was frozen or has grown too full
+     */
+    private int findOrInsert(Table t, int key) {
+        int i = hash(key) & t.mask;
+        for (int probes = 0; probes <= t.mask; probes++) {
+            int state = (int) STATES.getAcquire(t.states, i);
+            if (state == EMPTY) {
+                if (STATES.compareAndSet(t.states, i, EMPTY, CLAIMING)) {
+                    t.keys[i] = key;
+                    STATES.setRelease(t.states, i, READY);
+                    if (t.used.incrementAndGet() > (t.mask + 1) / 2) grow(t);
+                    return i;
+                }
+                state = (int) STATES.getAcquire(t.states, i);
+            }
+            while (state == CLAIMING) {
+                Thread.onSpinWait();
+                state = (int) STATES.getAcquire(t.states, i);
+            }
+            if (state == MOVED) return RETRY;
+            if (t.keys[i] == key) return i;
+            i = (i + 1) & t.mask;
+        }
+        grow(t);
+        return RETRY;
+    }
+
+    /**
+     * Copies {@code t} into a table twice its size, unless another thread already did.
+     */
+    private synchronized void grow(Table t) {
+        if (table != t) return;
+        t.frozen = true; // committers that lock a slot from here on back off
+        Table next = new Table((t.mask + 1) * 2);
+        for (int i = 0; i <= t.mask; i++) {
+            int state = (int) STATES.getAcquire(t.states, i);
+            if (state == EMPTY && STATES.compareAndSet(t.states, i, EMPTY, MOVED)) continue;
+            while ((state = (int) STATES.getAcquire(t.states, i)) == CLAIMING) Thread.onSpinWait();
+            long stamp = freeze(t, i);
+            int key = t.keys[i];
+            int j = hash(key) & next.mask;
+            while (next.states[j] != EMPTY) j = (j + 1) & next.mask;
+            next.states[j] = READY;
+            next.keys[j] = key;
+            next.values[j] = (int) VALUES.getOpaque(t.values, i);
+            next.stamps[j] = stamp;
+            next.used.incrementAndGet();
+        }
+        table = next; // publishes the copied arrays
+    }
+
+    /**
+     * Locks a slot of a frozen table for good, once its committer, if any, has published.
+     * @return the stamp before locking
+     */
+    private static long freeze(Table t, int slot) {
+        while (true) {
+            long stamp = (long) STAMPS.getVolatile(t.stamps, slot);
+            if (Stamp.isLocked(stamp)) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (STAMPS.compareAndSet(t.stamps, slot, stamp, Stamp.locked(stamp))) return stamp;
+        }
+    }
+
+    /**
+     * Waits until {@code t} has been replaced.
+     */
+    private void awaitGrown(Table t) {
+        if (table == t) {
+            synchronized (this) {
+                // the copier holds the monitor until the new table is published
+            }
+        }
+    }
+
+    /**
+     * @return true if the key has a slot, even if its value was removed (like {@link MainLog#getEntry})
+     */
+    public boolean hasEntry(int key) {
+        while (true) {
+            Table t = table;
+            int slot = find(t, key);
+            if (slot != RETRY) return slot >= 0;
+            awaitGrown(t);
+        }
+    }
+
+    public boolean isPresent(int key) {
+        while (true) {
+            Table t = table;
+            int slot = find(t, key);
+            if (slot == RETRY) {
+                awaitGrown(t);
+                continue;
+            }
+            return slot >= 0 && Stamp.isPresent((long) STAMPS.getVolatile(t.stamps, slot));
+        }
+    }
+
+    public int getVersion(int key) {
+        while (true) {
+            Table t = table;
+            int slot = find(t, key);
+            if (slot == RETRY) {
+                awaitGrown(t);
+                continue;
+            }
+            return slot >= 0 ? Stamp.version((long) STAMPS.getVolatile(t.stamps, slot)) : 0;
+        }
+    }
+
+    public int getValue(int key, int absentValue) {
+        Table t = table;
+        int slot = find(t, key);
+        while (true) {
+            if (slot == RETRY) {
+                awaitGrown(t);
+                t = table;
+                slot = find(t, key);
+                continue;
+            }
+            if (slot < 0) return absentValue;
+            long before = (long) STAMPS.getAcquire(t.stamps, slot);
+            if (Stamp.isLocked(before)) {
+                if (t.frozen) slot = RETRY;
+                Thread.onSpinWait();
+                continue;
+            }
+            int value = (int) VALUES.getOpaque(t.values, slot);
+            VarHandle.loadLoadFence();
+            if ((long) STAMPS.getVolatile(t.stamps, slot) == before) {
+                return Stamp.isPresent(before) ? value : absentValue;
+            }
+        }
+    }
+
+    /**
+     * Same contract as {@link MainLog#commit}: in batch mode every slot is locked in slot order
+     * and validated before anything is published; otherwise stale entries are skipped and the
+     * commit returns false. A commit that meets a growing table starts over on the new one.
+     */
+    public boolean commit(IntLocalLog localLog, boolean batchCommit) {
+        if (!batchCommit) {
+            boolean allUpdated = true;
+            for (int n = 0; n < localLog.size(); n++) {
+                int local = localLog.slotAt(n);
+                if (localLog.isPendingSlot(local)) allUpdated &= commitOne(localLog, local);
+            }
+            localLog.clear();
+            return allUpdated;
+        }
+
+        while (true) {
+            Table t = table;
+            int result = commitBatch(t, localLog);
+            if (result != RETRY) {
+                localLog.clear(); // published in full, or not at all
+                return result == 1;
+            }
+            awaitGrown(t);
+        }
+    }
+
+    private boolean commitOne(IntLocalLog localLog, int local) {
+        while (true) {
+            Table t = table;
+            int slot = findOrInsert(t, localLog.keyAt(local));
+            long stamp = slot == RETRY ? FROZEN : lock(t, slot, localLog.versionAt(local));
+            if (stamp == FROZEN) {
+                awaitGrown(t);
+                continue;
+            }
+            if (stamp == -1L) return false;
+            publish(t, localLog, local, slot, stamp);
+            return true;
+        }
+    }
+
+    /**
+     * @return 1 if published, 0 on a version conflict, {@link #RETRY} if {@code t} froze
+     */
+    private int commitBatch(Table t, IntLocalLog localLog) {
+        for (int n = 0; n < localLog.size(); n++) {
+            int local = localLog.slotAt(n);
+            if (!localLog.isPendingSlot(local)) continue;
+            int slot = findOrInsert(t, localLog.keyAt(local));
+            if (slot == RETRY) return RETRY;
+            localLog.setMainSlot(local, slot);
+        }
+        int count = localLog.prepareLockOrder();
+
+        int locked = 0;
+        long stamp = 0L;
+        for (; locked < count; locked++) {
+            int local = localLog.lockSlotAt(locked);
+            stamp = lock(t, localLog.mainSlotAt(local), localLog.versionAt(local));
+            if (stamp < 0L) break;
+            localLog.setLockedStamp(local, stamp);
+        }
+
+        if (locked < count) {
+            for (int n = 0; n < locked; n++) {
+                int local = localLog.lockSlotAt(n);
+                STAMPS.setRelease(t.stamps, localLog.mainSlotAt(local), localLog.lockedStampAt(local)); // nothing was published
+            }
+            return stamp == FROZEN ? RETRY : 0;
+        }
+
+        for (int n = 0; n < count; n++) {
+            int local = localLog.lockSlotAt(n);
+            publish(t, localLog, local, localLog.mainSlotAt(local), localLog.lockedStampAt(local));
+        }
+        return 1;
+    }
+
+    private static void publish(Table t, IntLocalLog localLog, int local, int slot, long lockedStamp) {
+        boolean present = !localLog.isRemoved(local);
+        if (present) VALUES.setOpaque(t.values, slot, localLog.valueAt(local));
+        STAMPS.setRelease(t.stamps, slot, Stamp.next(lockedStamp, localLog.versionAt(local) + 1, present));
+    }
+
+    /**
+     * Locks the slot if it still carries {@code expectedVersion}. The frozen check after
+     * locking pairs with {@link #grow}, which freezes the table before it locks any slot.
+     * @return the stamp before locking, -1 on a version conflict, or {@link #FROZEN}
+     */
+    private static long lock(Table t, int slot, int expectedVersion) {
+        while (true) {
+            long stamp = (long) STAMPS.getVolatile(t.stamps, slot);
+            if (Stamp.version(stamp) != expectedVersion) return -1L;
+            if (Stamp.isLocked(stamp)) {
+                if (t.frozen) return FROZEN;
+                Thread.onSpinWait();
+                continue;
+            }
+            if (STAMPS.compareAndSet(t.stamps, slot, stamp, Stamp.locked(stamp))) {
+                if (!t.frozen) return stamp;
+                STAMPS.setRelease(t.stamps, slot, stamp);
+                return FROZEN;
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package rlu;
+
+/**
+ * {@link RLU} specialized for int keys and values, so reads and writes never box.
+ * Missing keys are reported through the {@code absentValue} passed to {@link #read}.
+ */
+public class IntRLU {
+    private final IntMainLog mainLog;
+    // One log per thread; no boxed thread id or shared map lookup on the hot path
+    private final ThreadLocal<IntLocalLog> localLog = ThreadLocal.withInitial(IntLocalLog::new);
+    private final boolean batchCommit;
+
+    public IntRLU() {
+        this(1 << 16, true);
+    }
+
+    /**
+     * @param capacity number of distinct keys the main log holds before it first grows
+     */
+    public IntRLU(int capacity) {
+        this(capacity, true);
+    }
+
+    public IntRLU(int capacity, boolean batchCommit) {
+        this.mainLog = new IntMainLog(capacity);
+        this.batchCommit = batchCommit;
+    }
+
+    public boolean write(int key, int value) {
+        int version = mainLog.getVersion(key);
+        localLog.get().write(key, value, version);
+        return true;
+    }
+
+    public boolean remove(int key) {
+        if (!mainLog.hasEntry(key)) return false;
+        int version = mainLog.getVersion(key);
+        localLog.get().remove(key, version);
+        return true;
+    }
+
+    public int read(int key, int absentValue) {
+        return localLog.get().read(key, mainLog, absentValue);
+    }
+
+    public boolean contains(int key) {
+        IntLocalLog log = localLog.get();
+        if (log.isPending(key)) return !log.isPendingRemove(key);
+        return mainLog.isPresent(key);
+    }
+
+    public void discard(int key) {
+        localLog.get().discard(key);
+    }
+
+    public boolean commit() {
+        return localLog.get().commit(mainLog, batchCommit);
+    }
+}
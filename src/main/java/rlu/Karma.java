@@ -0,0 +1,38 @@
+package rlu;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Abort-count priority: a transaction's karma is the number of times it has aborted, and the
+ * further it is behind the unluckiest running transaction, the longer it backs off. The
+ * transaction that has been starved longest backs off least and gets through.
+ */
+public class Karma implements ContentionManager {
+    private final long unitNanos;
+    private final long maxNanos;
+    private final AtomicInteger topKarma = new AtomicInteger();
+
+    public Karma() {
+        this(1_000, 1_000_000);
+    }
+
+    public Karma(long unitNanos, long maxNanos) {
+        if (unitNanos <= 0 || maxNanos < unitNanos) throw new IllegalArgumentException("need 0 < unitNanos <= maxNanos");
+        this.unitNanos = unitNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    @Override
+    public void onAbort(int attempt) {
+        int top = topKarma.accumulateAndGet(attempt, Math::max);
+        long wait = Math.min(maxNanos, unitNanos * (1L + top - attempt));
+        LockSupport.parkNanos(wait / 2 + ThreadLocalRandom.current().nextLong(wait / 2 + 1));
+    }
+
+    @Override
+    public void afterAttempt(int attempt, boolean committed) {
+        if (committed) topKarma.compareAndSet(attempt - 1, 0); // the top transaction is done
+    }
+}
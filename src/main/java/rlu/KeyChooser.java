@@ -0,0 +1,114 @@
+package rlu;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Picks the key of each operation of a {@link Workload}, following the request distributions of
+ * YCSB. Choosers are shared by all driver threads; each thread passes its own random source.
+ */
+abstract class KeyChooser {
+
+    abstract long next(SplittableRandom random);
+
+    /**
+     * Every key in {@code [0, keys)} equally often.
+     */
+    static KeyChooser uniform(long keys) {
+        return new KeyChooser() {
+            @Override
+            long next(SplittableRandom random) {
+                return random.nextLong(keys);
+            }
+        };
+    }
+
+    /**
+     * Keys in {@code [0, keys)} with Zipfian popularity, the most popular scattered over the key
+     * space by a hash rather than bunched at its start, as in YCSB's scrambled Zipfian.
+     */
+    static KeyChooser zipfian(long keys, double theta) {
+        Zipfian ranks = new Zipfian(keys, theta);
+        return new KeyChooser() {
+            @Override
+            long next(SplittableRandom random) {
+                return Math.floorMod(mix(ranks.next(random)), keys);
+            }
+        };
+    }
+
+    /**
+     * A fraction {@code hotOps} of the operations go to the first {@code hotKeys} fraction of
+     * the keys, uniformly; the rest go to the other keys.
+     */
+    static KeyChooser hotspot(long keys, double hotKeys, double hotOps) {
+        long hot = Math.max(1, Math.min(keys, (long) (keys * hotKeys)));
+        return new KeyChooser() {
+            @Override
+            long next(SplittableRandom random) {
+                if (hot == keys || random.nextDouble() < hotOps) return random.nextLong(hot);
+                return hot + random.nextLong(keys - hot);
+            }
+        };
+    }
+
+    /**
+     * Recently inserted keys most often: Zipfian over the distance from the newest key, which
+     * {@code inserted} counts up as the workload inserts.
+     */
+    static KeyChooser latest(AtomicLong inserted, long keys, double theta) {
+        Zipfian ranks = new Zipfian(keys, theta);
+        return new KeyChooser() {
+            @Override
+            long next(SplittableRandom random) {
+                long newest = inserted.get() - 1;
+                return Math.max(0, newest - ranks.next(random));
+            }
+        };
+    }
+
+    private static long mix(long x) {
+        x += 0x9E3779B97F4A7C15L; // so that rank 0 does not stay at key 0
+        x = (x ^ (x >>> 33)) * 0xFF51AFD7ED558CCDL;
+        x = (x ^ (x >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return x ^ (x >>> 33);
+    }
+
+    /**
+     * Ranks in {@code [0, items)}, rank 0 the most popular, drawn in constant time with the
+     * method of Gray et al., "Quickly generating billion-record synthetic databases". Setup
+     * sums {@code items} terms once.
+     */
+    static final class Zipfian {
+        private final long items;
+        private final double theta;
+        private final double alpha;
+        private final double zetan;
+        private final double eta;
+
+        Zipfian(long items, double theta) {
+            if (items < 1) throw new IllegalArgumentException("items must be >= 1");
+            if (theta <= 0 || theta >= 1) throw new IllegalArgumentException("theta must be in (0, 1)");
+            this.items = items;
+            this.theta = theta;
+            this.alpha = 1.0 / (1.0 - theta);
+            this.zetan = zeta(items, theta);
+            double zeta2 = zeta(2, theta);
+            this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2 / zetan);
+        }
+
+        private static double zeta(long n, double theta) {
+            double sum = 0;
+            for (long i = 1; i <= n; i++) sum += 1 / Math.pow(i, theta);
+            return sum;
+        }
+
+        long next(SplittableRandom random) {
+            double u = random.nextDouble();
+            double uz = u * zetan;
+            if (uz < 1.0) return 0;
+            if (uz < 1.0 + Math.pow(0.5, theta)) return 1;
+            return Math.min(items - 1, (long) (items * Math.pow(eta * u - eta + 1, alpha)));
+        }
+    }
+}
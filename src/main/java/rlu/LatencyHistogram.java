@@ -0,0 +1,75 @@
+package rlu;
+
+/**
+ * Latencies in nanoseconds, bucketed log-linearly: exact below 32 ns, then 16 buckets per power
+ * of two, so a reported percentile is within 6.25% of the true one. Not thread-safe; each
+ * driver thread keeps its own and they are merged at the end.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int HALF = SUB >> 1;
+    private static final int BUCKETS = SUB + (64 - SUB_BITS) * HALF;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    static int index(long nanos) {
+        if (nanos < SUB) return (int) Math.max(0, nanos);
+        int shift = 64 - Long.numberOfLeadingZeros(nanos) - SUB_BITS;
+        return SUB + (shift - 1) * HALF + (int) (nanos >>> shift) - HALF;
+    }
+
+    /**
+     * @return the largest value that falls into bucket {@code index}
+     */
+    static long upperBound(int index) {
+        if (index < SUB) return index;
+        int shift = (index - SUB) / HALF + 1;
+        long sub = (index - SUB) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    void record(long nanos) {
+        counts[index(nanos)]++;
+        count++;
+        sum += nanos;
+        if (nanos > max) max = nanos;
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    long count() {
+        return count;
+    }
+
+    double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    long max() {
+        return max;
+    }
+
+    /**
+     * @param p quantile in [0, 1]
+     * @return an upper bound on the {@code p} quantile, 0 if nothing was recorded
+     */
+    long percentile(double p) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(upperBound(i), max);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,162 @@
+package rlu;
+
+import java.util.function.BinaryOperator;
+
+public class LocalLog<T> {
+    private final WriteSet<T> writeSet = new WriteSet<>();
+    private final ReadSet<T> readSet = new ReadSet<>(); // only filled by readTracked
+    VersionClock.Reader reader; // snapshot of a pooled log in multi-version mode, else null
+    private boolean stale; // a write overwrites a commit newer than the snapshot
+
+    public void write(T key, T value,int version) {
+        writeSet.put(key, value, version);
+    }
+
+    public void remove(T key, int version) {
+        writeSet.put(key, null, version);
+    }
+
+    /**
+     * Buffers a write of {@code key}, whose version was read from {@code entry}; null if the
+     * key has no entry yet.
+     */
+    void write(T key, T value, LogEntry<T> entry) {
+        writeSet.put(key, value, entry != null ? entry.getVersion() : 0, entry);
+    }
+
+    /**
+     * Makes room for {@code keys} more pending writes.
+     */
+    void reserve(int keys) {
+        writeSet.reserve(keys);
+    }
+
+    /**
+     * Buffers {@code merger(current, operand)}, applied at commit to the value {@code key} has
+     * then; {@code entry} is the key's entry, null if it has none yet.
+     */
+    void merge(T key, T operand, BinaryOperator<T> merger, LogEntry<T> entry) {
+        writeSet.merge(key, operand, merger, entry);
+    }
+
+    public T read(T key, MainLog<T> mainLog) {
+        int slot = writeSet.indexOf(key);
+        if (slot >= 0 && !writeSet.isMerge(slot)) return writeSet.valueAt(slot);
+
+        T value = mainLog.getValue(key);
+        return slot >= 0 ? writeSet.merged(slot, value) : value;
+    }
+
+    /**
+     * Reads the caller's own pending write, or else the value committed at {@code snapshot}.
+     */
+    public T readAsOf(T key, MainLog<T> mainLog, long snapshot) {
+        int slot = writeSet.indexOf(key);
+        if (slot >= 0 && !writeSet.isMerge(slot)) return writeSet.valueAt(slot);
+
+        T value = mainLog.getValueAsOf(key, snapshot);
+        return slot >= 0 ? writeSet.merged(slot, value) : value;
+    }
+
+    /**
+     * Reads like {@link #read} and records the version seen, for serializable commits. A key
+     * with a pending merge is recorded too, since the result depends on the value read.
+     */
+    public T readTracked(T key, MainLog<T> mainLog) {
+        int slot = writeSet.indexOf(key);
+        if (slot >= 0 && !writeSet.isMerge(slot)) return writeSet.valueAt(slot);
+
+        int absent = mainLog.absentVersion(key);
+        LogEntry<T> entry = mainLog.getEntry(key);
+        T value;
+        if (entry == null) {
+            readSet.record(key, null, absent);
+            value = null;
+        } else {
+            value = readTracked(entry);
+        }
+        return slot >= 0 ? writeSet.merged(slot, value) : value;
+    }
+
+    private T readTracked(LogEntry<T> entry) {
+        while (true) {
+            long stamp = entry.beginRead();
+            T value = entry.getValue();
+            if (entry.validate(stamp)) {
+                readSet.record(entry.getKey(), entry, Stamp.version(stamp));
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Reads an entry found by a scan, the way {@link #read}, {@link #readAsOf} or
+     * {@link #readTracked} would read its key.
+     *
+     * @param snapshot commit timestamp to read at, or -1 for the current value
+     */
+    public T readEntry(LogEntry<T> entry, long snapshot, boolean tracked) {
+        int slot = writeSet.indexOf(entry.getKey());
+        if (slot >= 0 && !writeSet.isMerge(slot)) return writeSet.valueAt(slot);
+
+        T value;
+        if (tracked) {
+            value = readTracked(entry);
+        } else if (snapshot >= 0) {
+            value = entry.readAsOf(snapshot);
+        } else {
+            value = entry.getValue();
+        }
+        return slot >= 0 ? writeSet.merged(slot, value) : value;
+    }
+
+    public void discard(T key) {
+        writeSet.discard(key);
+    }
+
+    public boolean hasWrites() {
+        return !writeSet.isEmpty();
+    }
+
+    /**
+     * @return true if a commit would neither publish nor validate anything
+     */
+    public boolean isEmpty() {
+        return writeSet.isEmpty() && readSet.isEmpty();
+    }
+
+    public int pendingCount() {
+        return writeSet.pendingCount();
+    }
+
+    /**
+     * Makes the next commit fail: a write was based on a version newer than the snapshot the
+     * transaction reads from.
+     */
+    void markStale() {
+        stale = true;
+    }
+
+    public void clear() {
+        writeSet.clear();
+        readSet.clear();
+        stale = false;
+    }
+
+    public boolean commit(MainLog<T> mainLog,boolean batchCommit) {
+        if (stale) {
+            clear();
+            return false;
+        }
+        if (writeSet.isEmpty()) {
+            if (readSet.isEmpty()) return false; // nothing to publish or validate
+            boolean valid = mainLog.validate(readSet, null); // read-only: the reads must still agree
+            readSet.clear();
+            return valid;
+        }
+        boolean success = mainLog.commit(writeSet, readSet.isEmpty() ? null : readSet, batchCommit);
+        readSet.clear();
+        return success;
+    }
+
+}
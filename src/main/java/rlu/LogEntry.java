@@ -0,0 +1,242 @@
+package rlu;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A key's value and version, kept in a seqlock-style cell: writers lock the {@link Stamp},
+ * store the value and publish a new stamp, readers validate that the stamp did not move.
+ * Nothing is allocated per update, except in multi-version mode, where each publish also
+ * prepends a {@link Version} stamped with its commit timestamp for snapshot reads.
+ */
+public class LogEntry<T> {
+    private static final VarHandle STAMP;
+    private static final VarHandle VALUE;
+    private static final AtomicLong ids = new AtomicLong();
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            STAMP = lookup.findVarHandle(LogEntry.class, "stamp", long.class);
+            VALUE = lookup.findVarHandle(LogEntry.class, "value", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * One committed value in the version chain, newest first. Only lock holders link and cut
+     * the chain; readers walk it without locking.
+     */
+    static final class Version {
+        final long commitTs;
+        final Object value;
+        volatile Version next;
+        volatile boolean truncated; // older versions were dropped while still visible
+
+        Version(long commitTs, Object value, Version next) {
+            this.commitTs = commitTs;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    private final T key;
+    private final long id; // lock order for multi-entry commits, unique within a MainLog
+    private volatile long stamp;
+    private Object value; // accessed through VALUE, guarded by stamp
+    private volatile Version versions; // null unless multi-version
+    private int retiredFrom; // the tombstone's version once retired, published by the stamp
+
+    public LogEntry(T key, T value, int version) {
+        this.key = key;
+        this.id = ids.getAndIncrement();
+        this.value = value;
+        this.stamp = Stamp.next(0L, version, value != null);
+    }
+
+    /**
+     * Creates an absent entry at version 0 with an id chosen by its {@link MainLog} shard.
+     * A multi-version entry starts its chain with "absent since timestamp 0".
+     */
+    LogEntry(T key, long id, boolean versioned) {
+        this.key = key;
+        this.id = id;
+        this.stamp = Stamp.next(0L, 0, false);
+        if (versioned) this.versions = new Version(0L, null, null);
+    }
+
+    public boolean updateValue(T newValue, int currentVersion, int newVersion) {
+        long oldStamp = lock(currentVersion);
+        if (oldStamp == -1L) return false;
+        publish(oldStamp, newValue, newVersion);
+        return true;
+    }
+
+
+    public int getVersion() {
+        return Stamp.version(this.stamp);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getValue() {
+        return (T) VALUE.getAcquire(this);
+    }
+
+    public T getKey() {
+        return this.key;
+    }
+
+    long getId() {
+        return this.id;
+    }
+
+    public boolean isLocked() {
+        return Stamp.isLocked(this.stamp);
+    }
+
+    /**
+     * Waits out any writer and returns the current stamp. Read the value and version, then
+     * confirm with {@link #validate} that they belong together.
+     */
+    public long beginRead() {
+        long s = this.stamp;
+        while (Stamp.isLocked(s)) {
+            Thread.onSpinWait();
+            s = this.stamp;
+        }
+        return s;
+    }
+
+    public boolean validate(long stamp) {
+        VarHandle.loadLoadFence();
+        return this.stamp == stamp;
+    }
+
+    /**
+     * Locks the cell if it still carries {@code expectedVersion}, waiting for another
+     * committer's lock to be released first. A retired entry never locks.
+     * @return the stamp before locking, or -1 on a version conflict
+     */
+    long lock(int expectedVersion) {
+        while (true) {
+            long s = this.stamp;
+            if (Stamp.version(s) != expectedVersion || expectedVersion == Stamp.RETIRED) return -1L;
+            if (Stamp.isLocked(s)) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (STAMP.compareAndSet(this, s, Stamp.locked(s))) return s;
+        }
+    }
+
+    /**
+     * Locks the entry at whatever version it has, for a merge.
+     * @return the stamp before locking, or -1 if compaction retired the entry
+     */
+    long lockCurrent() {
+        while (true) {
+            long s = this.stamp;
+            if (Stamp.version(s) == Stamp.RETIRED) return -1L;
+            if (Stamp.isLocked(s)) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (STAMP.compareAndSet(this, s, Stamp.locked(s))) return s;
+        }
+    }
+
+    /**
+     * Releases a lock taken by {@link #lock} without changing the value.
+     */
+    void unlock(long oldStamp) {
+        this.stamp = oldStamp;
+    }
+
+    /**
+     * Stores the new value and releases a lock taken by {@link #lock}.
+     */
+    void publish(long oldStamp, T newValue, int newVersion) {
+        VALUE.setRelease(this, newValue);
+        this.stamp = Stamp.next(oldStamp, newVersion, newValue != null);
+    }
+
+    /**
+     * Marks an absent entry, locked by {@link #lock}, as unlinked from its {@link MainLog}, so
+     * that commits still holding it fail and reads recorded on it go stale.
+     */
+    void retire(long oldStamp) {
+        retiredFrom = Stamp.version(oldStamp);
+        publish(oldStamp, null, Stamp.RETIRED);
+    }
+
+    /**
+     * @return the version of the tombstone {@link #retire} unlinked; read only after seeing
+     *         {@link Stamp#RETIRED}
+     */
+    int getRetiredVersion() {
+        return retiredFrom;
+    }
+
+    /**
+     * @return commit timestamp of the newest version, 0 for a single-version entry
+     */
+    long latestCommitTs() {
+        Version head = versions;
+        return head != null ? head.commitTs : 0L;
+    }
+
+    /**
+     * Like {@link #publish}, but first links the new value into the version chain and drops
+     * versions older than the newest one at or before {@code horizon}, which no snapshot can
+     * read. At most {@code maxVersions} are kept; a snapshot that needed a dropped one gets
+     * {@link SnapshotTooOldException}.
+     */
+    void publishVersion(long oldStamp, T newValue, int newVersion, long commitTs, long horizon, int maxVersions) {
+        Version head = new Version(commitTs, newValue, versions);
+        versions = head;
+        int kept = 1;
+        for (Version v = head; v.next != null; v = v.next, kept++) {
+            if (v.commitTs <= horizon) {
+                v.next = null; // invisible to every snapshot
+                break;
+            }
+            if (kept == maxVersions) {
+                v.truncated = true;
+                v.next = null;
+                break;
+            }
+        }
+        publish(oldStamp, newValue, newVersion);
+    }
+
+    /**
+     * Returns the value committed at or before {@code snapshot}. Commits stamped at or before a
+     * snapshot locked this entry before the snapshot started, so waiting out the lock is enough.
+     */
+    @SuppressWarnings("unchecked")
+    T readAsOf(long snapshot) {
+        beginRead();
+        Version v = versions;
+        if (v == null) return getValue(); // single-version entry
+        while (v.commitTs > snapshot) {
+            Version next = v.next;
+            if (next == null) {
+                if (v.truncated) throw new SnapshotTooOldException(key, snapshot);
+                return null; // the key did not exist yet
+            }
+            v = next;
+        }
+        return (T) v.value;
+    }
+
+    /**
+     * @return the number of versions currently linked, 0 for a single-version entry
+     */
+    int versionCount() {
+        int n = 0;
+        for (Version v = versions; v != null; v = v.next) n++;
+        return n;
+    }
+}
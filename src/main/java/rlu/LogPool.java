@@ -0,0 +1,67 @@
+package rlu;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Recycles the logs of explicit {@link Transaction} handles. Logs are kept in a few striped
+ * stacks picked by thread id, each behind its own monitor, so committers rarely meet. At most
+ * {@value #PER_STRIPE} logs per stripe are kept; beyond that a released log is dropped, so a
+ * burst of concurrent transactions does not pin memory afterwards.
+ */
+final class LogPool<T> {
+    private static final int STRIPES = 16;
+    static final int PER_STRIPE = 64;
+
+    private final ArrayDeque<LocalLog<T>>[] stripes;
+    private final Supplier<LocalLog<T>> factory;
+    private final Consumer<LocalLog<T>> onDrop;
+    private final LongAdder created = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    LogPool(Supplier<LocalLog<T>> factory, Consumer<LocalLog<T>> onDrop) {
+        this.factory = factory;
+        this.onDrop = onDrop;
+        this.stripes = (ArrayDeque<LocalLog<T>>[]) new ArrayDeque[STRIPES];
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new ArrayDeque<>(PER_STRIPE);
+    }
+
+    private ArrayDeque<LocalLog<T>> stripe() {
+        long id = Thread.currentThread().getId();
+        return stripes[(int) (id ^ (id >>> 16)) & (STRIPES - 1)];
+    }
+
+    LocalLog<T> acquire() {
+        ArrayDeque<LocalLog<T>> stripe = stripe();
+        LocalLog<T> log;
+        synchronized (stripe) {
+            log = stripe.pollLast();
+        }
+        if (log != null) return log;
+        created.increment();
+        return factory.get();
+    }
+
+    /**
+     * Returns a cleared log to the pool.
+     */
+    void release(LocalLog<T> log) {
+        ArrayDeque<LocalLog<T>> stripe = stripe();
+        synchronized (stripe) {
+            if (stripe.size() < PER_STRIPE) {
+                stripe.addLast(log);
+                return;
+            }
+        }
+        onDrop.accept(log);
+    }
+
+    /**
+     * @return logs created since the pool was made, for sizing and tests
+     */
+    long created() {
+        return created.sum();
+    }
+}
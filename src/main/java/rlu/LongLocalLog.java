@@ -0,0 +1,207 @@
+package rlu;
+
+/**
+ * {@link LocalLog} specialized for long keys and values. Private to one thread, so it is a plain
+ * open-addressing table that is cleared in place and reused by the next transaction.
+ */
+public class LongLocalLog {
+    private static final byte EMPTY = 0;
+    private static final byte WRITTEN = 1;
+    private static final byte REMOVED = 2;
+    private static final byte DISCARDED = 3;
+
+    private long[] keys;
+    private long[] values;
+    private int[] versions;
+    private byte[] flags;
+    private int[] order; // occupied slots in insertion order, for commit and clear
+    private int size;
+    private int pending; // slots that are not discarded
+    private int mask;
+
+    // Filled by the running commit: the main log slot of each local slot, the stamp it had
+    // when this thread locked it, and the pending slots sorted by main log slot (lock order)
+    private int[] mainSlots;
+    private long[] lockedStamps;
+    private int[] lockOrder;
+
+    public LongLocalLog() {
+        this(16);
+    }
+
+    public LongLocalLog(int initialCapacity) {
+        allocate(Integer.highestOneBit(Math.max(2, initialCapacity) * 2 - 1) << 1);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        versions = new int[capacity];
+        flags = new byte[capacity];
+        order = new int[capacity];
+        mainSlots = new int[capacity];
+        lockedStamps = new long[capacity];
+        lockOrder = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    public void write(long key, long value, int version) {
+        put(key, value, version, WRITTEN);
+    }
+
+    public void remove(long key, int version) {
+        put(key, 0L, version, REMOVED);
+    }
+
+    public void discard(long key) {
+        int slot = find(key);
+        if (slot >= 0 && flags[slot] != DISCARDED) {
+            flags[slot] = DISCARDED;
+            pending--;
+        }
+    }
+
+    /**
+     * @return true if this log holds a pending write or remove for {@code key}
+     */
+    public boolean isPending(long key) {
+        int slot = find(key);
+        return slot >= 0 && flags[slot] != DISCARDED;
+    }
+
+    public boolean isPendingRemove(long key) {
+        int slot = find(key);
+        return slot >= 0 && flags[slot] == REMOVED;
+    }
+
+    public long read(long key, LongMainLog mainLog, long absentValue) {
+        int slot = find(key);
+        if (slot >= 0 && flags[slot] != DISCARDED) {
+            return flags[slot] == WRITTEN ? values[slot] : absentValue;
+        }
+        return mainLog.getValue(key, absentValue);
+    }
+
+    public boolean commit(LongMainLog mainLog, boolean batchCommit) {
+        if (pending == 0) return false;
+        return mainLog.commit(this, batchCommit);
+    }
+
+    private void put(long key, long value, int version, byte flag) {
+        if ((size + 1) * 2 > keys.length) grow();
+        int i = LongMainLog.hash(key) & mask;
+        while (flags[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (flags[i] == EMPTY) {
+            keys[i] = key;
+            order[size++] = i;
+        }
+        if ((flags[i] == EMPTY || flags[i] == DISCARDED) && flag != DISCARDED) pending++;
+        values[i] = value;
+        versions[i] = version;
+        flags[i] = flag;
+    }
+
+    private int find(long key) {
+        int i = LongMainLog.hash(key) & mask;
+        while (flags[i] != EMPTY) {
+            if (keys[i] == key) return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys, oldValues = values;
+        int[] oldVersions = versions, oldOrder = order;
+        byte[] oldFlags = flags;
+        int oldSize = size;
+        allocate(oldKeys.length * 2);
+        size = 0;
+        pending = 0;
+        for (int n = 0; n < oldSize; n++) {
+            int slot = oldOrder[n];
+            put(oldKeys[slot], oldValues[slot], oldVersions[slot], oldFlags[slot]);
+        }
+    }
+
+    void clear() {
+        for (int n = 0; n < size; n++) {
+            flags[order[n]] = EMPTY;
+        }
+        size = 0;
+        pending = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int slotAt(int n) {
+        return order[n];
+    }
+
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    long valueAt(int slot) {
+        return values[slot];
+    }
+
+    int versionAt(int slot) {
+        return versions[slot];
+    }
+
+    boolean isRemoved(int slot) {
+        return flags[slot] == REMOVED;
+    }
+
+    boolean isPendingSlot(int slot) {
+        return flags[slot] == WRITTEN || flags[slot] == REMOVED;
+    }
+
+    void setMainSlot(int slot, int mainSlot) {
+        mainSlots[slot] = mainSlot;
+    }
+
+    int mainSlotAt(int slot) {
+        return mainSlots[slot];
+    }
+
+    void setLockedStamp(int slot, long stamp) {
+        lockedStamps[slot] = stamp;
+    }
+
+    long lockedStampAt(int slot) {
+        return lockedStamps[slot];
+    }
+
+    /**
+     * Sorts the pending slots by their main log slot, the global lock order.
+     * @return number of slots in lock order, read back with {@link #lockSlotAt}
+     */
+    int prepareLockOrder() {
+        int count = 0;
+        for (int n = 0; n < size; n++) {
+            int slot = order[n];
+            if (isPendingSlot(slot)) lockOrder[count++] = slot;
+        }
+        // Insertion sort; transactions are short and this must not allocate
+        for (int i = 1; i < count; i++) {
+            int slot = lockOrder[i];
+            int j = i;
+            while (j > 0 && mainSlots[lockOrder[j - 1]] > mainSlots[slot]) {
+                lockOrder[j] = lockOrder[j - 1];
+                j--;
+            }
+            lockOrder[j] = slot;
+        }
+        return count;
+    }
+
+    int lockSlotAt(int n) {
+        return lockOrder[n];
+    }
+}
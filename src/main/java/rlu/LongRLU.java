@@ -0,0 +1,59 @@
+package rlu;
+
+/**
+ * {@link RLU} specialized for long keys and values, so reads and writes never box.
+ * Missing keys are reported through the {@code absentValue} passed to {@link #read}.
+ */
+public class LongRLU {
+    private final LongMainLog mainLog;
+    // One log per thread; no boxed thread id or shared map lookup on the hot path
+    private final ThreadLocal<LongLocalLog> localLog = ThreadLocal.withInitial(LongLocalLog::new);
+    private final boolean batchCommit;
+
+    public LongRLU() {
+        this(1 << 16, true);
+    }
+
+    /**
+     * @param capacity number of distinct keys the main log holds before it first grows
+     */
+    public LongRLU(int capacity) {
+        this(capacity, true);
+    }
+
+    public LongRLU(int capacity, boolean batchCommit) {
+        this.mainLog = new LongMainLog(capacity);
+        this.batchCommit = batchCommit;
+    }
+
+    public boolean write(long key, long value) {
+        int version = mainLog.getVersion(key);
+        localLog.get().write(key, value, version);
+        return true;
+    }
+
+    public boolean remove(long key) {
+        if (!mainLog.hasEntry(key)) return false;
+        int version = mainLog.getVersion(key);
+        localLog.get().remove(key, version);
+        return true;
+    }
+
+    public long read(long key, long absentValue) {
+        return localLog.get().read(key, mainLog, absentValue);
+    }
+
+    public boolean contains(long key) {
+        LongLocalLog log = localLog.get();
+        if (log.isPending(key)) return !log.isPendingRemove(key);
+        return mainLog.isPresent(key);
+    }
+
+    public void discard(long key) {
+        localLog.get().discard(key);
+    }
+
+    public boolean commit() {
+        return localLog.get().commit(mainLog, batchCommit);
+    }
+}
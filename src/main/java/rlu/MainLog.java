@@ -0,0 +1,705 @@
+package rlu;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The committed state: one {@link LogEntry} per key, split into shards picked by key hash.
+ * Each shard has its own table and entry ids, so neither table resizes nor id allocation are
+ * shared between shards. Entry locks are the only commit-time synchronization, and their global
+ * id order keeps batches that span shards atomic without any shard-wide lock.
+ *
+ * <p>Removing a key publishes an absent value and queues the entry as a tombstone of its
+ * shard. Compaction later unlinks tombstones nobody can commit against or still see; see
+ * {@link #compact()}.
+ */
+public class MainLog<T> {
+    static final class Shard<T> {
+        final int index;
+        final ConcurrentHashMap<T, LogEntry<T>> entries;
+        private final AtomicLong nextId = new AtomicLong();
+        final LongAdder writes = new LongAdder();
+        final LongAdder conflicts = new LongAdder();
+        final LongAdder singleShardCommits = new LongAdder();
+        final ConcurrentLinkedQueue<LogEntry<T>> tombstones = new ConcurrentLinkedQueue<>();
+        final AtomicInteger tombstoneCount = new AtomicInteger();
+        final AtomicBoolean compacting = new AtomicBoolean();
+        volatile int compactions; // bumped before each unlink, for reads of absent keys
+        final LongAdder compacted = new LongAdder();
+        final Combiner<T> combiner; // null unless combining
+
+        Shard(int index, int bucketSize, boolean combining) {
+            this.index = index;
+            this.entries = new ConcurrentHashMap<>(bucketSize);
+            this.combiner = combining ? new Combiner<>() : null;
+        }
+
+        long newId(int shardBits) {
+            return (nextId.getAndIncrement() << shardBits) | index;
+        }
+    }
+
+    private final Shard<T>[] shards;
+    private final int shardBits;
+    private final LongAdder crossShardCommits = new LongAdder();
+    private final ConcurrentSkipListMap<T, LogEntry<T>> index; // null unless ordered
+    private final RLUMetrics metrics; // null unless metrics are enabled
+    private final VersionClock versionClock; // null unless multi-version
+    private final int maxVersions;
+    private final WriteAheadLog<T> wal; // null unless durable
+    private final Path logDirectory;
+    private final Serializer<T> serializer;
+    private final int compactionThreshold;
+    private final boolean combining;
+    private final ChangeStream<T> changes; // null unless change capture is on
+    public MainLog() {
+        this(16, null);
+    }
+    public MainLog(int bucketSize) {
+        this(bucketSize, null);
+    }
+    public MainLog(int bucketSize, RLUMetrics metrics) {
+        this(new RLUConfig().bucketSize(bucketSize), metrics);
+    }
+
+    /**
+     * Takes the bucket size, shard count, multi-version, ordering and durability options from
+     * {@code config}. A durable log first loads the latest checkpoint, with its tables sized for
+     * it, then replays the write-ahead log from where the checkpoint started.
+     */
+    @SuppressWarnings("unchecked")
+    public MainLog(RLUConfig config, RLUMetrics metrics) {
+        this.logDirectory = config.getLogDirectory();
+        this.serializer = (Serializer<T>) config.getSerializer();
+        Checkpoint.Footer checkpoint = logDirectory != null ? Checkpoint.readFooter(logDirectory.resolve(Checkpoint.FILE_NAME)) : null;
+        long expected = Math.max(config.getBucketSize(), checkpoint != null ? checkpoint.entries * 4 / 3 : 0);
+
+        int shardCount = config.getShards();
+        this.shardBits = Integer.numberOfTrailingZeros(shardCount);
+        this.shards = (Shard<T>[]) new Shard[shardCount];
+        int perShard = (int) Math.min(Integer.MAX_VALUE, (expected + shardCount - 1) / shardCount);
+        this.combining = config.isCombining();
+        for (int i = 0; i < shardCount; i++) shards[i] = new Shard<>(i, perShard, combining);
+        this.index = config.isOrdered() ? new ConcurrentSkipListMap<>() : null;
+        this.metrics = metrics;
+        this.maxVersions = config.getMaxVersions();
+        this.compactionThreshold = config.getCompactionThreshold();
+        this.versionClock = maxVersions > 0 ? new VersionClock() : null;
+        this.wal = logDirectory != null ? openLog(config, checkpoint) : null;
+        this.changes = config.getChangeCapacity() > 0 ? new ChangeStream<>(config.getChangeCapacity(), config.getBackpressure()) : null;
+    }
+
+    private WriteAheadLog<T> openLog(RLUConfig config, Checkpoint.Footer checkpoint) {
+        long from = 0L;
+        if (checkpoint != null) {
+            Checkpoint.load(logDirectory.resolve(Checkpoint.FILE_NAME), checkpoint, serializer, this::installEntry);
+            from = checkpoint.logPosition;
+        }
+        WriteAheadLog<T> log = new WriteAheadLog<>(logDirectory, serializer, config.getDurability(), config.getLogSegmentSize());
+        log.replay(from, this::install);
+        return log;
+    }
+
+    /**
+     * Publishes a checkpointed entry with its version. Safe to call from several loader
+     * threads for different keys.
+     */
+    private void installEntry(T key, T value, int version) {
+        LogEntry<T> entry = getOrCreateEntry(key);
+        long stamp = entry.lock(entry.getVersion());
+        if (versionClock != null) {
+            entry.publishVersion(stamp, value, version, versionClock.next(), Long.MAX_VALUE, maxVersions);
+        } else {
+            entry.publish(stamp, value, version);
+        }
+    }
+
+    /**
+     * Writes every present key to a new checkpoint while commits continue, then deletes the
+     * log segments it covers. Commits logged after the checkpoint started may or may not be in
+     * it; replay applies them again on restart, which yields the same values.
+     *
+     * @return the number of keys written
+     * @throws IllegalStateException if the log is not durable
+     */
+    public synchronized long checkpoint() {
+        if (wal == null) throw new IllegalStateException("Checkpoints need a write-ahead log; see RLUConfig.durable");
+        long from = wal.position(); // every record before it is published or locked by its committer
+        Path target = logDirectory.resolve(Checkpoint.FILE_NAME);
+        Path temp = logDirectory.resolve(Checkpoint.FILE_NAME + ".tmp");
+        Iterable<LogEntry<T>> entries = () -> Arrays.stream(shards).flatMap(shard -> shard.entries.values().stream()).iterator();
+        long written = Checkpoint.write(temp, entries, serializer, from);
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            WriteAheadLog.forceDirectory(logDirectory); // the new checkpoint must survive before the log it covers goes
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot install checkpoint " + target, e);
+        }
+        wal.truncate(from);
+        return written;
+    }
+
+    /**
+     * Publishes a recovered value outside any transaction. Only used before the log is shared.
+     */
+    void install(T key, T value) {
+        LogEntry<T> entry = getOrCreateEntry(key);
+        int version = entry.getVersion();
+        long stamp = entry.lock(version);
+        if (versionClock != null) {
+            entry.publishVersion(stamp, value, version + 1, versionClock.next(), Long.MAX_VALUE, maxVersions);
+        } else {
+            entry.publish(stamp, value, version + 1);
+        }
+        if (value == null) tombstone(entry);
+    }
+
+    /**
+     * @return the write-ahead log, or null if the log is not durable
+     */
+    public WriteAheadLog<T> getWriteAheadLog() {
+        return wal;
+    }
+
+    /**
+     * @return the publisher of committed batches, or null if change capture is off
+     */
+    ChangeStream<T> getChangeStream() {
+        return changes;
+    }
+
+    /**
+     * Forces and closes the write-ahead log, if any, and completes the change subscribers.
+     */
+    public void close() {
+        if (wal != null) wal.close();
+        if (changes != null) changes.close();
+    }
+
+    /**
+     * Top bits of the mixed hash, so that a shard's keys still spread over its own table,
+     * which indexes by the low bits.
+     */
+    private Shard<T> shardOf(T key) {
+        if (shardBits == 0) return shards[0];
+        return shards[(WriteSet.hash(key) * 0x9E3779B9) >>> (32 - shardBits)];
+    }
+
+    /**
+     * Entry ids carry their shard in the low bits.
+     */
+    private Shard<T> shardOf(LogEntry<T> entry) {
+        return shards[(int) entry.getId() & (shards.length - 1)];
+    }
+
+    /**
+     * @return the commit clock, or null for a single-version log
+     */
+    public VersionClock getVersionClock() {
+        return versionClock;
+    }
+
+    public boolean commit(WriteSet<T> writeSet,boolean batchCommit) {
+        return commit(writeSet, null, batchCommit);
+    }
+
+    /**
+     * Publishes the write set. In batch mode every entry is locked in global entry order, the
+     * versions (and the read set, if given) are validated while the locks are held, and only
+     * then are the values published, so no reader or committer ever sees part of the batch and
+     * two overlapping batches cannot keep aborting each other. Without batch mode each entry
+     * is committed on its own; entries with a stale version are skipped, the others stay
+     * published, and the commit returns false. Keys whose entry was resolved when they were
+     * written are not looked up again. With combining on, a batch whose keys all live in one
+     * shard is handed to that shard's {@link Combiner}.
+     */
+    public boolean commit(WriteSet<T> writeSet, ReadSet<T> readSet, boolean batchCommit) {
+        if (!batchCommit) {
+            if (readSet != null && !validateAndRecord(readSet, null)) {
+                writeSet.clear();
+                return false;
+            }
+            boolean allUpdated = commitEach(writeSet);
+            writeSet.clear();
+            return allUpdated;
+        }
+
+        resolveEntries(writeSet);
+        Combiner.Request<T> request = writeSet.commitRequest();
+        request.reset(readSet);
+        Shard<T> shard = combining ? singleShard(writeSet) : null;
+        if (shard != null) {
+            shard.combiner.commit(request, this::applyBatch);
+            request.rethrowFailure();
+        } else {
+            applyBatch(request);
+        }
+        if (!request.committed) return false;
+        if (wal != null) wal.awaitDurable(request.logged); // after releasing the locks
+        if (request.compactionDue) compactDueShards();
+        return true;
+    }
+
+    /**
+     * Finds the entry of every pending write that does not know it yet.
+     */
+    private void resolveEntries(WriteSet<T> writeSet) {
+        for (int n = 0; n < writeSet.size(); n++) {
+            int slot = writeSet.slotAt(n);
+            if (writeSet.isPending(slot)) resolveEntry(writeSet, slot);
+        }
+    }
+
+    /**
+     * Finds the entry of a pending write if it does not know it yet, or if compaction retired
+     * it since. A merge does not depend on the old entry's version, and a write based on the
+     * tombstone that was retired saw the key absent, as it still is on the key's new entry at
+     * version 0; both move there. A write based on an older version stays, and fails.
+     * @return the entry to commit to
+     */
+    private LogEntry<T> resolveEntry(WriteSet<T> writeSet, int slot) {
+        LogEntry<T> entry = writeSet.entryAt(slot);
+        if (entry == null) {
+            entry = getOrCreateEntry(writeSet.keyAt(slot));
+            writeSet.setEntry(slot, entry);
+        } else if (entry.getVersion() == Stamp.RETIRED) {
+            if (writeSet.isMerge(slot)) {
+                entry = getOrCreateEntry(writeSet.keyAt(slot));
+                writeSet.setEntry(slot, entry);
+            } else if (writeSet.versionAt(slot) == entry.getRetiredVersion()) {
+                entry = getOrCreateEntry(writeSet.keyAt(slot));
+                writeSet.rebase(slot, entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * @return the shard of every pending write, or null if they span shards
+     */
+    private Shard<T> singleShard(WriteSet<T> writeSet) {
+        Shard<T> shard = null;
+        for (int n = 0; n < writeSet.size(); n++) {
+            int slot = writeSet.slotAt(n);
+            if (!writeSet.isPending(slot)) continue;
+            Shard<T> own = shardOf(writeSet.entryAt(slot));
+            if (shard == null) {
+                shard = own;
+            } else if (shard != own) {
+                return null;
+            }
+        }
+        return shard;
+    }
+
+    /**
+     * Locks, validates and publishes a batch whose entries are resolved, on the committing
+     * thread or on its shard's combiner, and clears its write set. Waiting for durability and
+     * compacting are left to the committer.
+     */
+    private void applyBatch(Combiner.Request<T> request) {
+        WriteSet<T> writeSet = request.writeSet;
+        int count = writeSet.prepareLockOrder();
+
+        int locked = 0;
+        boolean allSuccess = true;
+        for (; locked < count; locked++) {
+            int slot = writeSet.lockSlotAt(locked);
+            long stamp = lock(writeSet, slot);
+            if (stamp == -1L) {
+                if (metrics != null) {
+                    metrics.recordConflict(writeSet.keyAt(slot));
+                    shardOf(writeSet.entryAt(slot)).conflicts.increment();
+                }
+                allSuccess = false;
+                break;
+            }
+            writeSet.setLockedStamp(slot, stamp);
+        }
+        if (allSuccess && request.readSet != null) allSuccess = validateAndRecord(request.readSet, writeSet);
+
+        if (!allSuccess) {
+            if (metrics != null && locked > 0) metrics.recordRollback(locked);
+            unlockAll(writeSet, locked);
+            return;
+        }
+
+        if (wal != null && count > 0) {
+            try {
+                request.logged = wal.append(writeSet, count); // under the locks, so in commit order
+            } catch (RuntimeException e) {
+                unlockAll(writeSet, count);
+                throw e;
+            }
+        }
+        long ticket = changes != null && count > 0 ? changes.ticket() : -1L; // still locked, so in per-key order
+        if (metrics != null && count > 0) recordShards(writeSet, count);
+        boolean compactionDue = false;
+        try {
+            compactionDue = publishBatch(writeSet, count);
+        } finally {
+            if (ticket >= 0) changes.publish(ticket, writeSet, count); // unlocked, so onNext may read these keys
+        }
+        writeSet.clear(); // clear logs if the entire batch succeeds
+        request.compactionDue = compactionDue;
+        request.committed = true;
+    }
+
+    /**
+     * Publishes every entry of a locked batch.
+     * @return true if a removal brought its shard to the compaction threshold
+     */
+    private boolean publishBatch(WriteSet<T> writeSet, int count) {
+        boolean compactionDue = false;
+        if (versionClock != null) {
+            long horizon = versionClock.horizon();
+            long commitTs = versionClock.next(); // one timestamp for the whole batch
+            for (int n = 0; n < count; n++) {
+                int slot = writeSet.lockSlotAt(n);
+                LogEntry<T> entry = writeSet.entryAt(slot);
+                entry.publishVersion(writeSet.lockedStampAt(slot), writeSet.valueAt(slot),
+                        writeSet.versionAt(slot) + 1, commitTs, horizon, maxVersions);
+                if (writeSet.valueAt(slot) == null) compactionDue |= tombstone(entry);
+            }
+        } else {
+            for (int n = 0; n < count; n++) {
+                int slot = writeSet.lockSlotAt(n);
+                LogEntry<T> entry = writeSet.entryAt(slot);
+                entry.publish(writeSet.lockedStampAt(slot), writeSet.valueAt(slot), writeSet.versionAt(slot) + 1);
+                if (writeSet.valueAt(slot) == null) compactionDue |= tombstone(entry);
+            }
+        }
+        return compactionDue;
+    }
+
+    /**
+     * Locks the entry of a pending write if it still has the version the write was based on,
+     * or whatever version it has for a merge, which then becomes a write of its result.
+     * @return the stamp before locking, or -1
+     */
+    private long lock(WriteSet<T> writeSet, int slot) {
+        LogEntry<T> entry = writeSet.entryAt(slot);
+        if (!writeSet.isMerge(slot)) return entry.lock(writeSet.versionAt(slot));
+        long stamp = entry.lockCurrent();
+        if (stamp != -1L) writeSet.resolveMerge(slot, entry.getValue(), Stamp.version(stamp));
+        return stamp;
+    }
+
+    private void unlockAll(WriteSet<T> writeSet, int locked) {
+        for (int n = 0; n < locked; n++) {
+            int slot = writeSet.lockSlotAt(n);
+            writeSet.entryAt(slot).unlock(writeSet.lockedStampAt(slot)); // nothing was published
+        }
+        writeSet.clear();
+    }
+
+    private void recordShards(WriteSet<T> writeSet, int count) {
+        Shard<T> first = shardOf(writeSet.entryAt(writeSet.lockSlotAt(0)));
+        boolean single = true;
+        for (int n = 0; n < count; n++) {
+            Shard<T> shard = shardOf(writeSet.entryAt(writeSet.lockSlotAt(n)));
+            shard.writes.increment();
+            single &= shard == first;
+        }
+        if (single) {
+            first.singleShardCommits.increment();
+        } else {
+            crossShardCommits.increment();
+        }
+    }
+
+    /**
+     * @return false if any entry had a stale version and was skipped
+     */
+    private boolean commitEach(WriteSet<T> writeSet) {
+        long logged = 0;
+        boolean compactionDue = false;
+        boolean allUpdated = true;
+        for (int n = 0; n < writeSet.size(); n++) {
+            int slot = writeSet.slotAt(n);
+            if (!writeSet.isPending(slot)) continue;
+            T key = writeSet.keyAt(slot);
+            LogEntry<T> entry = resolveEntry(writeSet, slot);
+            boolean updated;
+            if (writeSet.isMerge(slot)) {
+                long stamp = lock(writeSet, slot);
+                updated = stamp != -1L;
+                if (updated) logged = publishLogged(entry, stamp, key, writeSet.valueAt(slot), writeSet.versionAt(slot) + 1);
+            } else if (versionClock == null && wal == null && changes == null) {
+                int currentVersion = writeSet.versionAt(slot);
+                updated = entry.updateValue(writeSet.valueAt(slot), currentVersion, currentVersion + 1);
+            } else {
+                int currentVersion = writeSet.versionAt(slot);
+                long stamp = entry.lock(currentVersion);
+                updated = stamp != -1L;
+                if (updated) logged = publishLogged(entry, stamp, key, writeSet.valueAt(slot), currentVersion + 1);
+            }
+            allUpdated &= updated;
+            if (updated && writeSet.valueAt(slot) == null) compactionDue |= tombstone(entry);
+            if (metrics != null) {
+                if (updated) {
+                    shardOf(entry).writes.increment();
+                } else {
+                    metrics.recordConflict(key);
+                    shardOf(entry).conflicts.increment();
+                }
+            }
+        }
+        if (wal != null && logged != 0) wal.awaitDurable(logged);
+        if (compactionDue) compactDueShards();
+        return allUpdated;
+    }
+
+    /**
+     * Queues a freshly removed entry for compaction.
+     * @return true if its shard reached the compaction threshold
+     */
+    private boolean tombstone(LogEntry<T> entry) {
+        Shard<T> shard = shardOf(entry);
+        shard.tombstones.add(entry);
+        return shard.tombstoneCount.incrementAndGet() >= compactionThreshold && compactionThreshold > 0;
+    }
+
+    private void compactDueShards() {
+        for (Shard<T> shard : shards) {
+            if (shard.tombstoneCount.get() >= compactionThreshold) compact(shard);
+        }
+    }
+
+    /**
+     * Unlinks the queued tombstones of every shard. Runs alongside commits and readers.
+     * @return the number of entries unlinked
+     */
+    public long compact() {
+        long removed = 0;
+        for (Shard<T> shard : shards) removed += compact(shard);
+        return removed;
+    }
+
+    /**
+     * Unlinks the shard's queued tombstones that are still absent. Each is locked at the version
+     * it was queued with, so a commit that captured that version either got in first, which
+     * keeps the entry, or fails on it afterwards, because the unlinked entry is retired and a
+     * new entry for the key starts again at version 0 under a new {@link LogEntry#getId id}.
+     * Reads recorded on a retired entry are stale; reads of an absent key check the shard's
+     * compaction count instead. In multi-version mode a tombstone newer than the horizon is
+     * still invisible to some snapshot, which may need the value before it; the pass stops there
+     * and leaves it and the newer ones for later. One compactor per shard at a time; others
+     * skip the shard.
+     */
+    private int compact(Shard<T> shard) {
+        if (!shard.compacting.compareAndSet(false, true)) return 0;
+        try {
+            long horizon = versionClock != null ? versionClock.horizon() : Long.MAX_VALUE;
+            int removed = 0;
+            for (int n = shard.tombstoneCount.get(); n > 0; n--) {
+                LogEntry<T> entry = shard.tombstones.peek();
+                if (entry == null || entry.latestCommitTs() > horizon) break; // queued in about commit order
+                shard.tombstones.poll();
+                shard.tombstoneCount.decrementAndGet();
+                int version = entry.getVersion();
+                if (version == Stamp.RETIRED || entry.getValue() != null) continue; // queued twice, or written again
+                long stamp = entry.lock(version);
+                if (stamp == -1L) continue; // committed since; queued again if it removed the key
+                if (entry.getValue() != null) {
+                    entry.unlock(stamp);
+                    continue;
+                }
+                shard.compactions++; // single writer: this shard's compactor
+                shard.entries.remove(entry.getKey(), entry);
+                if (index != null) index.remove(entry.getKey(), entry);
+                entry.retire(stamp);
+                removed++;
+            }
+            if (removed > 0) shard.compacted.add(removed);
+            return removed;
+        } finally {
+            shard.compacting.set(false);
+        }
+    }
+
+    /**
+     * Logs and publishes one locked entry, then streams it once unlocked.
+     * @return the log position of its record, 0 without a log
+     */
+    private long publishLogged(LogEntry<T> entry, long stamp, T key, T value, int newVersion) {
+        long logged = 0;
+        if (wal != null) {
+            try {
+                logged = wal.append(key, value);
+            } catch (RuntimeException e) {
+                entry.unlock(stamp);
+                throw e;
+            }
+        }
+        long ticket = changes != null ? changes.ticket() : -1L;
+        try {
+            if (versionClock != null) {
+                long horizon = versionClock.horizon();
+                entry.publishVersion(stamp, value, newVersion, versionClock.next(), horizon, maxVersions);
+            } else {
+                entry.publish(stamp, value, newVersion);
+            }
+        } finally {
+            if (ticket >= 0) changes.publish(ticket, key, value, newVersion);
+        }
+        return logged;
+    }
+
+    /**
+     * Checks that every key in the read set still has the version the transaction read.
+     * Plain version compares, no locks; an entry locked by another committer counts as changed.
+     *
+     * @param lockedByUs write set whose entries the caller holds locked, or null
+     */
+    public boolean validate(ReadSet<T> readSet, WriteSet<T> lockedByUs) {
+        return staleKey(readSet, lockedByUs) == null;
+    }
+
+    private boolean validateAndRecord(ReadSet<T> readSet, WriteSet<T> lockedByUs) {
+        T stale = staleKey(readSet, lockedByUs);
+        if (stale == null) return true;
+        if (metrics != null) {
+            metrics.recordConflict(stale);
+            shardOf(stale).conflicts.increment();
+        }
+        return false;
+    }
+
+    /**
+     * @return the first key whose read went stale, or null if the read set is still valid
+     */
+    private T staleKey(ReadSet<T> readSet, WriteSet<T> lockedByUs) {
+        for (int n = 0; n < readSet.size(); n++) {
+            int slot = readSet.slotAt(n);
+            T key = readSet.keyAt(slot);
+            LogEntry<T> entry = readSet.entryAt(slot);
+            int version = readSet.versionAt(slot);
+            if (entry == null) { // absent when read, recorded with the shard's compaction count
+                Shard<T> shard = shardOf(key);
+                entry = shard.entries.get(key);
+                if (shard.compactions != version) return key; // an entry may have come and gone
+                if (entry == null) continue;
+                version = 0;
+            }
+            if (entry.getVersion() != version || version == Stamp.RETIRED) return key;
+            if (entry.isLocked() && (lockedByUs == null || lockedByUs.indexOf(entry.getKey()) < 0)) return key;
+        }
+        return null;
+    }
+
+    /**
+     * New entries start absent at version 0, the version writers capture for a missing key,
+     * and only get a value when a commit publishes one.
+     */
+    private LogEntry<T> getOrCreateEntry(T key) {
+        Shard<T> shard = shardOf(key);
+        LogEntry<T> entry = shard.entries.get(key);
+        if (entry != null) return entry; // no capturing lambda on the common path
+        return shard.entries.computeIfAbsent(key, k -> newEntry(shard, k));
+    }
+
+    /**
+     * Runs under the table's bin lock, so the entry is indexed before anyone can publish it,
+     * and after a compactor unlinked the key's previous entry, not before.
+     */
+    private LogEntry<T> newEntry(Shard<T> shard, T key) {
+        LogEntry<T> created = new LogEntry<>(key, shard.newId(shardBits), versionClock != null);
+        if (index != null) index.put(key, created);
+        return created;
+    }
+
+    public LogEntry<T> getEntry(T key) {
+        return shardOf(key).entries.get(key);
+    }
+
+    /**
+     * What a read that finds no entry for {@code key} records instead of a version: the
+     * compaction count of its shard. Read it before looking the key up, so an entry created and
+     * compacted in between changes it.
+     */
+    int absentVersion(T key) {
+        return shardOf(key).compactions;
+    }
+    public T getValue(T key) {
+        LogEntry<T>  entry = shardOf(key).entries.get(key);
+        return entry != null ? entry.getValue() : null;
+    }
+
+    /**
+     * @return the value {@code key} had at commit timestamp {@code snapshot}
+     * @throws SnapshotTooOldException if that version was already dropped
+     */
+    public T getValueAsOf(T key, long snapshot) {
+        LogEntry<T> entry = shardOf(key).entries.get(key);
+        return entry != null ? entry.readAsOf(snapshot) : null;
+    }
+
+    public boolean isOrdered() {
+        return index != null;
+    }
+
+    /**
+     * Entries with keys in {@code [from, to)} in key order, including absent ones. The view is
+     * live and weakly consistent: iterating it copies nothing and never fails on concurrent
+     * commits. Null bounds are open.
+     */
+    public NavigableMap<T, LogEntry<T>> range(T from, T to) {
+        if (index == null) throw new IllegalStateException("MainLog is not ordered; see RLUConfig.ordered");
+        if (from == null && to == null) return index;
+        if (from == null) return index.headMap(to, false);
+        if (to == null) return index.tailMap(from, true);
+        return index.subMap(from, true, to, false);
+    }
+
+    /**
+     * @return versions linked across all entries; for measuring multi-version overhead
+     */
+    long retainedVersions() {
+        long n = 0;
+        for (Shard<T> shard : shards) {
+            for (LogEntry<T> entry : shard.entries.values()) n += entry.versionCount();
+        }
+        return n;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public List<ShardStats> getShardStats() {
+        List<ShardStats> stats = new ArrayList<>(shards.length);
+        for (Shard<T> shard : shards) {
+            stats.add(new ShardStats(shard.index, shard.entries.size(), shard.writes.sum(), shard.conflicts.sum(),
+                    shard.singleShardCommits.sum(), shard.compacted.sum(),
+                    shard.combiner != null ? shard.combiner.combined() : 0));
+        }
+        return stats;
+    }
+
+    /**
+     * @return batches that touched more than one shard; kept only with metrics on
+     */
+    public long getCrossShardCommits() {
+        return crossShardCommits.sum();
+    }
+
+    public int getVersion(T key) {
+        LogEntry<T> entryRef = shardOf(key).entries.get(key);
+        return (entryRef != null) ? entryRef.getVersion() : 0;
+    }
+}
@@ -0,0 +1,583 @@
+package rlu;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+public class RLU<T> implements TransactionalStore<T>, AutoCloseable {
+    private final MainLog<T> mainLog;
+    private final ClockMainLog<T> clockMainLog; // non-null in global-clock mode
+    private final ThreadRegistry<LocalLog<T>> localLogs;
+    private final LogPool<T> logPool; // logs of explicit transactions, null in global-clock mode
+    private final boolean batchCommit;
+    private final boolean serializable;
+    private final ContentionManager contentionManager;
+    private final RLUMetrics metrics; // null when disabled
+    private final VersionClock versionClock; // null unless multi-version
+
+    public RLU(RLUConfig config) {
+        this.metrics = config.isMetrics() ? new RLUMetrics() : null;
+        if (config.isGlobalClock()) {
+            if (config.isOrdered()) throw new IllegalArgumentException("The global-clock engine does not support an ordered index");
+            if (config.getLogDirectory() != null) throw new IllegalArgumentException("The global-clock engine does not support a write-ahead log");
+            if (config.getChangeCapacity() > 0) throw new IllegalArgumentException("The global-clock engine does not support change capture");
+            this.mainLog = null;
+            this.clockMainLog = new ClockMainLog<>(config.getBucketSize());
+            this.versionClock = null;
+        } else {
+            this.mainLog = new MainLog<>(config, metrics);
+            this.clockMainLog = null;
+            this.versionClock = mainLog.getVersionClock();
+        }
+        this.localLogs = new ThreadRegistry<>(LocalLog::new, LocalLog::clear);
+        this.logPool = mainLog != null ? new LogPool<>(this::newPooledLog, this::dropPooledLog) : null;
+        this.batchCommit = config.isBatchCommit();
+        this.serializable = config.isSerializable();
+        this.contentionManager = config.getContentionManager();
+    }
+
+    // Public constructors chaining to the config constructor
+
+    // Default: no bucketSize, batchCommit true
+    public RLU() {
+        this(new RLUConfig());
+    }
+
+    // Constructor with bucketSize, default batchCommit true
+    public RLU(int bucketSize) {
+        this(new RLUConfig().bucketSize(bucketSize));
+    }
+
+    // Constructor with batchCommit, default mainLog
+    public RLU(boolean batchCommit) {
+        this(new RLUConfig().batchCommit(batchCommit));
+    }
+
+    // Constructor with bucketSize and batchCommit
+    public RLU(int bucketSize, boolean batchCommit) {
+        this(new RLUConfig().bucketSize(bucketSize).batchCommit(batchCommit));
+    }
+
+    private LocalLog<T> getLocalLog() {
+        return localLogs.get();
+    }
+
+    private ClockLog getClockLog() {
+        return clockMainLog.getLog();
+    }
+
+    /**
+     * Releases the calling thread's log slot, dropping anything it has not committed.
+     * Slots of threads that exit are reclaimed automatically; pooled threads that stop
+     * using this RLU can call this to hand theirs back early.
+     */
+    public void deregisterThread() {
+        if (clockMainLog != null) {
+            clockMainLog.deregister();
+        } else {
+            localLogs.deregister();
+        }
+    }
+
+    /**
+     * @return this RLU's statistics, or null unless {@link RLUConfig#metrics} was set
+     */
+    public RLUMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Per-shard entry counts, and write and conflict counts if metrics are on. Empty in
+     * global-clock mode.
+     */
+    public List<ShardStats> getShardStats() {
+        return mainLog != null ? mainLog.getShardStats() : List.of();
+    }
+
+    /**
+     * @return versions linked across all keys in multi-version mode, 0 otherwise
+     */
+    long retainedVersions() {
+        return mainLog != null ? mainLog.retainedVersions() : 0;
+    }
+
+    public boolean isGlobalClock() {
+        return clockMainLog != null;
+    }
+
+    /**
+     * Starts a read section. In global-clock mode every read until {@link #readerUnlock()}
+     * sees the same snapshot. In multi-version mode reads see the commits made before the
+     * section started, until it is ended by {@link #readerUnlock()} or {@link #commit()}, and
+     * a commit that writes a key another thread committed since then fails.
+     * Otherwise sections are not tracked and this is a no-op.
+     */
+    public void readerLock() {
+        if (clockMainLog != null) {
+            getClockLog().readerLock();
+        } else if (versionClock != null) {
+            versionClock.begin();
+        }
+    }
+
+    /**
+     * Ends the read section. In global-clock mode this commits the writes made inside it;
+     * otherwise they stay pending until {@link #commit()}.
+     * @return true if writes were committed
+     */
+    public boolean readerUnlock() {
+        if (clockMainLog != null) return getClockLog().readerUnlock();
+        if (versionClock != null) versionClock.end();
+        return false;
+    }
+
+    /**
+     * Waits until every section that is running now has finished. In the default mode commits
+     * are published directly, so there is nothing to wait for.
+     */
+    public void synchronize() {
+        if (clockMainLog != null) clockMainLog.synchronize(getClockLog());
+    }
+
+    /**
+     * In global-clock mode a write locks the key; if another thread holds it the whole
+     * section is aborted and false is returned.
+     */
+    public boolean write(T key, T value) {
+        if (clockMainLog != null) return clockWrite(key, value);
+        return write(getLocalLog(), threadSnapshot(), key, value);
+    }
+
+    boolean write(LocalLog<T> log, long snapshot, T key, T value) {
+        LogEntry<T> entry = mainLog.getEntry(key);
+        log.write(key, value, entry);
+        if (snapshot >= 0) checkSnapshot(log, snapshot, key, entry);
+        return true;
+    }
+
+    /**
+     * First committer wins: a write in a multi-version snapshot to a key committed since then
+     * would overwrite a value the snapshot never saw, so the commit fails. Checked after the
+     * write took its version; a commit after that changes the version and fails it anyway.
+     */
+    private void checkSnapshot(LocalLog<T> log, long snapshot, T key, LogEntry<T> entry) {
+        if (entry == null || entry.latestCommitTs() <= snapshot) return;
+        log.markStale();
+        if (metrics != null) metrics.recordConflict(key);
+    }
+
+    /**
+     * Buffers {@code merger.apply(current, operand)} for {@code key}, where {@code current} is
+     * the value the key has when the commit locks it, null if absent; a null result removes
+     * the key. Unlike a write, a merge is not based on the version the key had before, so
+     * concurrent merges of the same key never conflict: counters, maxima and set unions
+     * commit without retries. The merger must not have side effects, as reads of the key
+     * before the commit apply it too.
+     *
+     * <p>A merge on top of the caller's own pending write is applied to it at once. Reading
+     * the key in serializable mode makes the commit depend on its version again. The
+     * global-clock engine reads the key and writes the result, which locks it.
+     * @return false if the write aborted the section in global-clock mode
+     */
+    public boolean merge(T key, T operand, BinaryOperator<T> merger) {
+        if (clockMainLog != null) return clockWrite(key, merger.apply(read(key), operand));
+        return merge(getLocalLog(), key, operand, merger);
+    }
+
+    boolean merge(LocalLog<T> log, T key, T operand, BinaryOperator<T> merger) {
+        log.merge(key, operand, merger, mainLog.getEntry(key));
+        return true;
+    }
+
+    /**
+     * Writes every entry of {@code entries}, as {@link #write} would one by one, and leaves
+     * them pending until {@link #commit()}. Each key's main log entry is looked up once, here,
+     * and the commit locks and publishes them all in one sorted pass.
+     * @return false if a write aborted the section in global-clock mode; later entries were
+     *         not written
+     */
+    public boolean writeAll(Map<? extends T, ? extends T> entries) {
+        if (clockMainLog != null) {
+            for (Map.Entry<? extends T, ? extends T> e : entries.entrySet()) {
+                if (!clockWrite(e.getKey(), e.getValue())) return false;
+            }
+            return true;
+        }
+        return writeAll(getLocalLog(), threadSnapshot(), entries);
+    }
+
+    boolean writeAll(LocalLog<T> log, long snapshot, Map<? extends T, ? extends T> entries) {
+        log.reserve(entries.size());
+        for (Map.Entry<? extends T, ? extends T> e : entries.entrySet()) write(log, snapshot, e.getKey(), e.getValue());
+        return true;
+    }
+
+    public boolean remove(T key) {
+        if (clockMainLog != null) {
+            if (read(key) == null) return false;
+            return clockWrite(key, null);
+        }
+        return remove(getLocalLog(), threadSnapshot(), key);
+    }
+
+    boolean remove(LocalLog<T> log, long snapshot, T key) {
+        LogEntry<T> entry = mainLog.getEntry(key);
+        if (entry == null) return false;
+        log.write(key, null, entry);
+        if (snapshot >= 0) checkSnapshot(log, snapshot, key, entry);
+        return true;
+    }
+
+    /**
+     * Removes those of {@code keys} that exist, as {@link #remove} would one by one; the
+     * removes stay pending until {@link #commit()}.
+     * @return false if a write aborted the section in global-clock mode; later keys were not
+     *         removed
+     */
+    public boolean removeAll(Collection<? extends T> keys) {
+        if (clockMainLog != null) {
+            for (T key : keys) {
+                if (read(key) != null && !clockWrite(key, null)) return false;
+            }
+            return true;
+        }
+        return removeAll(getLocalLog(), threadSnapshot(), keys);
+    }
+
+    boolean removeAll(LocalLog<T> log, long snapshot, Collection<? extends T> keys) {
+        log.reserve(keys.size());
+        for (T key : keys) remove(log, snapshot, key);
+        return true;
+    }
+
+    private boolean clockWrite(T key, T value) {
+        ClockLog log = getClockLog();
+        log.readerLock(); // writes open a section that commit() closes
+        if (clockMainLog.write(key, value, log)) return true;
+        if (metrics != null) {
+            metrics.recordConflict(key);
+            metrics.recordAbort(log.writeCount());
+        }
+        log.abort();
+        return false;
+    }
+
+    /**
+     * Reads the caller's pending write of {@code key}, or else its committed value: in a
+     * multi-version section, the value at the section's snapshot. Without pending writes or
+     * metrics, and outside serializable mode, this goes straight to the main log; no read
+     * allocates.
+     */
+    @Override
+    public T read(T key) {
+        if (clockMainLog != null) {
+            if (metrics == null) return clockRead(key);
+            long start = System.nanoTime();
+            T value = clockRead(key);
+            metrics.recordRead(System.nanoTime() - start);
+            return value;
+        }
+        LocalLog<T> log = getLocalLog();
+        if (metrics == null && !serializable && !log.hasWrites()) {
+            long snapshot = threadSnapshot();
+            return snapshot >= 0 ? mainLog.getValueAsOf(key, snapshot) : mainLog.getValue(key);
+        }
+        return read(log, threadSnapshot(), key);
+    }
+
+    /**
+     * Reads every key of {@code keys} as {@link #read} would.
+     * In multi-version and global-clock mode all of them are read at one snapshot, the
+     * caller's section if it is in one.
+     * @return the values in the order of {@code keys}, null for absent keys
+     */
+    public List<T> readAll(List<? extends T> keys) {
+        if (clockMainLog != null) {
+            ClockLog log = getClockLog();
+            boolean section = !log.isInSection();
+            if (section) log.readerLock();
+            try {
+                return readEach(keys);
+            } finally {
+                if (section) log.readerUnlock();
+            }
+        }
+        LocalLog<T> log = getLocalLog();
+        if (versionClock == null || versionClock.snapshot() >= 0) return readAll(log, threadSnapshot(), keys);
+        long snapshot = versionClock.begin();
+        try {
+            return readAll(log, snapshot, keys);
+        } finally {
+            versionClock.end();
+        }
+    }
+
+    private List<T> readEach(List<? extends T> keys) {
+        List<T> values = new ArrayList<>(keys.size());
+        for (T key : keys) values.add(read(key));
+        return values;
+    }
+
+    List<T> readAll(LocalLog<T> log, long snapshot, List<? extends T> keys) {
+        List<T> values = new ArrayList<>(keys.size());
+        for (T key : keys) values.add(read(log, snapshot, key));
+        return values;
+    }
+
+    private T clockRead(T key) {
+        ClockLog log = getClockLog();
+        if (log.isInSection()) return clockMainLog.read(key, log);
+        log.readerLock();
+        try {
+            return clockMainLog.read(key, log);
+        } finally {
+            log.readerUnlock();
+        }
+    }
+
+    /**
+     * @return the calling thread's multi-version snapshot, or -1
+     */
+    private long threadSnapshot() {
+        return versionClock != null ? versionClock.snapshot() : -1L;
+    }
+
+    T read(LocalLog<T> log, long snapshot, T key) {
+        if (metrics == null) return readUntimed(log, snapshot, key);
+        long start = System.nanoTime();
+        T value = readUntimed(log, snapshot, key);
+        metrics.recordRead(System.nanoTime() - start);
+        return value;
+    }
+
+    private T readUntimed(LocalLog<T> log, long snapshot, T key) {
+        if (serializable) return log.readTracked(key, mainLog);
+        if (snapshot >= 0) return log.readAsOf(key, mainLog, snapshot);
+        return log.read(key, mainLog);
+    }
+
+    /**
+     * Iterates the keys in {@code [from, to)} that have a value, in key order, reading each one
+     * as {@link #read} would: the caller's pending writes to existing keys show, in a
+     * multi-version section the values come from its snapshot, and in serializable mode every
+     * value read is validated at commit. Keys the caller is inserting appear once committed.
+     * Results are produced lazily, so a scan that stops early touches only what it returned.
+     * The iterator belongs to the calling thread.
+     *
+     * <p>Unlike {@link #readAll}, a scan opens no snapshot of its own, as a lazy iterator cannot
+     * tell when its caller is done with it. Outside a {@link #readerLock} section each key is
+     * read on its own, so a scan can see part of a batch that commits while it runs. It is
+     * consistent inside a multi-version section, or in serializable mode once the transaction
+     * that ran it commits.
+     *
+     * @param from inclusive lower bound, or null for the first key
+     * @param to   exclusive upper bound, or null for no upper bound
+     * @throws IllegalStateException unless the RLU was created with {@link RLUConfig#ordered}
+     */
+    public Iterator<Map.Entry<T, T>> scan(T from, T to) {
+        if (mainLog == null) throw new IllegalStateException("The global-clock engine does not support scans");
+        return scan(getLocalLog(), threadSnapshot(), from, to);
+    }
+
+    Iterator<Map.Entry<T, T>> scan(LocalLog<T> log, long snapshot, T from, T to) {
+        return new RangeScan<>(mainLog.range(from, to).values().iterator(), log, snapshot, serializable);
+    }
+
+    /**
+     * @return the smallest key with a value, or null if there is none
+     */
+    public T firstKey() {
+        return ceiling(null);
+    }
+
+    /**
+     * @return the smallest key greater than or equal to {@code key} that has a value, or null
+     */
+    public T ceiling(T key) {
+        Iterator<Map.Entry<T, T>> it = scan(key, null);
+        return it.hasNext() ? it.next().getKey() : null;
+    }
+
+    public void discard(T key) {
+        if (clockMainLog != null) {
+            clockMainLog.discard(key, getClockLog());
+            return;
+        }
+        getLocalLog().discard(key);
+    }
+
+    void discard(LocalLog<T> log, T key) {
+        log.discard(key);
+    }
+
+    public boolean commit() {
+        if (clockMainLog == null) {
+            if (versionClock != null) versionClock.end();
+            return commitLog(getLocalLog());
+        }
+        ClockLog log = getClockLog();
+        if (metrics == null) return log.readerUnlock();
+        int writes = log.writeCount();
+        if (writes == 0) return log.readerUnlock(); // nothing to publish, not an attempt
+        long start = System.nanoTime();
+        boolean committed = log.readerUnlock();
+        metrics.recordCommit(committed, writes, System.nanoTime() - start);
+        return committed;
+    }
+
+    boolean commitLog(LocalLog<T> log) {
+        if (metrics == null) return log.commit(mainLog,batchCommit);
+        int writes = log.pendingCount();
+        if (writes == 0) return log.commit(mainLog,batchCommit); // nothing to publish, not an attempt
+        long start = System.nanoTime();
+        boolean committed = log.commit(mainLog,batchCommit);
+        metrics.recordCommit(committed, writes, System.nanoTime() - start);
+        return committed;
+    }
+
+    /**
+     * Starts an explicit transaction. Unlike the thread API above, its state lives in the
+     * returned handle, backed by a pooled log, so it can be handed between threads (one at a
+     * time, with the usual happens-before of an executor or future) and any number of
+     * transactions can be open without a log per thread. In multi-version mode it reads as of
+     * this call. Finish it with {@link Transaction#commit()} or {@link Transaction#abort()}.
+     *
+     * @throws IllegalStateException in global-clock mode, whose logs are bound to threads
+     */
+    public Transaction<T> begin() {
+        if (logPool == null) throw new IllegalStateException("The global-clock engine does not support explicit transactions");
+        LocalLog<T> log = logPool.acquire();
+        long snapshot = versionClock != null ? versionClock.begin(log.reader) : -1L;
+        return new RLUTransaction<>(this, log, snapshot);
+    }
+
+    private LocalLog<T> newPooledLog() {
+        LocalLog<T> log = new LocalLog<>();
+        if (versionClock != null) log.reader = versionClock.newReader();
+        return log;
+    }
+
+    private void dropPooledLog(LocalLog<T> log) {
+        if (log.reader != null) versionClock.removeReader(log.reader);
+    }
+
+    /**
+     * Clears a transaction's log and returns it to the pool.
+     */
+    void release(LocalLog<T> log) {
+        if (log.reader != null) versionClock.end(log.reader);
+        log.clear();
+        logPool.release(log);
+    }
+
+    /**
+     * @return logs the explicit-transaction pool has created
+     */
+    long pooledLogsCreated() {
+        return logPool != null ? logPool.created() : 0;
+    }
+
+    /**
+     * Runs {@code body} as a transaction and commits it, re-executing the body until a commit
+     * succeeds. Between attempts the configured {@link ContentionManager} decides how to wait.
+     * The body must not have side effects outside the transaction, since it may run more than
+     * once. If it throws, its writes are discarded and the exception propagates, except for a
+     * {@link SnapshotTooOldException}, after which the body runs again on a fresh snapshot.
+     */
+    @Override
+    public <R> R atomically(Function<Transaction<T>, R> body) {
+        return atomically(body, contentionManager);
+    }
+
+    public <R> R atomically(Function<Transaction<T>, R> body, ContentionManager manager) {
+        for (int attempt = 1; ; attempt++) {
+            manager.beforeAttempt(attempt);
+            boolean committed = false;
+            try {
+                RLUTransaction<T> tx = new RLUTransaction<>(this);
+                readerLock(); // one snapshot per attempt in global-clock mode
+                R result = body.apply(tx);
+                if (!tx.isAborted()) {
+                    boolean empty = clockMainLog != null ? !hasPendingWrites() : getLocalLog().isEmpty();
+                    committed = commit() || empty;
+                }
+                if (committed) return result;
+            } catch (SnapshotTooOldException e) {
+                // the attempt's snapshot lost a version it needed: retry like a conflict
+            } finally {
+                if (!committed) abortTransaction();
+                manager.afterAttempt(attempt, committed);
+            }
+            manager.onAbort(attempt);
+        }
+    }
+
+    boolean hasPendingWrites() {
+        if (clockMainLog != null) return getClockLog().hasWrites();
+        return getLocalLog().hasWrites();
+    }
+
+    /**
+     * Drops everything the calling thread has not committed.
+     */
+    void abortTransaction() {
+        if (clockMainLog != null) {
+            getClockLog().abort();
+        } else {
+            if (versionClock != null) versionClock.end();
+            getLocalLog().clear();
+        }
+    }
+
+    /**
+     * Unlinks removed keys now instead of waiting for {@link RLUConfig#compactionThreshold}
+     * removals to pile up in a shard. Safe to call while other threads commit and read.
+     *
+     * @return the number of removed keys unlinked
+     */
+    public long compact() {
+        if (mainLog == null) throw new IllegalStateException("The global-clock engine does not support compaction");
+        return mainLog.compact();
+    }
+
+    /**
+     * Writes a checkpoint of every key next to the write-ahead log and drops the log segments
+     * it covers, so a restart loads the checkpoint and replays only what came after. Commits
+     * carry on while it runs.
+     *
+     * @return the number of keys written
+     * @throws IllegalStateException unless the RLU was created with {@link RLUConfig#durable}
+     */
+    public long checkpoint() {
+        if (mainLog == null) throw new IllegalStateException("The global-clock engine does not support checkpoints");
+        return mainLog.checkpoint();
+    }
+
+    /**
+     * Returns the stream of committed batches: every successful commit, with the new value
+     * (null for a remove) and version of each key it wrote, in commit order per key. With batch
+     * commit off each key is a batch of its own. A subscriber sees only commits made after it
+     * subscribed, on a delivery thread of its own, and is completed by {@link #close()}.
+     *
+     * @throws IllegalStateException unless the RLU was created with {@link RLUConfig#changeCapture}
+     */
+    public Flow.Publisher<ChangeBatch<T>> changes() {
+        ChangeStream<T> changes = mainLog != null ? mainLog.getChangeStream() : null;
+        if (changes == null) throw new IllegalStateException("Change capture is off; see RLUConfig.changeCapture");
+        return changes;
+    }
+
+    /**
+     * Forces and closes the write-ahead log, if the RLU is durable, and completes the change
+     * subscribers. Commits fail afterwards.
+     */
+    @Override
+    public void close() {
+        if (mainLog != null) mainLog.close();
+    }
+}
@@ -0,0 +1,248 @@
+package rlu;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Construction options for {@link RLU}. Setters return {@code this} so options can be chained:
+ * {@code new RLU<>(new RLUConfig().bucketSize(1000).globalClock(true))}.
+ */
+public class RLUConfig {
+    private int bucketSize = 16; // ConcurrentHashMap default capacity
+    private boolean batchCommit = true;
+    private boolean globalClock = false;
+    private boolean serializable = false;
+    private ContentionManager contentionManager = new ExponentialBackoff();
+    private boolean metrics = false;
+    private int maxVersions = 0;
+    private boolean ordered = false;
+    private int shards = 1;
+    private Path logDirectory = null;
+    private Serializer<?> serializer = null;
+    private Durability durability = Durability.GROUP_SYNC;
+    private int logSegmentSize = WriteAheadLog.DEFAULT_SEGMENT_SIZE;
+    private int compactionThreshold = 1024;
+    private boolean combining = false;
+    private int changeCapacity = 0;
+    private Backpressure backpressure = null;
+
+    public RLUConfig bucketSize(int bucketSize) {
+        if (bucketSize < 0) throw new IllegalArgumentException("bucketSize must be >= 0");
+        this.bucketSize = bucketSize;
+        return this;
+    }
+
+    public RLUConfig batchCommit(boolean batchCommit) {
+        this.batchCommit = batchCommit;
+        return this;
+    }
+
+    /**
+     * Use the global-clock engine: commits are published through a global write clock and a
+     * grace period instead of per-entry CAS, so readers see a consistent snapshot.
+     */
+    public RLUConfig globalClock(boolean globalClock) {
+        this.globalClock = globalClock;
+        return this;
+    }
+
+    /**
+     * Record the versions read by each transaction and fail commits whose reads went stale,
+     * so read-modify-write transactions cannot lose updates. Read-only commits check their
+     * reads too, without locking, so what a read-only transaction returns came from one state.
+     * Cannot be combined with {@link #multiVersion}, whose snapshots serializable reads would
+     * bypass. The global-clock engine ignores this: its writers lock what they write.
+     */
+    public RLUConfig serializable(boolean serializable) {
+        if (serializable && maxVersions > 0) throw new IllegalArgumentException("serializable cannot be combined with multiVersion");
+        this.serializable = serializable;
+        return this;
+    }
+
+    /**
+     * Policy {@link RLU#atomically} applies between attempts; exponential backoff by default.
+     */
+    public RLUConfig contentionManager(ContentionManager contentionManager) {
+        if (contentionManager == null) throw new IllegalArgumentException("contentionManager must not be null");
+        this.contentionManager = contentionManager;
+        return this;
+    }
+
+    /**
+     * Count commits, aborts and conflicting keys and time reads and commits; see
+     * {@link RLU#getMetrics()}. Off by default, which leaves only a null check on each path.
+     */
+    public RLUConfig metrics(boolean metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Keep up to {@code maxVersions} committed versions per key, so that reads between
+     * {@link RLU#readerLock()} and {@link RLU#readerUnlock()} see the store as of the moment the
+     * section started, without retrying or blocking writers. Versions no running section can
+     * see are dropped as keys are committed. 0 (the default) keeps one version and no history.
+     * A section's writes follow snapshot isolation: if another transaction committed a key
+     * after the section's snapshot was taken, a write to that key makes the commit fail, and
+     * {@link RLU#atomically} runs the body again. Cannot be combined with
+     * {@link #serializable}. The global-clock engine ignores this.
+     */
+    public RLUConfig multiVersion(int maxVersions) {
+        if (maxVersions < 0) throw new IllegalArgumentException("maxVersions must be >= 0");
+        if (maxVersions > 0 && serializable) throw new IllegalArgumentException("multiVersion cannot be combined with serializable");
+        this.maxVersions = maxVersions;
+        return this;
+    }
+
+    /**
+     * Keep keys in a sorted index as well, for {@link RLU#scan}, {@link RLU#firstKey()} and
+     * {@link RLU#ceiling}. Keys must be {@link Comparable}. A scan reads one consistent state
+     * only inside a multi-version section or a serializable transaction; see {@link RLU#scan}.
+     * Not supported by the global-clock engine.
+     */
+    public RLUConfig ordered(boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    /**
+     * Split the main log into {@code shards} tables picked by key hash, so that many committing
+     * threads do not share one table's resizes and bins. Must be a power of two; 1 by default.
+     * Batches spanning shards stay atomic. The global-clock engine ignores this.
+     */
+    public RLUConfig shards(int shards) {
+        if (shards < 1 || Integer.bitCount(shards) != 1) throw new IllegalArgumentException("shards must be a power of two");
+        this.shards = shards;
+        return this;
+    }
+
+    /**
+     * Append every committed batch to a {@link WriteAheadLog} in {@code directory} and replay it
+     * when an RLU is created on the same directory. Keys and values are written with
+     * {@code serializer}. Not supported by the global-clock engine.
+     */
+    public RLUConfig durable(Path directory, Serializer<?> serializer, Durability durability) {
+        if (directory == null || serializer == null || durability == null) {
+            throw new IllegalArgumentException("directory, serializer and durability must not be null");
+        }
+        this.logDirectory = directory;
+        this.serializer = serializer;
+        this.durability = durability;
+        return this;
+    }
+
+    /**
+     * Size of each write-ahead log segment file; 64 MiB by default. A batch must fit one segment.
+     */
+    public RLUConfig logSegmentSize(int logSegmentSize) {
+        if (logSegmentSize < 1024) throw new IllegalArgumentException("logSegmentSize must be >= 1024");
+        this.logSegmentSize = logSegmentSize;
+        return this;
+    }
+
+    /**
+     * Unlink removed keys from a shard once {@code compactionThreshold} of them have piled up
+     * there, on the thread whose commit crossed the threshold; 1024 by default. Removed keys
+     * are only unlinked once no transaction can still commit against them and, in
+     * multi-version mode, no snapshot can still see their old values. 0 leaves them until
+     * {@link RLU#compact()} is called. The global-clock engine ignores this.
+     */
+    public RLUConfig compactionThreshold(int compactionThreshold) {
+        if (compactionThreshold < 0) throw new IllegalArgumentException("compactionThreshold must be >= 0");
+        this.compactionThreshold = compactionThreshold;
+        return this;
+    }
+
+    /**
+     * Commit batches whose keys all live in one shard through that shard's flat combiner: the
+     * committers queue their batches and one of them applies them all, instead of every thread
+     * spinning on the same entry locks. Meant for hot keys under many writers; it adds a hop
+     * to uncontended commits. Only batch commits combine, and the global-clock engine ignores
+     * this.
+     */
+    public RLUConfig combining(boolean combining) {
+        this.combining = combining;
+        return this;
+    }
+
+    /**
+     * Publish every committed batch through {@link RLU#changes()}. Each subscriber gets a ring
+     * buffer of {@code capacity} changes, which must be a power of two, and {@code backpressure}
+     * decides what a commit does when that ring is full. Off by default; the global-clock engine
+     * does not support it.
+     */
+    public RLUConfig changeCapture(int capacity, Backpressure backpressure) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("capacity must be a power of two");
+        this.changeCapacity = capacity;
+        this.backpressure = Objects.requireNonNull(backpressure, "backpressure");
+        return this;
+    }
+
+    public int getBucketSize() {
+        return bucketSize;
+    }
+
+    public boolean isBatchCommit() {
+        return batchCommit;
+    }
+
+    public boolean isGlobalClock() {
+        return globalClock;
+    }
+
+    public boolean isSerializable() {
+        return serializable;
+    }
+
+    public ContentionManager getContentionManager() {
+        return contentionManager;
+    }
+
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    public int getMaxVersions() {
+        return maxVersions;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public Path getLogDirectory() {
+        return logDirectory;
+    }
+
+    public Serializer<?> getSerializer() {
+        return serializer;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public int getLogSegmentSize() {
+        return logSegmentSize;
+    }
+
+    public int getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    public boolean isCombining() {
+        return combining;
+    }
+
+    public int getChangeCapacity() {
+        return changeCapacity;
+    }
+
+    public Backpressure getBackpressure() {
+        return backpressure;
+    }
+}
@@ -0,0 +1,35 @@
+package rlu;
+
+/**
+ * Hash set of sorted {@link RLULinkedList} buckets sharing one {@link GlobalClock}: the
+ * "buckets" and "nodes per bucket" structure that the {@code mpp-*} {@link WorkloadDriver} scenarios use.
+ */
+public class RLUHashSet<T extends Comparable<T>> {
+    private final RLULinkedList<T>[] buckets;
+
+    @SuppressWarnings("unchecked")
+    public RLUHashSet(int bucketCount) {
+        if (bucketCount <= 0) throw new IllegalArgumentException("bucketCount must be > 0");
+        GlobalClock clock = new GlobalClock();
+        buckets = (RLULinkedList<T>[]) new RLULinkedList[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new RLULinkedList<>(clock);
+        }
+    }
+
+    private RLULinkedList<T> bucket(T key) {
+        return buckets[Math.floorMod(key.hashCode(), buckets.length)];
+    }
+
+    public boolean add(T key) {
+        return bucket(key).add(key);
+    }
+
+    public boolean remove(T key) {
+        return bucket(key).remove(key);
+    }
+
+    public boolean contains(T key) {
+        return bucket(key).contains(key);
+    }
+}
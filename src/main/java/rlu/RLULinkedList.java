@@ -0,0 +1,102 @@
+package rlu;
+
+/**
+ * Sorted linked list whose nodes are {@link RLUObject}s, as in the RLU paper: the protected
+ * value of a node is its next pointer, readers dereference through the writers' logs, and
+ * writers lock nodes and update a private copy that is published after a grace period.
+ */
+public class RLULinkedList<T extends Comparable<T>> {
+
+    static final class Node<T> extends RLUObject<Node<T>> {
+        final T key;
+
+        Node(T key, Node<T> next) {
+            super(next);
+            this.key = key;
+        }
+    }
+
+    private final GlobalClock clock;
+    private final Node<T> head = new Node<>(null, null); // sentinel, smaller than every key
+
+    public RLULinkedList() {
+        this(new GlobalClock());
+    }
+
+    /**
+     * @param clock clock shared with the other lists of the same structure, so one grace
+     *              period covers every reader of it
+     */
+    public RLULinkedList(GlobalClock clock) {
+        this.clock = clock;
+    }
+
+    public boolean contains(T key) {
+        ClockLog log = clock.getLog();
+        log.readerLock();
+        try {
+            Node<T> curr = head.dereference(log);
+            while (curr != null && curr.key.compareTo(key) < 0) {
+                curr = curr.dereference(log);
+            }
+            return curr != null && curr.key.compareTo(key) == 0;
+        } finally {
+            log.readerUnlock();
+        }
+    }
+
+    public boolean add(T key) {
+        ClockLog log = clock.getLog();
+        while (true) {
+            log.readerLock();
+            Node<T> prev = head;
+            Node<T> curr = prev.dereference(log);
+            while (curr != null && curr.key.compareTo(key) < 0) {
+                prev = curr;
+                curr = curr.dereference(log);
+            }
+            if (curr != null && curr.key.compareTo(key) == 0) {
+                log.readerUnlock();
+                return false;
+            }
+            // Locking prev is enough: removing prev or curr also has to lock prev
+            if (!prev.tryLock(log)) {
+                abortAndBackOff(log);
+                continue;
+            }
+            prev.setCopy(log, new Node<>(key, curr));
+            log.readerUnlock();
+            return true;
+        }
+    }
+
+    public boolean remove(T key) {
+        ClockLog log = clock.getLog();
+        while (true) {
+            log.readerLock();
+            Node<T> prev = head;
+            Node<T> curr = prev.dereference(log);
+            while (curr != null && curr.key.compareTo(key) < 0) {
+                prev = curr;
+                curr = curr.dereference(log);
+            }
+            if (curr == null || curr.key.compareTo(key) != 0) {
+                log.readerUnlock();
+                return false;
+            }
+            // Locking curr keeps others from inserting after a node that is being unlinked
+            if (!prev.tryLock(log) || !curr.tryLock(log)) {
+                abortAndBackOff(log);
+                continue;
+            }
+            prev.setCopy(log, curr.dereference(log));
+            log.readerUnlock();
+            return true;
+        }
+    }
+
+    private static void abortAndBackOff(ClockLog log) {
+        log.abort();
+        Thread.onSpinWait();
+    }
+}
@@ -0,0 +1,305 @@
+package rlu;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Commit, abort and latency statistics of one {@link RLU}. Every thread records into its own
+ * padded {@link ThreadRegistry} slot with plain writes, so recording never contends; readers
+ * sum the slots racily. Conflicting keys are counted in a bounded Space-Saving sketch.
+ * Enabled with {@link RLUConfig#metrics}; when disabled RLU holds no instance and pays a
+ * null check.
+ */
+public class RLUMetrics implements RLUMetricsMBean {
+    private static final int BUCKETS = 64;
+    private static final int TOP_N = 10;
+
+    static final class Cell {
+        long commits;
+        long aborts;
+        long rollbacks;
+        long reads;
+        long writeSetTotal;
+        final long[] writeSetSizes = new long[BUCKETS];
+        final long[] readLatencies = new long[BUCKETS];
+        final long[] commitLatencies = new long[BUCKETS];
+
+        void addTo(Cell total) {
+            total.commits += commits;
+            total.aborts += aborts;
+            total.rollbacks += rollbacks;
+            total.reads += reads;
+            total.writeSetTotal += writeSetTotal;
+            for (int i = 0; i < BUCKETS; i++) {
+                total.writeSetSizes[i] += writeSetSizes[i];
+                total.readLatencies[i] += readLatencies[i];
+                total.commitLatencies[i] += commitLatencies[i];
+            }
+        }
+
+        void clear() {
+            commits = aborts = rollbacks = reads = writeSetTotal = 0;
+            Arrays.fill(writeSetSizes, 0);
+            Arrays.fill(readLatencies, 0);
+            Arrays.fill(commitLatencies, 0);
+        }
+    }
+
+    private final Cell retired = new Cell(); // counts of threads whose slots were reused
+    private final ThreadRegistry<Cell> cells = new ThreadRegistry<>(Cell::new, this::retire);
+    private final ConcurrentHashMap<Object, LongAdder> conflicts = new ConcurrentHashMap<>();
+    private final int maxTrackedKeys;
+    private ObjectName registeredName;
+
+    public RLUMetrics() {
+        this(1024);
+    }
+
+    /**
+     * @param maxTrackedKeys bound on distinct conflicting keys counted; once reached, a new key
+     *                       replaces the one with the fewest conflicts
+     */
+    public RLUMetrics(int maxTrackedKeys) {
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
+
+    private synchronized void retire(Cell cell) {
+        cell.addTo(retired);
+        cell.clear();
+    }
+
+    static int bucket(long value) {
+        return value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    void recordRead(long nanos) {
+        Cell cell = cells.get();
+        cell.reads++;
+        cell.readLatencies[bucket(nanos)]++;
+    }
+
+    void recordCommit(boolean committed, int writeSetSize, long nanos) {
+        Cell cell = cells.get();
+        if (committed) {
+            cell.commits++;
+        } else {
+            cell.aborts++;
+        }
+        cell.writeSetTotal += writeSetSize;
+        cell.writeSetSizes[bucket(writeSetSize)]++;
+        cell.commitLatencies[bucket(nanos)]++;
+    }
+
+    /**
+     * A global-clock section lost a write lock and dropped the {@code locks} it held.
+     */
+    void recordAbort(int locks) {
+        Cell cell = cells.get();
+        cell.aborts++;
+        cell.rollbacks += locks;
+        cell.writeSetTotal += locks;
+        cell.writeSetSizes[bucket(locks)]++;
+    }
+
+    /**
+     * A commit released {@code locks} entry locks without publishing.
+     */
+    void recordRollback(int locks) {
+        cells.get().rollbacks += locks;
+    }
+
+    void recordConflict(Object key) {
+        LongAdder count = conflicts.get(key);
+        if (count == null) count = track(key);
+        count.increment();
+    }
+
+    /**
+     * Space-Saving: once the table is full, a new key takes the place of the key with the
+     * fewest conflicts and starts from its count. A key that turns hot late still rises to the
+     * top, overcounted by at most what it inherited, while the keys that stay are never
+     * undercounted. Increments racing with the eviction of their key are lost.
+     */
+    private synchronized LongAdder track(Object key) {
+        LongAdder count = conflicts.get(key);
+        if (count != null) return count;
+        count = new LongAdder();
+        if (conflicts.size() >= maxTrackedKeys) {
+            Object evicted = null;
+            long least = Long.MAX_VALUE;
+            for (Map.Entry<Object, LongAdder> e : conflicts.entrySet()) {
+                long sum = e.getValue().sum();
+                if (sum < least) {
+                    least = sum;
+                    evicted = e.getKey();
+                }
+            }
+            if (evicted != null) {
+                conflicts.remove(evicted);
+                count.add(least);
+            }
+        }
+        conflicts.put(key, count);
+        return count;
+    }
+
+    private Cell snapshot() {
+        Cell total = new Cell();
+        synchronized (this) {
+            retired.addTo(total);
+        }
+        for (ThreadRegistry.Slot<Cell> slot : cells.slots()) {
+            if (slot != null) slot.getState().addTo(total);
+        }
+        return total;
+    }
+
+    static long percentile(long[] buckets, double p) {
+        long count = 0;
+        for (long c : buckets) count += c;
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(p * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank) return i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public long getCommits() {
+        return snapshot().commits;
+    }
+
+    @Override
+    public long getAborts() {
+        return snapshot().aborts;
+    }
+
+    @Override
+    public long getRollbacks() {
+        return snapshot().rollbacks;
+    }
+
+    @Override
+    public long getReads() {
+        return snapshot().reads;
+    }
+
+    @Override
+    public double getAbortRate() {
+        Cell total = snapshot();
+        long attempts = total.commits + total.aborts;
+        return attempts == 0 ? 0.0 : (double) total.aborts / attempts;
+    }
+
+    @Override
+    public double getMeanWriteSetSize() {
+        Cell total = snapshot();
+        long attempts = total.commits + total.aborts;
+        return attempts == 0 ? 0.0 : (double) total.writeSetTotal / attempts;
+    }
+
+    @Override
+    public long getWriteSetSizeP99() {
+        return percentile(snapshot().writeSetSizes, 0.99);
+    }
+
+    @Override
+    public long getReadLatencyP50Nanos() {
+        return percentile(snapshot().readLatencies, 0.50);
+    }
+
+    @Override
+    public long getReadLatencyP99Nanos() {
+        return percentile(snapshot().readLatencies, 0.99);
+    }
+
+    @Override
+    public long getCommitLatencyP50Nanos() {
+        return percentile(snapshot().commitLatencies, 0.50);
+    }
+
+    @Override
+    public long getCommitLatencyP99Nanos() {
+        return percentile(snapshot().commitLatencies, 0.99);
+    }
+
+    @Override
+    public long getCommitLatencyP999Nanos() {
+        return percentile(snapshot().commitLatencies, 0.999);
+    }
+
+    /**
+     * @return up to {@code n} keys with the most commit conflicts, most first
+     */
+    public List<Map.Entry<Object, Long>> topConflictingKeys(int n) {
+        List<Map.Entry<Object, Long>> entries = new ArrayList<>();
+        for (Map.Entry<Object, LongAdder> e : conflicts.entrySet()) {
+            entries.add(Map.entry(e.getKey(), e.getValue().sum()));
+        }
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return entries.size() > n ? new ArrayList<>(entries.subList(0, n)) : entries;
+    }
+
+    @Override
+    public String[] getTopConflictingKeys() {
+        List<Map.Entry<Object, Long>> top = topConflictingKeys(TOP_N);
+        String[] result = new String[top.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = top.get(i).getKey() + "=" + top.get(i).getValue();
+        }
+        return result;
+    }
+
+    /**
+     * Zeroes the counters. Threads recording concurrently may keep a few of their updates.
+     */
+    @Override
+    public void reset() {
+        synchronized (this) {
+            retired.clear();
+        }
+        for (ThreadRegistry.Slot<Cell> slot : cells.slots()) {
+            if (slot != null) slot.getState().clear();
+        }
+        conflicts.clear();
+    }
+
+    /**
+     * Registers this instance with the platform MBean server as {@code rlu:type=RLU,name=<name>}.
+     */
+    public synchronized void registerMBean(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("rlu:type=RLU,name=" + ObjectName.quote(name));
+            server.registerMBean(this, objectName);
+            registeredName = objectName;
+        } catch (InstanceAlreadyExistsException e) {
+            throw new IllegalStateException("An RLU MBean named " + name + " is already registered", e);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register RLU MBean " + name, e);
+        }
+    }
+
+    public synchronized void unregisterMBean() {
+        if (registeredName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister RLU MBean " + registeredName, e);
+        } finally {
+            registeredName = null;
+        }
+    }
+}
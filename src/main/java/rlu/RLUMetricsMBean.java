@@ -0,0 +1,38 @@
+package rlu;
+
+/**
+ * JMX view of {@link RLUMetrics}. Latencies are in nanoseconds; percentiles are the upper
+ * bound of a power-of-two histogram bucket.
+ */
+public interface RLUMetricsMBean {
+    long getCommits();
+
+    long getAborts();
+
+    long getRollbacks();
+
+    long getReads();
+
+    double getAbortRate();
+
+    double getMeanWriteSetSize();
+
+    long getWriteSetSizeP99();
+
+    long getReadLatencyP50Nanos();
+
+    long getReadLatencyP99Nanos();
+
+    long getCommitLatencyP50Nanos();
+
+    long getCommitLatencyP99Nanos();
+
+    long getCommitLatencyP999Nanos();
+
+    /**
+     * @return the most conflicting keys as "key=count", most conflicts first
+     */
+    String[] getTopConflictingKeys();
+
+    void reset();
+}
@@ -0,0 +1,89 @@
+package rlu;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * An object protected by the global-clock engine. The committed value lives in {@code value};
+ * a writer that locks the object installs a {@link Copy} that other readers only follow once
+ * the writer's write clock is not newer than their own section clock.
+ */
+public class RLUObject<V> {
+    private static final VarHandle COPY;
+
+    static {
+        try {
+            COPY = MethodHandles.lookup().findVarHandle(RLUObject.class, "copy", Copy.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    static final class Copy<V> {
+        final ClockLog owner;
+        volatile V value;
+
+        Copy(ClockLog owner, V value) {
+            this.owner = owner;
+            this.value = value;
+        }
+    }
+
+    private volatile V value;
+    private volatile Copy<V> copy;
+
+    public RLUObject(V value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the value as seen by the given section (rlu_dereference).
+     */
+    public V dereference(ClockLog log) {
+        Copy<V> c = this.copy;
+        if (c == null) return this.value;
+        if (c.owner == log) return c.value;
+        if (c.owner.getWriteClock() <= log.getLocalClock()) return c.value; // steal from the writer's log
+        return this.value;
+    }
+
+    /**
+     * Locks the object for the given writer and adds it to the writer's log (rlu_try_lock).
+     * @return false if another writer holds the lock
+     */
+    public boolean tryLock(ClockLog log) {
+        Copy<V> c = this.copy;
+        if (c != null) return c.owner == log;
+        if (!COPY.compareAndSet(this, null, new Copy<>(log, this.value))) {
+            return isLockedBy(log);
+        }
+        log.logLocked(this);
+        return true;
+    }
+
+    public boolean isLockedBy(ClockLog log) {
+        Copy<V> c = this.copy;
+        return c != null && c.owner == log;
+    }
+
+    /**
+     * Updates the writer's private copy. The object must be locked by {@code log}.
+     */
+    public void setCopy(ClockLog log, V newValue) {
+        Copy<V> c = this.copy;
+        if (c == null || c.owner != log) throw new IllegalStateException("object is not locked by this thread");
+        c.value = newValue;
+    }
+
+    /**
+     * Publishes the writer's copy as the committed value. Called after the grace period.
+     */
+    void writeBack() {
+        Copy<V> c = this.copy;
+        if (c != null) this.value = c.value;
+    }
+
+    void unlock() {
+        this.copy = null;
+    }
+}
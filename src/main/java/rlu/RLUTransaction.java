@@ -0,0 +1,146 @@
+package rlu;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+
+/**
+ * The {@link RLU} transaction. A transaction body run by {@link RLU#atomically} gets one bound
+ * to the calling thread's log; {@link RLU#begin()} returns an explicit handle that owns a
+ * pooled log and may move between threads, but must only be used by one thread at a time.
+ * A write that fails (another writer holds the key in global-clock mode) dooms the attempt.
+ */
+final class RLUTransaction<T> implements Transaction<T> {
+    private final RLU<T> rlu;
+    private final LocalLog<T> log; // null when bound to the calling thread
+    private final long snapshot;
+    private boolean aborted;
+    private boolean finished;
+
+    RLUTransaction(RLU<T> rlu) {
+        this(rlu, null, -1L);
+    }
+
+    RLUTransaction(RLU<T> rlu, LocalLog<T> log, long snapshot) {
+        this.rlu = rlu;
+        this.log = log;
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public T read(T key) {
+        if (log == null) return rlu.read(key);
+        checkOpen();
+        return rlu.read(log, snapshot, key);
+    }
+
+    @Override
+    public boolean write(T key, T value) {
+        if (aborted) return false;
+        if (log != null) {
+            checkOpen();
+            return rlu.write(log, snapshot, key, value);
+        }
+        if (!rlu.write(key, value)) aborted = true;
+        return !aborted;
+    }
+
+    @Override
+    public boolean remove(T key) {
+        if (aborted || read(key) == null) return false;
+        return write(key, null);
+    }
+
+    @Override
+    public boolean merge(T key, T operand, BinaryOperator<T> merger) {
+        if (aborted) return false;
+        if (log != null) {
+            checkOpen();
+            return rlu.merge(log, key, operand, merger);
+        }
+        if (!rlu.merge(key, operand, merger)) aborted = true;
+        return !aborted;
+    }
+
+    @Override
+    public List<T> readAll(List<? extends T> keys) {
+        if (log == null) return rlu.readAll(keys);
+        checkOpen();
+        return rlu.readAll(log, snapshot, keys);
+    }
+
+    @Override
+    public boolean writeAll(Map<? extends T, ? extends T> entries) {
+        if (aborted) return false;
+        if (log != null) {
+            checkOpen();
+            return rlu.writeAll(log, snapshot, entries);
+        }
+        if (!rlu.writeAll(entries)) aborted = true;
+        return !aborted;
+    }
+
+    @Override
+    public boolean removeAll(Collection<? extends T> keys) {
+        if (aborted) return false;
+        if (log != null) {
+            checkOpen();
+            return rlu.removeAll(log, snapshot, keys);
+        }
+        if (!rlu.removeAll(keys)) aborted = true;
+        return !aborted;
+    }
+
+    @Override
+    public void discard(T key) {
+        if (log == null) {
+            rlu.discard(key);
+            return;
+        }
+        checkOpen();
+        rlu.discard(log, key);
+    }
+
+    @Override
+    public Iterator<Map.Entry<T, T>> scan(T from, T to) {
+        if (log == null) return rlu.scan(from, to);
+        checkOpen();
+        return rlu.scan(log, snapshot, from, to);
+    }
+
+    @Override
+    public boolean commit() {
+        if (log == null) throw new IllegalStateException("atomically commits its own transaction");
+        checkOpen();
+        finished = true;
+        try {
+            boolean empty = log.isEmpty();
+            return rlu.commitLog(log) || empty;
+        } finally {
+            rlu.release(log);
+        }
+    }
+
+    @Override
+    public void abort() {
+        if (log == null) throw new IllegalStateException("atomically aborts its own transaction");
+        checkOpen();
+        finished = true;
+        rlu.release(log);
+    }
+
+    @Override
+    public void close() {
+        if (log != null && !finished) abort();
+    }
+
+    private void checkOpen() {
+        if (finished) throw new IllegalStateException("Transaction already finished");
+    }
+
+    boolean isAborted() {
+        return aborted;
+    }
+}
@@ -0,0 +1,50 @@
+package rlu;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy iterator over the ordered index: each step reads one entry the way the scanning thread
+ * would read its key and skips keys that are absent, so nothing is copied up front.
+ */
+class RangeScan<T> implements Iterator<Map.Entry<T, T>> {
+    private final Iterator<LogEntry<T>> entries;
+    private final LocalLog<T> log;
+    private final long snapshot;
+    private final boolean tracked;
+    private Map.Entry<T, T> next;
+
+    RangeScan(Iterator<LogEntry<T>> entries, LocalLog<T> log, long snapshot, boolean tracked) {
+        this.entries = entries;
+        this.log = log;
+        this.snapshot = snapshot;
+        this.tracked = tracked;
+        advance();
+    }
+
+    private void advance() {
+        while (entries.hasNext()) {
+            LogEntry<T> entry = entries.next();
+            T value = log.readEntry(entry, snapshot, tracked);
+            if (value != null) {
+                next = Map.entry(entry.getKey(), value);
+                return;
+            }
+        }
+        next = null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public Map.Entry<T, T> next() {
+        Map.Entry<T, T> current = next;
+        if (current == null) throw new NoSuchElementException();
+        advance();
+        return current;
+    }
+}
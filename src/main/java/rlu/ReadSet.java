@@ -0,0 +1,100 @@
+package rlu;
+
+/**
+ * Versions observed by the reads of one thread's transaction, validated at commit in
+ * serializable mode. Like {@link WriteSet} it is private to its thread, open-addressed and
+ * cleared in place. The first read of a key wins; an absent key is recorded with its shard's
+ * compaction count instead of a version (see {@link MainLog#absentVersion}).
+ */
+public class ReadSet<T> {
+    private Object[] keys;
+    private Object[] entries; // main log entry seen by the read, null if the key was absent
+    private int[] versions;
+    private int[] order;
+    private int size;
+    private int mask;
+
+    public ReadSet() {
+        this(16);
+    }
+
+    public ReadSet(int initialCapacity) {
+        allocate(Integer.highestOneBit(Math.max(2, initialCapacity) * 2 - 1) << 1);
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        entries = new Object[capacity];
+        versions = new int[capacity];
+        order = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    public void record(T key, LogEntry<T> entry, int version) {
+        if ((size + 1) * 2 > keys.length) grow();
+        int i = WriteSet.hash(key) & mask;
+        while (keys[i] != null) {
+            if (keys[i].equals(key)) return;
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        entries[i] = entry;
+        versions[i] = version;
+        order[size++] = i;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        for (int n = 0; n < size; n++) {
+            int slot = order[n];
+            keys[slot] = null;
+            entries[slot] = null;
+        }
+        size = 0;
+    }
+
+    private void grow() {
+        Object[] oldKeys = keys, oldEntries = entries;
+        int[] oldVersions = versions, oldOrder = order;
+        int oldSize = size;
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for (int n = 0; n < oldSize; n++) {
+            int slot = oldOrder[n];
+            record(keyAt(oldKeys, slot), entryAt(oldEntries, slot), oldVersions[slot]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int slotAt(int n) {
+        return order[n];
+    }
+
+    T keyAt(int slot) {
+        return keyAt(keys, slot);
+    }
+
+    LogEntry<T> entryAt(int slot) {
+        return entryAt(entries, slot);
+    }
+
+    int versionAt(int slot) {
+        return versions[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T keyAt(Object[] keys, int slot) {
+        return (T) keys[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> LogEntry<T> entryAt(Object[] entries, int slot) {
+        return (LogEntry<T>) entries[slot];
+    }
+}
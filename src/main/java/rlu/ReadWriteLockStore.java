@@ -0,0 +1,63 @@
+package rlu;
+
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Baseline {@link TransactionalStore}: one map behind a {@link ReentrantReadWriteLock}. Reads
+ * and read-only transactions share the read lock. A transaction starts under the read lock and,
+ * on its first write, is run again from the start under the write lock, since the read lock
+ * cannot be upgraded in place.
+ */
+public class ReadWriteLockStore<T> implements TransactionalStore<T> {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<T, T> map;
+    private final ThreadLocal<BufferedTransaction<T>> transactions = ThreadLocal.withInitial(BufferedTransaction::new);
+
+    public ReadWriteLockStore() {
+        this(false);
+    }
+
+    /**
+     * @param ordered keep keys sorted, so transactions can scan
+     */
+    public ReadWriteLockStore(boolean ordered) {
+        this.map = BufferedTransaction.newMap(ordered);
+    }
+
+    @Override
+    public T read(T key) {
+        lock.readLock().lock();
+        try {
+            return map.get(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public <R> R atomically(Function<Transaction<T>, R> body) {
+        BufferedTransaction<T> tx = transactions.get();
+        lock.readLock().lock();
+        try {
+            tx.begin(map, true);
+            return body.apply(tx);
+        } catch (BufferedTransaction.Upgrade e) {
+            // wrote: run again exclusively
+        } finally {
+            tx.end();
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            tx.begin(map, false);
+            R result = body.apply(tx);
+            tx.applyTo(map);
+            return result;
+        } finally {
+            tx.end();
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package rlu;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Retries optimistically up to {@code maxAborts} times, then runs the transaction serially:
+ * new attempts from other threads wait and running ones drain before it starts, so it cannot
+ * be aborted by another {@link RLU#atomically} transaction.
+ */
+public class SerialFallback implements ContentionManager {
+    private final int maxAborts;
+    private final ExponentialBackoff backoff = new ExponentialBackoff();
+    private final ReentrantLock serialLock = new ReentrantLock();
+    private final LongAdder running = new LongAdder(); // striped, so optimistic attempts don't contend
+    private volatile boolean serial;
+
+    public SerialFallback() {
+        this(8);
+    }
+
+    public SerialFallback(int maxAborts) {
+        if (maxAborts < 0) throw new IllegalArgumentException("maxAborts must be >= 0");
+        this.maxAborts = maxAborts;
+    }
+
+    private boolean isSerialAttempt(int attempt) {
+        return attempt > maxAborts;
+    }
+
+    @Override
+    public void beforeAttempt(int attempt) {
+        if (isSerialAttempt(attempt)) {
+            serialLock.lock();
+            serial = true;
+            while (running.sum() > 0) {
+                Thread.onSpinWait();
+            }
+            return;
+        }
+        while (true) {
+            while (serial) {
+                Thread.yield();
+            }
+            running.increment();
+            if (!serial) return;
+            running.decrement();
+        }
+    }
+
+    @Override
+    public void afterAttempt(int attempt, boolean committed) {
+        if (isSerialAttempt(attempt)) {
+            serial = false;
+            serialLock.unlock();
+        } else {
+            running.decrement();
+        }
+    }
+
+    @Override
+    public void onAbort(int attempt) {
+        if (!isSerialAttempt(attempt + 1)) backoff.onAbort(attempt);
+    }
+}
@@ -0,0 +1,57 @@
+package rlu;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary form of keys and values for the {@link WriteAheadLog}. {@link #write} may throw
+ * {@link java.nio.BufferOverflowException}; the log then retries with a larger buffer.
+ */
+public interface Serializer<T> {
+    void write(T value, ByteBuffer out);
+
+    T read(ByteBuffer in);
+
+    Serializer<Integer> INTEGER = new Serializer<>() {
+        @Override
+        public void write(Integer value, ByteBuffer out) {
+            out.putInt(value);
+        }
+
+        @Override
+        public Integer read(ByteBuffer in) {
+            return in.getInt();
+        }
+    };
+
+    Serializer<Long> LONG = new Serializer<>() {
+        @Override
+        public void write(Long value, ByteBuffer out) {
+            out.putLong(value);
+        }
+
+        @Override
+        public Long read(ByteBuffer in) {
+            return in.getLong();
+        }
+    };
+
+    /**
+     * UTF-8 bytes behind an int length.
+     */
+    Serializer<String> STRING = new Serializer<>() {
+        @Override
+        public void write(String value, ByteBuffer out) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.putInt(bytes.length);
+            out.put(bytes);
+        }
+
+        @Override
+        public String read(ByteBuffer in) {
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+}
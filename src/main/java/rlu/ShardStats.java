@@ -0,0 +1,80 @@
+package rlu;
+
+/**
+ * Counters of one {@link MainLog} shard, read at one moment. Commit counts are only kept when
+ * {@link RLUConfig#metrics} is on; the entry count always is.
+ */
+public final class ShardStats {
+    private final int shard;
+    private final long entries;
+    private final long writes;
+    private final long conflicts;
+    private final long singleShardCommits;
+    private final long compacted;
+    private final long combinedCommits;
+
+    ShardStats(int shard, long entries, long writes, long conflicts, long singleShardCommits, long compacted,
+               long combinedCommits) {
+        this.shard = shard;
+        this.entries = entries;
+        this.writes = writes;
+        this.conflicts = conflicts;
+        this.singleShardCommits = singleShardCommits;
+        this.compacted = compacted;
+        this.combinedCommits = combinedCommits;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    /**
+     * @return keys with an entry in this shard, including removed ones not yet compacted
+     */
+    public long getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return values published to this shard
+     */
+    public long getWrites() {
+        return writes;
+    }
+
+    /**
+     * @return commits that failed on a key of this shard
+     */
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * @return batches that touched only this shard
+     */
+    public long getSingleShardCommits() {
+        return singleShardCommits;
+    }
+
+    /**
+     * @return removed keys whose entries compaction unlinked from this shard
+     */
+    public long getCompacted() {
+        return compacted;
+    }
+
+    /**
+     * @return batches this shard's combiner applied for a thread other than its own; 0 unless
+     *         {@link RLUConfig#combining} is on
+     */
+    public long getCombinedCommits() {
+        return combinedCommits;
+    }
+
+    @Override
+    public String toString() {
+        return "shard " + shard + ": entries=" + entries + " writes=" + writes
+                + " conflicts=" + conflicts + " singleShardCommits=" + singleShardCommits + " compacted=" + compacted
+                + " combinedCommits=" + combinedCommits;
+    }
+}
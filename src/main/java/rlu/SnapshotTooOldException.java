@@ -0,0 +1,11 @@
+package rlu;
+
+/**
+ * Thrown by a snapshot read when the version it needs was dropped because the key's version
+ * chain reached its bound. Retrying with a fresh snapshot succeeds.
+ */
+public class SnapshotTooOldException extends IllegalStateException {
+    public SnapshotTooOldException(Object key, long snapshot) {
+        super("Snapshot " + snapshot + " is too old to read key " + key);
+    }
+}
@@ -0,0 +1,50 @@
+package rlu;
+
+/**
+ * Layout of the 64-bit stamps that guard primitive log slots.
+ * <pre>
+ *   63..32  logical version (what commits validate against)
+ *   31..2   write sequence (bumped by every write so seqlock readers never see ABA)
+ *   1       present (the key has a value)
+ *   0       locked (a writer is between lock and publish)
+ * </pre>
+ */
+final class Stamp {
+    private static final long LOCKED = 1L;
+    private static final long PRESENT = 2L;
+    private static final long SEQ_STEP = 4L;
+    private static final long SEQ_MASK = 0xFFFFFFFCL;
+
+    /**
+     * Version of an entry compaction has unlinked from its {@link MainLog}. No commit can lock
+     * it, and a read recorded at it is always stale.
+     */
+    static final int RETIRED = Integer.MIN_VALUE;
+
+    private Stamp() {
+    }
+
+    static int version(long stamp) {
+        return (int) (stamp >>> 32);
+    }
+
+    static boolean isLocked(long stamp) {
+        return (stamp & LOCKED) != 0;
+    }
+
+    static boolean isPresent(long stamp) {
+        return (stamp & PRESENT) != 0;
+    }
+
+    static long locked(long stamp) {
+        return stamp | LOCKED;
+    }
+
+    /**
+     * The stamp to publish after a write that started from {@code stamp}.
+     */
+    static long next(long stamp, int version, boolean present) {
+        long seq = ((stamp & 0xFFFFFFFFL) + SEQ_STEP) & SEQ_MASK;
+        return ((long) version << 32) | seq | (present ? PRESENT : 0L);
+    }
+}
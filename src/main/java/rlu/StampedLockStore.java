@@ -0,0 +1,81 @@
+package rlu;
+
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+/**
+ * Baseline {@link TransactionalStore}: one map behind a {@link StampedLock}. A read first
+ * runs optimistically, without locking, and succeeds if no writer got in meanwhile; a torn
+ * read of the map mid-update is discarded with the attempt. Transactions run arbitrary code,
+ * which must not see a map being written, so they start under the read lock and, on their
+ * first write, run again under the write lock, converted from the read lock in place when no
+ * other reader holds it.
+ */
+public class StampedLockStore<T> implements TransactionalStore<T> {
+    private final StampedLock lock = new StampedLock();
+    private final Map<T, T> map;
+    private final ThreadLocal<BufferedTransaction<T>> transactions = ThreadLocal.withInitial(BufferedTransaction::new);
+
+    public StampedLockStore() {
+        this(false);
+    }
+
+    /**
+     * @param ordered keep keys sorted, so transactions can scan
+     */
+    public StampedLockStore(boolean ordered) {
+        this.map = BufferedTransaction.newMap(ordered);
+    }
+
+    @Override
+    public T read(T key) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                T value = map.get(key);
+                if (lock.validate(stamp)) return value;
+            } catch (RuntimeException e) {
+                // torn read of a map being written; read again under the lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return map.get(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public <R> R atomically(Function<Transaction<T>, R> body) {
+        BufferedTransaction<T> tx = transactions.get();
+        long stamp = lock.readLock();
+        try {
+            tx.begin(map, true);
+            try {
+                return body.apply(tx);
+            } catch (BufferedTransaction.Upgrade e) {
+                // wrote: run again exclusively
+            } finally {
+                tx.end();
+            }
+            long writeStamp = lock.tryConvertToWriteLock(stamp); // in place if no other reader holds it
+            if (writeStamp == 0L) {
+                lock.unlockRead(stamp);
+                writeStamp = lock.writeLock();
+            }
+            stamp = writeStamp;
+            tx.begin(map, false);
+            try {
+                R result = body.apply(tx);
+                tx.applyTo(map);
+                return result;
+            } finally {
+                tx.end();
+            }
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package rlu;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Per-thread state kept in an array of cache-line-padded slots. A thread finds its slot with a
+ * single ThreadLocal lookup; slots are handed back by {@link #deregister()} or reclaimed from
+ * threads that have died, so the array only grows with the number of live threads.
+ */
+public class ThreadRegistry<S> {
+
+    // Padding on both sides keeps two threads' slots off the same cache line
+    static class SlotPadLeft {
+        long p00, p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    static class SlotFields<S> extends SlotPadLeft {
+        volatile Thread owner;
+        S state;
+    }
+
+    public static final class Slot<S> extends SlotFields<S> {
+        long p10, p11, p12, p13, p14, p15, p16, p17;
+
+        public S getState() {
+            return state;
+        }
+
+        /**
+         * @return true if a live thread owns this slot
+         */
+        public boolean isActive() {
+            Thread t = owner;
+            return t != null && t.isAlive();
+        }
+    }
+
+    private final Supplier<S> factory;
+    private final Consumer<S> reset;
+    private final ThreadLocal<Slot<S>> current = new ThreadLocal<>();
+    private volatile Slot<S>[] slots;
+
+    /**
+     * @param factory creates the state of a new slot
+     * @param reset   clears state left behind by a thread before the slot is reused
+     */
+    @SuppressWarnings("unchecked")
+    public ThreadRegistry(Supplier<S> factory, Consumer<S> reset) {
+        this.factory = factory;
+        this.reset = reset;
+        this.slots = (Slot<S>[]) new Slot[8];
+    }
+
+    /**
+     * Returns the calling thread's state, claiming a slot on first use.
+     */
+    public S get() {
+        Slot<S> slot = current.get();
+        if (slot != null && slot.owner == Thread.currentThread()) return slot.state;
+        return acquire().state;
+    }
+
+    /**
+     * Hands the calling thread's slot back for reuse.
+     */
+    public void deregister() {
+        Slot<S> slot = current.get();
+        current.remove();
+        if (slot != null && slot.owner == Thread.currentThread()) {
+            reset.accept(slot.state);
+            slot.owner = null;
+        }
+    }
+
+    /**
+     * The slot array, for iterating every thread's state. Entries may be null or unowned.
+     */
+    public Slot<S>[] slots() {
+        return slots;
+    }
+
+    /**
+     * @return number of slots allocated so far, bounded by the peak number of live threads
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+    private synchronized Slot<S> acquire() {
+        Thread self = Thread.currentThread();
+        Slot<S>[] array = slots;
+        Slot<S> free = null;
+        int emptyIndex = -1;
+        for (int i = 0; i < array.length; i++) {
+            Slot<S> slot = array[i];
+            if (slot == null) {
+                if (emptyIndex < 0) emptyIndex = i;
+                continue;
+            }
+            Thread owner = slot.owner;
+            if (owner == null) {
+                free = slot;
+                break;
+            }
+            if (!owner.isAlive() && free == null) free = slot;
+        }
+
+        if (free != null) {
+            if (free.owner != null) reset.accept(free.state); // reclaimed from a dead thread
+        } else {
+            if (emptyIndex < 0) {
+                emptyIndex = array.length;
+                slots = array = Arrays.copyOf(array, array.length * 2);
+            }
+            free = new Slot<>();
+            free.state = factory.get();
+            array[emptyIndex] = free;
+        }
+        free.owner = self;
+        slots = array; // volatile write publishes the new slot to iterating threads
+        current.set(free);
+        return free;
+    }
+}
@@ -0,0 +1,110 @@
+package rlu;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+
+/**
+ * The operations of a transaction on a {@link TransactionalStore}. A transaction body run by
+ * {@link TransactionalStore#atomically} gets one that the store commits itself. {@link RLU#begin()}
+ * returns an explicit handle, which the caller finishes with {@link #commit()} or
+ * {@link #abort()}; closing it aborts it unless it was already finished. Using a finished handle
+ * throws {@link IllegalStateException}.
+ */
+public interface Transaction<T> extends AutoCloseable {
+
+    /**
+     * @return the value of {@code key} as this transaction sees it, its own writes included
+     */
+    T read(T key);
+
+    /**
+     * Buffers a write, published at commit. A null value removes the key.
+     * @return false if the write dooms the transaction, which is then retried
+     */
+    boolean write(T key, T value);
+
+    /**
+     * @return false if the key was absent or the write doomed the transaction
+     */
+    boolean remove(T key);
+
+    /**
+     * Sets {@code key} to {@code merger.apply(current, operand)}, null {@code current} for an
+     * absent key. {@link RLU} applies it at commit to the latest value without validating
+     * the key's version, so merges never conflict; see {@link RLU#merge}. Stores that run
+     * transactions one at a time apply it right away.
+     * @return false if the write doomed the transaction
+     */
+    default boolean merge(T key, T operand, BinaryOperator<T> merger) {
+        return write(key, merger.apply(read(key), operand));
+    }
+
+    /**
+     * @return the values of {@code keys} as {@link #read} sees them, in the same order
+     */
+    default List<T> readAll(List<? extends T> keys) {
+        List<T> values = new ArrayList<>(keys.size());
+        for (T key : keys) values.add(read(key));
+        return values;
+    }
+
+    /**
+     * Buffers a write of every entry of {@code entries}.
+     * @return false if a write doomed the transaction; later entries were not written
+     */
+    default boolean writeAll(Map<? extends T, ? extends T> entries) {
+        for (Map.Entry<? extends T, ? extends T> e : entries.entrySet()) {
+            if (!write(e.getKey(), e.getValue())) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Removes those of {@code keys} that exist.
+     * @return false if a write doomed the transaction
+     */
+    default boolean removeAll(Collection<? extends T> keys) {
+        for (T key : keys) remove(key);
+        return true;
+    }
+
+    /**
+     * Drops this transaction's pending write of {@code key}, if any.
+     */
+    void discard(T key);
+
+    /**
+     * Lazily iterates the keys in {@code [from, to)} as this transaction sees them, in key
+     * order; null bounds are open. Keys this transaction wrote that did not exist before are
+     * not included.
+     *
+     * @throws IllegalStateException if the store is not ordered
+     */
+    Iterator<Map.Entry<T, T>> scan(T from, T to);
+
+    /**
+     * Publishes this handle's writes and finishes it. A transaction without writes commits
+     * unless, in serializable mode, a value it read has changed since.
+     *
+     * @return false if a conflicting commit got in first and nothing was published
+     * @throws IllegalStateException on a transaction run by {@code atomically}
+     */
+    boolean commit();
+
+    /**
+     * Drops this handle's writes and finishes it.
+     *
+     * @throws IllegalStateException on a transaction run by {@code atomically}
+     */
+    void abort();
+
+    /**
+     * Aborts a handle unless it was already committed or aborted.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,24 @@
+package rlu;
+
+import java.util.function.Function;
+
+/**
+ * A transactional key-value store, so that workloads can run unchanged against {@link RLU} and
+ * the lock-based baselines: {@link GlobalLockStore}, {@link ReadWriteLockStore},
+ * {@link StampedLockStore} and {@link CopyOnWriteStore}. Values are never null; writing null
+ * removes a key.
+ */
+public interface TransactionalStore<T> {
+
+    /**
+     * @return the committed value of {@code key}, or null if it is absent
+     */
+    T read(T key);
+
+    /**
+     * Runs {@code body} as a transaction and commits it, re-executing the body until a commit
+     * succeeds. The body must not have side effects outside the transaction, since it may run
+     * more than once. If it throws, its writes are discarded and the exception propagates.
+     */
+    <R> R atomically(Function<Transaction<T>, R> body);
+}
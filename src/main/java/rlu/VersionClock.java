@@ -0,0 +1,103 @@
+package rlu;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Commit timestamps and reader epochs of the multi-version mode. Every commit takes the next
+ * timestamp once it holds its locks; a snapshot reads the clock when it starts and sees exactly
+ * the commits stamped at or before that time. Each thread announces its snapshot in a
+ * {@link ThreadRegistry} slot so committers can tell which old versions nobody can see any more;
+ * explicit {@link Transaction} handles announce theirs in a reader of their own.
+ */
+public class VersionClock {
+    private static final long IDLE = Long.MAX_VALUE;
+
+    static final class Reader {
+        volatile long announced = IDLE; // lower bound of the snapshot, scanned by committers
+        long snapshot = -1L;            // the snapshot this thread reads at, -1 outside one
+    }
+
+    private final AtomicLong clock = new AtomicLong(0);
+    private final ThreadRegistry<Reader> readers = new ThreadRegistry<>(Reader::new, VersionClock::idle);
+    private final ConcurrentLinkedQueue<Reader> handleReaders = new ConcurrentLinkedQueue<>();
+
+    private static void idle(Reader reader) {
+        reader.announced = IDLE;
+        reader.snapshot = -1L;
+    }
+
+    public long get() {
+        return clock.get();
+    }
+
+    /**
+     * Stamps a commit. Callers must already hold the locks of every entry they publish.
+     */
+    long next() {
+        return clock.incrementAndGet();
+    }
+
+    /**
+     * Starts a snapshot for the calling thread, or returns the one it is already in.
+     */
+    public long begin() {
+        return begin(readers.get());
+    }
+
+    /**
+     * A reader not bound to any thread, for a pooled transaction log.
+     */
+    Reader newReader() {
+        Reader reader = new Reader();
+        handleReaders.add(reader);
+        return reader;
+    }
+
+    void removeReader(Reader reader) {
+        handleReaders.remove(reader);
+    }
+
+    long begin(Reader reader) {
+        if (reader.snapshot >= 0) return reader.snapshot;
+        // Announce first, then read the clock again: a committer that missed the announcement
+        // read its horizon before this second read, so it cannot reclaim what we will see.
+        reader.announced = clock.get();
+        reader.snapshot = clock.get();
+        return reader.snapshot;
+    }
+
+    public void end() {
+        idle(readers.get());
+    }
+
+    void end(Reader reader) {
+        idle(reader);
+    }
+
+    /**
+     * @return the calling thread's snapshot, or -1 outside one
+     */
+    public long snapshot() {
+        return readers.get().snapshot;
+    }
+
+    /**
+     * Oldest timestamp any running or future snapshot can read at. For each entry the newest
+     * version stamped at or before it must be kept; everything older can be dropped. Threads
+     * that died inside a snapshot are ignored.
+     */
+    long horizon() {
+        long min = clock.get();
+        for (ThreadRegistry.Slot<Reader> slot : readers.slots()) {
+            if (slot == null) continue;
+            long announced = slot.getState().announced;
+            if (announced < min && slot.isActive()) min = announced;
+        }
+        for (Reader reader : handleReaders) {
+            long announced = reader.announced;
+            if (announced < min) min = announced;
+        }
+        return min;
+    }
+}
@@ -0,0 +1,223 @@
+package rlu;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One scenario for {@link WorkloadDriver}, read from YCSB-style properties. Keys are the
+ * integers {@code [0, recordcount)}, loaded before the run; inserts add new keys above them.
+ *
+ * <pre>
+ *   recordcount            keys loaded before the run                 100000
+ *   readproportion         share of reads                             0.95
+ *   updateproportion       share of writes to existing keys           0.05
+ *   insertproportion       share of writes of new keys                0
+ *   removeproportion       share of removes                           0
+ *   readmodifywriteproportion  share of read-then-write of one key    0
+ *   scanproportion         share of range scans (orders the store)    0
+ *   maxscanlength          scans read 1 to this many keys             100
+ *   requestdistribution    uniform, zipfian, hotspot or latest        uniform
+ *   zipfianconstant        skew of zipfian and latest                 0.99
+ *   hotspotdatafraction    hot share of the keys                      0.2
+ *   hotspotopnfraction     share of operations on hot keys            0.8
+ *   opspertransaction      operations committed together              1
+ *   threadcount            comma-separated thread counts to run       1
+ *   warmupms, runms        warmup and measured time per thread count  1000, 5000
+ *   store                  comma-separated, see below                 rlu
+ *   bucketcount            buckets of the hashset store               recordcount / 100
+ *   shards, serializable, multiversion, globalclock                   as in {@link RLUConfig}
+ * </pre>
+ *
+ * The proportions must add up to 1. The stores are {@code rlu}; the {@link TransactionalStore}
+ * baselines {@code globallock}, {@code rwlock}, {@code stamped} and {@code cow}; and
+ * {@code hashset}, an {@link RLUHashSet}, which only runs single reads, updates, inserts and
+ * removes. Baselines keep their keys sorted when the scenario scans.
+ */
+final class Workload {
+    enum Op {READ, UPDATE, INSERT, REMOVE, READMODIFYWRITE, SCAN}
+
+    static final List<String> STORES = List.of("rlu", "globallock", "rwlock", "stamped", "cow", "hashset");
+
+    final String name;
+    final long recordCount;
+    final double[] proportions = new double[Op.values().length];
+    final int maxScanLength;
+    final String distribution;
+    final double zipfianConstant;
+    final double hotspotDataFraction;
+    final double hotspotOpnFraction;
+    final int opsPerTransaction;
+    final int[] threadCounts;
+    final long warmupMillis;
+    final long runMillis;
+    final String[] stores;
+    final int bucketCount;
+    final int shards;
+    final boolean serializable;
+    final int multiVersion;
+    final boolean globalClock;
+
+    Workload(String name, Properties p) {
+        this.name = name;
+        this.recordCount = longProperty(p, "recordcount", 100_000);
+        proportions[Op.READ.ordinal()] = doubleProperty(p, "readproportion", 0.95);
+        proportions[Op.UPDATE.ordinal()] = doubleProperty(p, "updateproportion", 0.05);
+        proportions[Op.INSERT.ordinal()] = doubleProperty(p, "insertproportion", 0);
+        proportions[Op.REMOVE.ordinal()] = doubleProperty(p, "removeproportion", 0);
+        proportions[Op.READMODIFYWRITE.ordinal()] = doubleProperty(p, "readmodifywriteproportion", 0);
+        proportions[Op.SCAN.ordinal()] = doubleProperty(p, "scanproportion", 0);
+        this.maxScanLength = (int) longProperty(p, "maxscanlength", 100);
+        this.distribution = p.getProperty("requestdistribution", "uniform");
+        this.zipfianConstant = doubleProperty(p, "zipfianconstant", 0.99);
+        this.hotspotDataFraction = doubleProperty(p, "hotspotdatafraction", 0.2);
+        this.hotspotOpnFraction = doubleProperty(p, "hotspotopnfraction", 0.8);
+        this.opsPerTransaction = (int) longProperty(p, "opspertransaction", 1);
+        this.threadCounts = intList(p, "threadcount", "1");
+        this.warmupMillis = longProperty(p, "warmupms", 1000);
+        this.runMillis = longProperty(p, "runms", 5000);
+        this.stores = p.getProperty("store", "rlu").split("\\s*,\\s*");
+        this.bucketCount = (int) longProperty(p, "bucketcount", Math.max(1, Math.min(Integer.MAX_VALUE, recordCount / 100)));
+        this.shards = (int) longProperty(p, "shards", 1);
+        this.serializable = Boolean.parseBoolean(p.getProperty("serializable", "false"));
+        this.multiVersion = (int) longProperty(p, "multiversion", 0);
+        this.globalClock = Boolean.parseBoolean(p.getProperty("globalclock", "false"));
+
+        double total = 0;
+        for (double share : proportions) {
+            if (share < 0) throw new IllegalArgumentException(name + ": proportions must be >= 0");
+            total += share;
+        }
+        if (Math.abs(total - 1.0) > 1e-9) throw new IllegalArgumentException(name + ": proportions add up to " + total + ", not 1");
+        if (recordCount < 1) throw new IllegalArgumentException(name + ": recordcount must be >= 1");
+        if (opsPerTransaction < 1) throw new IllegalArgumentException(name + ": opspertransaction must be >= 1");
+        if (maxScanLength < 1) throw new IllegalArgumentException(name + ": maxscanlength must be >= 1");
+        for (String store : stores) {
+            if (!STORES.contains(store)) throw new IllegalArgumentException(name + ": unknown store " + store);
+            if (store.equals("hashset") && (opsPerTransaction > 1 || share(Op.SCAN) > 0 || share(Op.READMODIFYWRITE) > 0)) {
+                throw new IllegalArgumentException(name + ": the hashset store runs single reads, updates, inserts and removes only");
+            }
+        }
+        if (globalClock && share(Op.SCAN) > 0) throw new IllegalArgumentException(name + ": the global-clock engine cannot scan");
+        if (!List.of("uniform", "zipfian", "hotspot", "latest").contains(distribution)) {
+            throw new IllegalArgumentException(name + ": unknown requestdistribution " + distribution);
+        }
+    }
+
+    /**
+     * Reads a scenario from a properties file, or from a resource under {@code workloads/} if
+     * there is no such file, e.g. {@code ycsb-a}. Later overrides win over the file.
+     */
+    static Workload load(String source, Properties overrides) {
+        Properties p = new Properties();
+        Path file = Path.of(source);
+        try {
+            if (Files.exists(file)) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    p.load(in);
+                }
+            } else {
+                String resource = "workloads/" + (source.endsWith(".properties") ? source : source + ".properties");
+                try (InputStream in = Workload.class.getClassLoader().getResourceAsStream(resource)) {
+                    if (in == null) throw new IllegalArgumentException("No workload file or resource " + source);
+                    p.load(in);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read workload " + source, e);
+        }
+        p.putAll(overrides);
+        String name = file.getFileName().toString().replaceFirst("\\.properties$", "");
+        return new Workload(name, p);
+    }
+
+    double share(Op op) {
+        return proportions[op.ordinal()];
+    }
+
+    boolean ordered() {
+        return share(Op.SCAN) > 0;
+    }
+
+    Op nextOp(SplittableRandom random) {
+        double u = random.nextDouble();
+        Op[] ops = Op.values();
+        for (Op op : ops) {
+            u -= proportions[op.ordinal()];
+            if (u < 0) return op;
+        }
+        for (int i = ops.length - 1; ; i--) {
+            if (proportions[i] > 0) return ops[i]; // rounding left u just above 0
+        }
+    }
+
+    /**
+     * @param inserted the next key an insert will use, counted up by the driver
+     */
+    KeyChooser keyChooser(AtomicLong inserted) {
+        switch (distribution) {
+            case "uniform":
+                return KeyChooser.uniform(recordCount);
+            case "zipfian":
+                return KeyChooser.zipfian(recordCount, zipfianConstant);
+            case "hotspot":
+                return KeyChooser.hotspot(recordCount, hotspotDataFraction, hotspotOpnFraction);
+            case "latest":
+                return KeyChooser.latest(inserted, recordCount, zipfianConstant);
+            default:
+                throw new IllegalArgumentException(name + ": unknown requestdistribution " + distribution);
+        }
+    }
+
+    /**
+     * @return an empty {@code store}, other than {@code hashset}
+     */
+    TransactionalStore<Integer> newStore(String store) {
+        switch (store) {
+            case "rlu":
+                return new RLU<>(config());
+            case "globallock":
+                return new GlobalLockStore<>(ordered());
+            case "rwlock":
+                return new ReadWriteLockStore<>(ordered());
+            case "stamped":
+                return new StampedLockStore<>(ordered());
+            case "cow":
+                return new CopyOnWriteStore<>(ordered());
+            default:
+                throw new IllegalArgumentException("Not a transactional store: " + store);
+        }
+    }
+
+    RLUConfig config() {
+        return new RLUConfig().bucketSize((int) Math.min(Integer.MAX_VALUE, recordCount)).shards(shards)
+                .serializable(serializable).multiVersion(multiVersion).globalClock(globalClock).ordered(ordered());
+    }
+
+    private static long longProperty(Properties p, String key, long defaultValue) {
+        String value = p.getProperty(key);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    private static double doubleProperty(Properties p, String key, double defaultValue) {
+        String value = p.getProperty(key);
+        return value == null ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+    private static int[] intList(Properties p, String key, String defaultValue) {
+        List<Integer> values = new ArrayList<>();
+        for (String part : p.getProperty(key, defaultValue).split(",")) {
+            int value = Integer.parseInt(part.trim());
+            if (value < 1) throw new IllegalArgumentException(key + " must be >= 1");
+            values.add(value);
+        }
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,391 @@
+package rlu;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs {@link Workload} scenarios against {@link RLU}, the {@link TransactionalStore} baselines
+ * and {@link RLUHashSet}, and reports throughput and latency percentiles per operation, as CSV
+ * or JSON. When a run covers several stores, a table of their transaction throughput side by
+ * side follows on standard error.
+ *
+ * <pre>
+ *   java rlu.WorkloadDriver [-P workload]... [-p key=value]... [-format csv|json] [-out file]
+ * </pre>
+ *
+ * Each {@code -P} names a properties file, or a bundled scenario such as {@code ycsb-a}; each
+ * {@code -p} overrides a property of every scenario. Without {@code -P} the driver runs the
+ * bundled {@code mpp-*} scenarios. Every scenario loads its keys, warms up, then measures, once
+ * per store and thread count. Operation rows time each operation inside its transaction; the
+ * {@code TRANSACTION} row times whole transactions including commit and retries, and counts the
+ * retries as aborts.
+ */
+public final class WorkloadDriver {
+    private static final List<String> DEFAULT_SCENARIOS = List.of("mpp-2", "mpp-20", "mpp-40", "mpp-100");
+    private static final String TRANSACTION = "TRANSACTION";
+
+    private static final int WARMUP = 0;
+    private static final int MEASURE = 1;
+    private static final int STOP = 2;
+
+    private WorkloadDriver() {
+    }
+
+    /**
+     * Measured latencies and counts of one operation in one run.
+     */
+    static final class Row {
+        final String scenario;
+        final String store;
+        final int threads;
+        final String operation;
+        final LatencyHistogram latency;
+        final double seconds;
+        final long aborts;
+
+        Row(String scenario, String store, int threads, String operation, LatencyHistogram latency, double seconds, long aborts) {
+            this.scenario = scenario;
+            this.store = store;
+            this.threads = threads;
+            this.operation = operation;
+            this.latency = latency;
+            this.seconds = seconds;
+            this.aborts = aborts;
+        }
+
+        double throughput() {
+            return latency.count() / seconds;
+        }
+    }
+
+    public static void main(String[] args) {
+        List<String> sources = new ArrayList<>();
+        Properties overrides = new Properties();
+        String format = "csv";
+        Path out = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 == args.length) throw new IllegalArgumentException("Missing value after " + arg);
+            String value = args[++i];
+            switch (arg) {
+                case "-P":
+                    sources.add(value);
+                    break;
+                case "-p":
+                    int eq = value.indexOf('=');
+                    if (eq < 1) throw new IllegalArgumentException("Expected key=value after -p, got " + value);
+                    overrides.setProperty(value.substring(0, eq), value.substring(eq + 1));
+                    break;
+                case "-format":
+                    if (!value.equals("csv") && !value.equals("json")) throw new IllegalArgumentException("Unknown format " + value);
+                    format = value;
+                    break;
+                case "-out":
+                    out = Path.of(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (sources.isEmpty()) sources.addAll(DEFAULT_SCENARIOS);
+
+        List<Workload> workloads = new ArrayList<>();
+        for (String source : sources) workloads.add(Workload.load(source, overrides)); // fail before running any
+        List<Row> rows = new ArrayList<>();
+        for (Workload workload : workloads) rows.addAll(run(workload));
+        if (rows.stream().map(row -> row.store).distinct().count() > 1) writeComparison(rows, System.err);
+
+        if (out == null) {
+            write(rows, format, System.out);
+        } else {
+            try (PrintStream stream = new PrintStream(Files.newOutputStream(out), false, "UTF-8")) {
+                write(rows, format, stream);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write " + out, e);
+            }
+        }
+    }
+
+    /**
+     * Runs {@code workload} once per store and thread count.
+     */
+    static List<Row> run(Workload workload) {
+        List<Row> rows = new ArrayList<>();
+        for (String store : workload.stores) {
+            for (int threads : workload.threadCounts) {
+                System.err.println("Running " + workload.name + " on " + store + " with " + threads + " threads");
+                rows.addAll(run(workload, store, threads));
+            }
+        }
+        return rows;
+    }
+
+    private static List<Row> run(Workload workload, String store, int threads) {
+        TransactionalStore<Integer> kv = null;
+        RLUHashSet<Integer> set = null;
+        if (!store.equals("hashset")) {
+            kv = workload.newStore(store);
+            load(kv, workload.recordCount);
+        } else {
+            set = new RLUHashSet<>(workload.bucketCount);
+            for (int key = 0; key < workload.recordCount; key++) set.add(key);
+        }
+
+        AtomicLong inserted = new AtomicLong(workload.recordCount);
+        KeyChooser keys = workload.keyChooser(inserted);
+        Phase phase = new Phase();
+        SplittableRandom seeds = new SplittableRandom();
+        Worker[] workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(workload, keys, inserted, phase, seeds.split(), kv, set);
+            workers[i].start();
+        }
+
+        long measured;
+        try {
+            Thread.sleep(workload.warmupMillis);
+            phase.value = MEASURE;
+            long start = System.nanoTime();
+            Thread.sleep(workload.runMillis);
+            phase.value = STOP;
+            measured = System.nanoTime() - start;
+            for (Worker worker : workers) worker.join();
+        } catch (InterruptedException e) {
+            phase.value = STOP;
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running " + workload.name, e);
+        }
+        double seconds = measured / 1e9;
+
+        Map<Workload.Op, LatencyHistogram> perOp = new EnumMap<>(Workload.Op.class);
+        LatencyHistogram transactions = new LatencyHistogram();
+        long aborts = 0;
+        for (Worker worker : workers) {
+            worker.ops.forEach((op, histogram) -> perOp.computeIfAbsent(op, o -> new LatencyHistogram()).add(histogram));
+            transactions.add(worker.transactions);
+            aborts += worker.aborts;
+        }
+        List<Row> rows = new ArrayList<>();
+        perOp.forEach((op, histogram) -> {
+            if (histogram.count() > 0) rows.add(new Row(workload.name, store, threads, op.name(), histogram, seconds, 0));
+        });
+        rows.add(new Row(workload.name, store, threads, TRANSACTION, transactions, seconds, aborts));
+        return rows;
+    }
+
+    private static void load(TransactionalStore<Integer> store, long records) {
+        for (long batch = 0; batch < records; batch += 1000) {
+            int from = (int) batch;
+            int to = (int) Math.min(records, batch + 1000);
+            store.atomically(tx -> {
+                for (int key = from; key < to; key++) tx.write(key, key);
+                return null;
+            });
+        }
+    }
+
+    private static final class Phase {
+        volatile int value = WARMUP;
+    }
+
+    private static final class Worker extends Thread {
+        private final Workload workload;
+        private final KeyChooser keys;
+        private final AtomicLong inserted;
+        private final Phase phase;
+        private final SplittableRandom random;
+        private final TransactionalStore<Integer> store;
+        private final RLUHashSet<Integer> set;
+
+        final Map<Workload.Op, LatencyHistogram> ops = new EnumMap<>(Workload.Op.class);
+        final LatencyHistogram transactions = new LatencyHistogram();
+        long aborts;
+
+        private final Workload.Op[] txOps;
+        private final int[] txKeys;
+        private final int[] txLengths;
+        private boolean measuring;
+        private int attempts;
+
+        Worker(Workload workload, KeyChooser keys, AtomicLong inserted, Phase phase, SplittableRandom random,
+               TransactionalStore<Integer> store, RLUHashSet<Integer> set) {
+            this.workload = workload;
+            this.keys = keys;
+            this.inserted = inserted;
+            this.phase = phase;
+            this.random = random;
+            this.store = store;
+            this.set = set;
+            for (Workload.Op op : Workload.Op.values()) ops.put(op, new LatencyHistogram());
+            this.txOps = new Workload.Op[workload.opsPerTransaction];
+            this.txKeys = new int[workload.opsPerTransaction];
+            this.txLengths = new int[workload.opsPerTransaction];
+        }
+
+        @Override
+        public void run() {
+            int current;
+            while ((current = phase.value) != STOP) {
+                measuring = current == MEASURE;
+                choose(); // before the transaction, so retries repeat the same operations
+                long start = System.nanoTime();
+                attempts = 0;
+                if (store != null) {
+                    store.atomically(this::apply);
+                } else {
+                    applyToSet();
+                }
+                if (measuring) {
+                    transactions.record(System.nanoTime() - start);
+                    aborts += attempts - 1;
+                }
+            }
+        }
+
+        private void choose() {
+            for (int i = 0; i < txOps.length; i++) {
+                Workload.Op op = workload.nextOp(random);
+                txOps[i] = op;
+                txKeys[i] = (int) (op == Workload.Op.INSERT ? inserted.getAndIncrement() : keys.next(random));
+                txLengths[i] = op == Workload.Op.SCAN ? 1 + random.nextInt(workload.maxScanLength) : 0;
+            }
+        }
+
+        private Object apply(Transaction<Integer> tx) {
+            attempts++;
+            for (int i = 0; i < txOps.length; i++) {
+                int key = txKeys[i];
+                long start = System.nanoTime();
+                switch (txOps[i]) {
+                    case READ:
+                        tx.read(key);
+                        break;
+                    case UPDATE:
+                    case INSERT:
+                        tx.write(key, key);
+                        break;
+                    case REMOVE:
+                        tx.remove(key);
+                        break;
+                    case READMODIFYWRITE:
+                        Integer value = tx.read(key);
+                        tx.write(key, value == null ? 1 : value + 1);
+                        break;
+                    case SCAN:
+                        Iterator<Map.Entry<Integer, Integer>> it = tx.scan(key, null);
+                        for (int n = 0; n < txLengths[i] && it.hasNext(); n++) it.next();
+                        break;
+                }
+                if (measuring) ops.get(txOps[i]).record(System.nanoTime() - start);
+            }
+            return null;
+        }
+
+        private void applyToSet() {
+            attempts = 1;
+            int key = txKeys[0];
+            long start = System.nanoTime();
+            switch (txOps[0]) {
+                case READ:
+                    set.contains(key);
+                    break;
+                case UPDATE:
+                case INSERT:
+                    set.add(key);
+                    break;
+                case REMOVE:
+                    set.remove(key);
+                    break;
+                default:
+                    throw new IllegalStateException("The hashset store cannot run " + txOps[0]);
+            }
+            if (measuring) ops.get(txOps[0]).record(System.nanoTime() - start);
+        }
+    }
+
+    static void write(List<Row> rows, String format, PrintStream out) {
+        if (format.equals("json")) {
+            writeJson(rows, out);
+        } else {
+            writeCsv(rows, out);
+        }
+        out.flush();
+    }
+
+    private static void writeCsv(List<Row> rows, PrintStream out) {
+        out.println("scenario,store,threads,operation,count,ops_per_sec,mean_us,p50_us,p95_us,p99_us,p999_us,max_us,aborts");
+        for (Row row : rows) {
+            LatencyHistogram h = row.latency;
+            out.println(String.format(Locale.ROOT, "%s,%s,%d,%s,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%d",
+                    row.scenario, row.store, row.threads, row.operation, h.count(), row.throughput(), h.mean() / 1e3,
+                    micros(h.percentile(0.50)), micros(h.percentile(0.95)), micros(h.percentile(0.99)),
+                    micros(h.percentile(0.999)), micros(h.max()), row.aborts));
+        }
+    }
+
+    private static void writeJson(List<Row> rows, PrintStream out) {
+        out.println("[");
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            LatencyHistogram h = row.latency;
+            out.print(String.format(Locale.ROOT,
+                    "  {\"scenario\": %s, \"store\": %s, \"threads\": %d, \"operation\": %s, \"count\": %d, "
+                            + "\"opsPerSec\": %.1f, \"latencyMicros\": {\"mean\": %.3f, \"p50\": %.3f, \"p95\": %.3f, "
+                            + "\"p99\": %.3f, \"p999\": %.3f, \"max\": %.3f}, \"aborts\": %d}",
+                    quote(row.scenario), quote(row.store), row.threads, quote(row.operation), h.count(), row.throughput(),
+                    h.mean() / 1e3, micros(h.percentile(0.50)), micros(h.percentile(0.95)), micros(h.percentile(0.99)),
+                    micros(h.percentile(0.999)), micros(h.max()), row.aborts));
+            out.println(i + 1 < rows.size() ? "," : "");
+        }
+        out.println("]");
+    }
+
+    /**
+     * Transactions per second of each store, one column per store, one line per scenario and
+     * thread count.
+     */
+    static void writeComparison(List<Row> rows, PrintStream out) {
+        List<String> stores = new ArrayList<>();
+        Map<String, Map<String, Double>> lines = new LinkedHashMap<>();
+        for (Row row : rows) {
+            if (!row.operation.equals(TRANSACTION)) continue;
+            if (!stores.contains(row.store)) stores.add(row.store);
+            lines.computeIfAbsent(row.scenario + "," + row.threads, k -> new HashMap<>()).put(row.store, row.throughput());
+        }
+        StringBuilder header = new StringBuilder(String.format(Locale.ROOT, "%-24s %7s", "transactions/s", "threads"));
+        for (String store : stores) header.append(String.format(Locale.ROOT, " %12s", store));
+        out.println(header);
+        lines.forEach((line, byStore) -> {
+            int comma = line.lastIndexOf(',');
+            StringBuilder text = new StringBuilder(String.format(Locale.ROOT, "%-24s %7s", line.substring(0, comma), line.substring(comma + 1)));
+            for (String store : stores) {
+                Double throughput = byStore.get(store);
+                text.append(throughput == null ? String.format(Locale.ROOT, " %12s", "-") : String.format(Locale.ROOT, " %12.0f", throughput));
+            }
+            out.println(text);
+        });
+        out.flush();
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1e3;
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
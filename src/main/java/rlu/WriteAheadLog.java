@@ -0,0 +1,420 @@
+package rlu;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of committed batches in memory-mapped segment files {@code wal-<n>.log}.
+ * A batch is serialized outside any lock, copied into the mapped segment while the committer
+ * still holds its entry locks (so conflicting batches are logged in commit order), and in
+ * {@link Durability#GROUP_SYNC} mode the committer then waits until a force covers its record;
+ * whoever takes the force lock forces everything appended so far, so concurrent committers
+ * share one force.
+ *
+ * <p>Record layout: payload length, CRC32C of the payload, then the payload: entry count and
+ * per entry a present flag, the key and, if present, the value. Replay stops at the first
+ * zero length; a torn record at the end of the last segment is dropped.
+ */
+public class WriteAheadLog<T> implements AutoCloseable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    static final long ASYNC_FORCE_MILLIS = 10;
+
+    private static final int MAGIC = 0x524C5557; // "RLUW"
+    private static final int FORMAT = 1;
+    private static final int SEGMENT_HEADER = 8;
+    private static final int RECORD_HEADER = 8;
+
+    private static final class Scratch {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        final CRC32C crc = new CRC32C();
+    }
+
+    private static final class Segment {
+        final int number;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+
+        Segment(int number, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.number = number;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    private final Path directory;
+    private final Serializer<T> serializer;
+    private final Durability durability;
+    private final int segmentSize;
+    private final ThreadRegistry<Scratch> scratch = new ThreadRegistry<>(Scratch::new, s -> { });
+    private final ReentrantLock forceLock = new ReentrantLock();
+    private final Thread forcer; // null unless ASYNC
+
+    private volatile Segment[] segments = new Segment[0]; // replaced on rollover and truncation
+    private Segment current;                                // guarded by this
+    private int offset;                                     // guarded by this
+    private volatile long appended;                         // end of the last complete record
+    private volatile long durable;                          // everything before it is forced
+    private volatile boolean closed;
+
+    /**
+     * Opens the log in {@code directory}, creating it if needed. Call {@link #replay} before
+     * the first append.
+     */
+    public WriteAheadLog(Path directory, Serializer<T> serializer, Durability durability, int segmentSize) {
+        if (segmentSize <= SEGMENT_HEADER + RECORD_HEADER) throw new IllegalArgumentException("segmentSize too small");
+        this.directory = directory;
+        this.serializer = serializer;
+        this.durability = durability;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            List<Segment> existing = new ArrayList<>();
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path path : (Iterable<Path>) files.filter(WriteAheadLog::isSegment).sorted()::iterator) {
+                    existing.add(map(segmentNumber(path), path));
+                }
+            }
+            segments = existing.toArray(new Segment[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-ahead log in " + directory, e);
+        }
+        if (durability == Durability.ASYNC) {
+            forcer = new Thread(this::forceLoop, "rlu-wal-forcer");
+            forcer.setDaemon(true);
+        } else {
+            forcer = null;
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith("wal-") && name.endsWith(".log");
+    }
+
+    private static int segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring(4, name.length() - 4));
+    }
+
+    private Segment map(int number, Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), segmentSize);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (buffer.getInt(0) == 0) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT);
+        } else if (buffer.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException(path + " is not a write-ahead log segment");
+        }
+        return new Segment(number, path, channel, buffer);
+    }
+
+    static long position(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+
+    /**
+     * @return the log position after the last appended record
+     */
+    public long position() {
+        return appended;
+    }
+
+    /**
+     * Applies every record at or after {@code from} in log order, then positions the log for
+     * appending after the last complete record.
+     *
+     * @param apply receives each key and its value, null for a removal
+     * @throws IllegalStateException if a segment other than the last is corrupt
+     */
+    public synchronized void replay(long from, BiConsumer<T, T> apply) {
+        Segment[] all = segments;
+        int tail = SEGMENT_HEADER;
+        for (int s = 0; s < all.length; s++) {
+            Segment segment = all[s];
+            MappedByteBuffer buffer = segment.buffer;
+            int off = SEGMENT_HEADER;
+            boolean torn = false;
+            while (off + RECORD_HEADER <= buffer.capacity()) {
+                int length = buffer.getInt(off);
+                if (length == 0) break;
+                if (length < 0 || off + RECORD_HEADER + length > buffer.capacity() || !checksumMatches(buffer, off, length)) {
+                    torn = true;
+                    break;
+                }
+                if (position(segment.number, off) >= from) {
+                    decode(buffer.slice(off + RECORD_HEADER, length), apply);
+                }
+                off += RECORD_HEADER + length;
+            }
+            if (torn && s < all.length - 1) {
+                throw new IllegalStateException("Write-ahead log segment " + segment.path + " is corrupt at offset " + off);
+            }
+            if (torn) {
+                for (int i = off; i < buffer.capacity(); i++) buffer.put(i, (byte) 0);
+            }
+            tail = off;
+        }
+        if (all.length == 0) {
+            current = addSegment(0);
+            offset = SEGMENT_HEADER;
+        } else {
+            current = all[all.length - 1];
+            offset = tail;
+        }
+        appended = durable = position(current.number, offset);
+        if (forcer != null && !forcer.isAlive()) forcer.start();
+    }
+
+    private static boolean checksumMatches(ByteBuffer buffer, int off, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(off + RECORD_HEADER, length));
+        return (int) crc.getValue() == buffer.getInt(off + 4);
+    }
+
+    private void decode(ByteBuffer payload, BiConsumer<T, T> apply) {
+        int count = payload.getInt();
+        for (int i = 0; i < count; i++) {
+            boolean present = payload.get() != 0;
+            T key = serializer.read(payload);
+            apply.accept(key, present ? serializer.read(payload) : null);
+        }
+    }
+
+    private Segment addSegment(int number) {
+        try {
+            Segment segment = map(number, directory.resolve(String.format("wal-%010d.log", number)));
+            forceDirectory(directory); // so forcing its records is enough to find them after a crash
+            Segment[] grown = Arrays.copyOf(segments, segments.length + 1);
+            grown[grown.length - 1] = segment;
+            segments = grown;
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create write-ahead log segment " + number, e);
+        }
+    }
+
+    private static void putEntry(ByteBuffer out, Serializer<?> serializer, Object key, Object value) {
+        out.put(value != null ? (byte) 1 : 0);
+        write(serializer, key, out);
+        if (value != null) write(serializer, value, out);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> void write(Serializer<V> serializer, Object value, ByteBuffer out) {
+        serializer.write((V) value, out);
+    }
+
+    /**
+     * Logs the pending entries of a write set whose lock order was prepared by the caller.
+     * @return the position to pass to {@link #awaitDurable}
+     */
+    long append(WriteSet<T> writeSet, int count) {
+        Scratch s = scratch.get();
+        while (true) {
+            ByteBuffer out = s.buffer;
+            out.clear();
+            try {
+                out.putInt(count);
+                for (int n = 0; n < count; n++) {
+                    int slot = writeSet.lockSlotAt(n);
+                    putEntry(out, serializer, writeSet.keyAt(slot), writeSet.valueAt(slot));
+                }
+                return append(s);
+            } catch (BufferOverflowException e) {
+                s.buffer = ByteBuffer.allocate(out.capacity() * 2);
+            }
+        }
+    }
+
+    /**
+     * Logs a single committed key, for commits that publish entries one at a time.
+     */
+    long append(T key, T value) {
+        Scratch s = scratch.get();
+        while (true) {
+            ByteBuffer out = s.buffer;
+            out.clear();
+            try {
+                out.putInt(1);
+                putEntry(out, serializer, key, value);
+                return append(s);
+            } catch (BufferOverflowException e) {
+                s.buffer = ByteBuffer.allocate(out.capacity() * 2);
+            }
+        }
+    }
+
+    private long append(Scratch s) {
+        ByteBuffer payload = s.buffer.flip();
+        int length = payload.remaining();
+        if (SEGMENT_HEADER + RECORD_HEADER + length > segmentSize) {
+            throw new IllegalArgumentException("Batch of " + length + " bytes does not fit a log segment");
+        }
+        s.crc.reset();
+        s.crc.update(payload);
+        payload.flip();
+        int crc = (int) s.crc.getValue();
+        synchronized (this) {
+            if (closed) throw new IllegalStateException("Write-ahead log is closed");
+            if (offset + RECORD_HEADER + length > current.buffer.capacity()) {
+                current = addSegment(current.number + 1); // the rest of the old one stays zero
+                offset = SEGMENT_HEADER;
+            }
+            MappedByteBuffer buffer = current.buffer;
+            buffer.put(offset + RECORD_HEADER, payload, 0, length);
+            buffer.putInt(offset + 4, crc);
+            buffer.putInt(offset, length);
+            offset += RECORD_HEADER + length;
+            long end = position(current.number, offset);
+            appended = end;
+            return end;
+        }
+    }
+
+    /**
+     * In {@link Durability#GROUP_SYNC} mode, returns once everything up to {@code end} is
+     * forced; in the other modes returns immediately.
+     */
+    void awaitDurable(long end) {
+        if (durability != Durability.GROUP_SYNC || durable >= end) return;
+        forceLock.lock(); // a force in progress may cover us; wait for it instead of starting one
+        try {
+            if (durable < end) forceAppended();
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    /**
+     * Forces every record appended so far. Callers hold the force lock.
+     */
+    private void forceAppended() {
+        long target = appended;
+        long from = durable;
+        for (Segment segment : segments) {
+            long segmentEnd = position(segment.number, segment.buffer.capacity());
+            if (segmentEnd <= from || position(segment.number, 0) >= target) continue;
+            int start = segment.number == (int) (from >>> 32) ? (int) from : 0;
+            int stop = segment.number == (int) (target >>> 32) ? (int) target : segment.buffer.capacity();
+            if (stop > start) segment.buffer.force(start, stop - start);
+        }
+        durable = target;
+    }
+
+    /**
+     * Forces everything appended so far, whatever the durability mode.
+     */
+    public void force() {
+        forceLock.lock();
+        try {
+            if (durable < appended) forceAppended();
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    private void forceLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(ASYNC_FORCE_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            force();
+        }
+    }
+
+    /**
+     * Deletes the segments that end at or before {@code position}, once their records are
+     * covered by a checkpoint. The segment being appended to is kept.
+     */
+    public synchronized void truncate(long position) {
+        int keepFrom = (int) (position >>> 32);
+        List<Segment> kept = new ArrayList<>();
+        boolean deleted = false;
+        for (Segment segment : segments) {
+            if (segment.number < keepFrom && segment != current) {
+                close(segment);
+                try {
+                    deleted |= Files.deleteIfExists(segment.path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot delete " + segment.path, e);
+                }
+            } else {
+                kept.add(segment);
+            }
+        }
+        segments = kept.toArray(new Segment[0]);
+        if (deleted) {
+            try {
+                forceDirectory(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot force " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * Forces {@code directory} itself, so files created, renamed or deleted in it so far stay
+     * that way after a crash.
+     */
+    static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * @return the number of segment files in use
+     */
+    public int segmentCount() {
+        return segments.length;
+    }
+
+    private static void close(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close " + segment.path, e);
+        }
+    }
+
+    /**
+     * Forces the log and releases its files. Later appends fail.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        if (forcer != null) {
+            forcer.interrupt();
+            try {
+                forcer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        force();
+        for (Segment segment : segments) close(segment);
+    }
+}
@@ -0,0 +1,349 @@
+package rlu;
+
+import java.util.function.BinaryOperator;
+
+/**
+ * The pending writes of one thread's transaction. Only its owner touches it, so it is a plain
+ * open-addressing table with the keys, values and versions inline in arrays. It is cleared in
+ * place after every commit, so a steady-state transaction allocates nothing.
+ * A null value is a pending remove. A slot with a merger is a pending merge: its value is the
+ * operand, and the commit applies the merger to whatever value the key has by then.
+ */
+public class WriteSet<T> {
+    private static final byte EMPTY = 0;
+    private static final byte PENDING = 1;
+    private static final byte DISCARDED = 2;
+
+    private Object[] keys;
+    private Object[] values;
+    private int[] versions;
+    private Object[] mergers; // null for a plain write
+    private byte[] flags;
+    private int[] order; // occupied slots in insertion order, for commit and clear
+    private int size;
+    private int pending; // slots that are not discarded
+    private int mask;
+
+    // Filled by the running commit: the main log entry of each slot, the stamp it had when
+    // this thread locked it, and the pending slots sorted into lock order
+    private Object[] entries;
+    private long[] lockedStamps;
+    private int[] lockOrder;
+    private long[] lockKeys;
+    private Combiner.Request<T> request; // reused by every commit of this write set
+
+    public WriteSet() {
+        this(16);
+    }
+
+    public WriteSet(int initialCapacity) {
+        allocate(Integer.highestOneBit(Math.max(2, initialCapacity) * 2 - 1) << 1);
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        versions = new int[capacity];
+        mergers = new Object[capacity];
+        flags = new byte[capacity];
+        order = new int[capacity];
+        entries = new Object[capacity];
+        lockedStamps = new long[capacity];
+        lockOrder = new int[capacity];
+        lockKeys = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    public void put(T key, T value, int version) {
+        put(key, value, version, null);
+    }
+
+    /**
+     * Buffers a write together with the main log entry its version was read from, if there is
+     * one, so the commit does not have to look the key up again. A null entry keeps the one
+     * already known for the key.
+     */
+    void put(T key, T value, int version, LogEntry<T> entry) {
+        int i = claim(key, entry);
+        values[i] = value;
+        versions[i] = version;
+        mergers[i] = null;
+        flags[i] = PENDING;
+    }
+
+    /**
+     * Buffers {@code merger(current, operand)}. On top of a pending write the merge is applied
+     * to it at once and the slot stays a write; on top of a pending merge the two compose.
+     */
+    void merge(T key, T operand, BinaryOperator<T> merger, LogEntry<T> entry) {
+        int i = claim(key, entry);
+        if (flags[i] == PENDING && mergers[i] == null) {
+            values[i] = merger.apply(valueAt(i), operand);
+            return;
+        }
+        if (flags[i] == PENDING) {
+            BinaryOperator<T> first = mergerAt(i);
+            T firstOperand = valueAt(i);
+            mergers[i] = (BinaryOperator<T>) (current, second) -> merger.apply(first.apply(current, firstOperand), second);
+        } else {
+            mergers[i] = merger;
+        }
+        values[i] = operand;
+        versions[i] = 0;
+        flags[i] = PENDING;
+    }
+
+    private int claim(T key, LogEntry<T> entry) {
+        if ((size + 1) * 2 > keys.length) grow();
+        int i = hash(key) & mask;
+        while (flags[i] != EMPTY && !keys[i].equals(key)) {
+            i = (i + 1) & mask;
+        }
+        if (flags[i] == EMPTY) {
+            keys[i] = key;
+            order[size++] = i;
+        }
+        if (flags[i] != PENDING) {
+            pending++;
+            flags[i] = DISCARDED; // until the caller fills it in
+        }
+        if (entry != null) entries[i] = entry;
+        return i;
+    }
+
+    /**
+     * Makes room for {@code additional} more keys at once, so a bulk write rehashes at most
+     * once.
+     */
+    void reserve(int additional) {
+        long needed = ((long) size + additional) * 2;
+        if (needed <= keys.length) return;
+        int capacity = keys.length;
+        while (capacity < needed) capacity <<= 1;
+        rehash(capacity);
+    }
+
+    public void discard(T key) {
+        int slot = indexOf(key);
+        if (slot >= 0) {
+            flags[slot] = DISCARDED;
+            values[slot] = null;
+            mergers[slot] = null;
+            pending--;
+        }
+    }
+
+    /**
+     * @return the slot of the pending write for {@code key}, or -1 if there is none
+     */
+    public int indexOf(T key) {
+        int i = hash(key) & mask;
+        while (flags[i] != EMPTY) {
+            if (keys[i].equals(key)) return flags[i] == PENDING ? i : -1;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    public boolean isEmpty() {
+        return pending == 0;
+    }
+
+    /**
+     * @return number of pending writes
+     */
+    public int pendingCount() {
+        return pending;
+    }
+
+    public void clear() {
+        for (int n = 0; n < size; n++) {
+            int slot = order[n];
+            keys[slot] = null;
+            values[slot] = null;
+            mergers[slot] = null;
+            entries[slot] = null;
+            flags[slot] = EMPTY;
+        }
+        size = 0;
+        pending = 0;
+    }
+
+    private void grow() {
+        rehash(keys.length * 2);
+    }
+
+    private void rehash(int capacity) {
+        Object[] oldKeys = keys, oldValues = values, oldEntries = entries, oldMergers = mergers;
+        int[] oldVersions = versions, oldOrder = order;
+        byte[] oldFlags = flags;
+        int oldSize = size;
+        allocate(capacity);
+        size = 0;
+        pending = 0;
+        for (int n = 0; n < oldSize; n++) {
+            int slot = oldOrder[n];
+            if (oldFlags[slot] == PENDING) {
+                put(keyAt(oldKeys, slot), valueAt(oldValues, slot), oldVersions[slot], entryAt(oldEntries, slot));
+                mergers[indexOf(keyAt(oldKeys, slot))] = oldMergers[slot];
+            }
+        }
+    }
+
+    // Iteration in insertion order: for (n < size()) { slot = slotAt(n); if (isPending(slot)) ... }
+
+    int size() {
+        return size;
+    }
+
+    int slotAt(int n) {
+        return order[n];
+    }
+
+    boolean isPending(int slot) {
+        return flags[slot] == PENDING;
+    }
+
+    T keyAt(int slot) {
+        return keyAt(keys, slot);
+    }
+
+    T valueAt(int slot) {
+        return valueAt(values, slot);
+    }
+
+    int versionAt(int slot) {
+        return versions[slot];
+    }
+
+    boolean isMerge(int slot) {
+        return mergers[slot] != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private BinaryOperator<T> mergerAt(int slot) {
+        return (BinaryOperator<T>) mergers[slot];
+    }
+
+    /**
+     * @return what the pending merge in {@code slot} makes of {@code current}
+     */
+    T merged(int slot, T current) {
+        return mergerAt(slot).apply(current, valueAt(slot));
+    }
+
+    /**
+     * Turns the pending merge in {@code slot} into a write of its result over {@code current},
+     * the value of the entry this thread has locked at {@code version}.
+     */
+    void resolveMerge(int slot, T current, int version) {
+        values[slot] = merged(slot, current);
+        versions[slot] = version;
+        mergers[slot] = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T keyAt(Object[] keys, int slot) {
+        return (T) keys[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T valueAt(Object[] values, int slot) {
+        return (T) values[slot];
+    }
+
+    void setEntry(int slot, LogEntry<T> entry) {
+        entries[slot] = entry;
+    }
+
+    /**
+     * Moves a write of an absent key onto the key's new entry, which starts at version 0.
+     */
+    void rebase(int slot, LogEntry<T> entry) {
+        entries[slot] = entry;
+        versions[slot] = 0;
+    }
+
+    LogEntry<T> entryAt(int slot) {
+        return entryAt(entries, slot);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> LogEntry<T> entryAt(Object[] entries, int slot) {
+        return (LogEntry<T>) entries[slot];
+    }
+
+    void setLockedStamp(int slot, long stamp) {
+        lockedStamps[slot] = stamp;
+    }
+
+    long lockedStampAt(int slot) {
+        return lockedStamps[slot];
+    }
+
+    /**
+     * Sorts the pending slots by the id of their main log entry, so every committer locks
+     * entries in the same global order. Entries must have been set for all pending slots.
+     * @return number of slots in lock order, read back with {@link #lockSlotAt}
+     */
+    int prepareLockOrder() {
+        int count = 0;
+        for (int n = 0; n < size; n++) {
+            int slot = order[n];
+            if (flags[slot] != PENDING) continue;
+            lockOrder[count] = slot;
+            lockKeys[count] = entryAt(slot).getId();
+            count++;
+        }
+        sort(0, count - 1);
+        return count;
+    }
+
+    int lockSlotAt(int n) {
+        return lockOrder[n];
+    }
+
+    Combiner.Request<T> commitRequest() {
+        if (request == null) request = new Combiner.Request<>(this);
+        return request;
+    }
+
+    // Quicksort of lockOrder by lockKeys, insertion sort for short runs; allocation-free
+    private void sort(int lo, int hi) {
+        while (hi - lo > 16) {
+            long pivot = lockKeys[(lo + hi) >>> 1];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (lockKeys[i] < pivot) i++;
+                while (lockKeys[j] > pivot) j--;
+                if (i <= j) swap(i++, j--);
+            }
+            if (j - lo < hi - i) {
+                sort(lo, j);
+                lo = i;
+            } else {
+                sort(i, hi);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && lockKeys[j - 1] > lockKeys[j]; j--) {
+                swap(j - 1, j);
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        long key = lockKeys[a];
+        lockKeys[a] = lockKeys[b];
+        lockKeys[b] = key;
+        int slot = lockOrder[a];
+        lockOrder[a] = lockOrder[b];
+        lockOrder[b] = slot;
+    }
+}
@@ -0,0 +1,166 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntRLUTest {
+    private static final int ABSENT = Integer.MIN_VALUE;
+    private IntRLU rlu;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        rlu = new IntRLU(1024);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Write, commit, remove and discard without boxing")
+    void testBasicOperations() {
+        assertTrue(rlu.write(1, 100));
+        assertEquals(100, rlu.read(1, ABSENT), "Uncommitted write is visible to the writer");
+        assertTrue(rlu.commit());
+        assertEquals(100, rlu.read(1, ABSENT));
+        assertTrue(rlu.contains(1));
+
+        assertTrue(rlu.remove(1));
+        assertFalse(rlu.contains(1));
+        assertTrue(rlu.commit());
+        assertEquals(ABSENT, rlu.read(1, ABSENT));
+        assertFalse(rlu.remove(99), "Removing a key that was never written should fail");
+
+        rlu.write(0, 5);
+        rlu.discard(0);
+        assertEquals(ABSENT, rlu.read(0, ABSENT));
+        assertFalse(rlu.commit(), "Nothing left to commit after discard");
+    }
+
+    @Test
+    @DisplayName("Committed values are visible across threads, uncommitted ones are not")
+    void testThreadIsolation() throws Exception {
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            writer.submit(() -> rlu.write(3, 30)).get();
+            assertEquals(ABSENT, executor.submit(() -> rlu.read(3, ABSENT)).get());
+            assertTrue(writer.submit(rlu::commit).get());
+            assertEquals(30, executor.submit(() -> rlu.read(3, ABSENT)).get());
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("A stale batch fails without publishing any of its entries")
+    void testBatchConflictRollsBack() throws Exception {
+        rlu.write(1, 1);
+        rlu.write(2, 2);
+        rlu.commit();
+
+        // This thread captures versions for both keys...
+        rlu.write(1, 10);
+        rlu.write(2, 20);
+        // ...and another thread commits key 2 first
+        assertTrue(executor.submit(() -> rlu.write(2, 200) && rlu.commit()).get());
+
+        assertFalse(rlu.commit(), "Batch with a stale version must fail");
+        assertEquals(1, rlu.read(1, ABSENT), "Key 1 must not be published");
+        assertEquals(200, rlu.read(2, ABSENT));
+    }
+
+    @Test
+    @DisplayName("Local log grows past its initial capacity")
+    void testLargeBatch() {
+        for (int key = 0; key < 500; key++) {
+            rlu.write(key, -key);
+        }
+        assertTrue(rlu.commit());
+        for (int key = 0; key < 500; key++) {
+            assertEquals(-key, rlu.read(key, ABSENT));
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent writers keep every key readable")
+    void testConcurrentWrites() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            final int threadId = t;
+            pool.execute(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    int key = i % 256;
+                    rlu.write(key, threadId * 10000 + i);
+                    rlu.commit();
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        for (int key = 0; key < 256; key++) {
+            assertNotEquals(ABSENT, rlu.read(key, ABSENT), "Key " + key + " is missing");
+        }
+    }
+
+    @Test
+    @DisplayName("Write and remove churn over many distinct keys keeps the store usable")
+    void testWriteRemoveChurn() {
+        for (int key = 0; key < 10_000; key++) {
+            rlu.write(key, key);
+            assertTrue(rlu.commit());
+            assertTrue(rlu.remove(key));
+            assertTrue(rlu.commit());
+        }
+        rlu.write(-1, 1);
+        assertTrue(rlu.commit());
+        assertEquals(1, rlu.read(-1, ABSENT));
+        assertEquals(ABSENT, rlu.read(5000, ABSENT));
+    }
+
+    @Test
+    @DisplayName("The table grows under concurrent committers and readers without losing writes or versions")
+    void testConcurrentGrowth() throws Exception {
+        IntRLU small = new IntRLU(4);
+        int threads = 4;
+        int keysPerThread = 2000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int base = t * keysPerThread;
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < keysPerThread; i++) {
+                        small.write(base + i, i);
+                        small.write(-1 - (i & 7), i); // shared keys, so some batches conflict
+                        small.commit();
+                        small.write(base + i, i + 1);
+                        assertTrue(small.commit(), "Only this thread writes the key");
+                    }
+                }));
+            }
+            Future<?> reader = pool.submit(() -> {
+                while (!writers.stream().allMatch(Future::isDone)) {
+                    int key = ThreadLocalRandom.current().nextInt(threads * keysPerThread);
+                    int value = small.read(key, ABSENT);
+                    assertTrue(value == ABSENT || value == key % keysPerThread || value == key % keysPerThread + 1);
+                }
+            });
+            for (Future<?> f : writers) f.get(60, TimeUnit.SECONDS);
+            reader.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdown();
+        }
+        for (int key = 0; key < threads * keysPerThread; key++) {
+            assertEquals(key % keysPerThread + 1, small.read(key, ABSENT), "Key " + key);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package rlu;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongRLUTest {
+    private static final long ABSENT = Long.MIN_VALUE;
+
+    @Test
+    public void testBasicOperations() {
+        LongRLU rlu = new LongRLU(64);
+        long key = 1L << 40;
+        assertTrue(rlu.write(key, Long.MAX_VALUE));
+        assertTrue(rlu.commit());
+        assertEquals(Long.MAX_VALUE, rlu.read(key, ABSENT));
+
+        assertTrue(rlu.remove(key));
+        assertTrue(rlu.commit());
+        assertEquals(ABSENT, rlu.read(key, ABSENT));
+        assertFalse(rlu.contains(key));
+    }
+
+    @Test
+    public void testBatchConflictRollsBack() throws Exception {
+        LongRLU rlu = new LongRLU(64);
+        rlu.write(1L, 1L);
+        rlu.write(2L, 2L);
+        rlu.commit();
+
+        rlu.write(1L, 10L);
+        rlu.write(2L, 20L);
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            assertTrue(other.submit(() -> rlu.write(1L, 100L) && rlu.commit()).get());
+        } finally {
+            other.shutdown();
+        }
+
+        assertFalse(rlu.commit());
+        assertEquals(100L, rlu.read(1L, ABSENT));
+        assertEquals(2L, rlu.read(2L, ABSENT), "Key 2 must not be published");
+    }
+
+    @Test
+    public void testTableGrows() {
+        LongRLU rlu = new LongRLU(2);
+        for (long key = 0; key < 100; key++) {
+            rlu.write(key, key);
+        }
+        assertTrue(rlu.commit());
+        for (long key = 0; key < 100; key++) {
+            assertEquals(key, rlu.read(key, ABSENT));
+        }
+    }
+
+    @Test
+    public void testWriteRemoveChurn() {
+        LongRLU rlu = new LongRLU(16);
+        for (long key = 0; key < 10_000; key++) {
+            rlu.write(key << 32, key);
+            assertTrue(rlu.commit());
+            assertTrue(rlu.remove(key << 32));
+            assertTrue(rlu.commit());
+        }
+        rlu.write(-1L, 1L);
+        assertTrue(rlu.commit());
+        assertEquals(1L, rlu.read(-1L, ABSENT));
+    }
+}
@@ -0,0 +1,108 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RLUAtomicallyTest {
+    private static final int NUM_THREADS = 4;
+    private static final int INCREMENTS = 300;
+
+    private void runCounter(RLU<Integer> rlu) throws InterruptedException {
+        rlu.write(0, 0);
+        rlu.commit();
+
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+        for (int t = 0; t < NUM_THREADS; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < INCREMENTS; i++) {
+                    rlu.atomically(tx -> tx.write(0, tx.read(0) + 1));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS), "Transactions did not finish");
+        assertEquals(NUM_THREADS * INCREMENTS, rlu.read(0), "Every increment must be applied exactly once");
+    }
+
+    @Test
+    @DisplayName("Exponential backoff retries until every increment commits")
+    void testExponentialBackoff() throws InterruptedException {
+        runCounter(new RLU<>(new RLUConfig().serializable(true).contentionManager(new ExponentialBackoff())));
+    }
+
+    @Test
+    @DisplayName("Karma retries until every increment commits")
+    void testKarma() throws InterruptedException {
+        runCounter(new RLU<>(new RLUConfig().serializable(true).contentionManager(new Karma())));
+    }
+
+    @Test
+    @DisplayName("Serial fallback retries until every increment commits")
+    void testSerialFallback() throws InterruptedException {
+        runCounter(new RLU<>(new RLUConfig().serializable(true).contentionManager(new SerialFallback(2))));
+    }
+
+    @Test
+    @DisplayName("Global-clock mode re-runs bodies whose writes hit a locked key")
+    void testGlobalClock() throws InterruptedException {
+        runCounter(new RLU<>(new RLUConfig().globalClock(true)));
+    }
+
+    @Test
+    @DisplayName("The body's result is returned and read-only bodies succeed")
+    void testResultAndReadOnly() {
+        RLU<Integer> rlu = new RLU<>();
+        assertEquals("done", rlu.atomically(tx -> {
+            tx.write(1, 10);
+            return "done";
+        }));
+        Integer read = rlu.atomically(tx -> tx.read(1));
+        assertEquals(10, read);
+    }
+
+    @Test
+    @DisplayName("A body that throws leaves nothing behind")
+    void testExceptionDiscardsWrites() {
+        RLU<Integer> rlu = new RLU<>();
+        assertThrows(IllegalStateException.class, () -> rlu.atomically(tx -> {
+            tx.write(1, 10);
+            throw new IllegalStateException("boom");
+        }));
+        assertNull(rlu.read(1));
+        assertFalse(rlu.commit(), "The aborted write must not be committed later");
+    }
+
+    @Test
+    @DisplayName("Aborted attempts are retried and reported to the contention manager")
+    void testRetriesAreCounted() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().serializable(true));
+        rlu.write(0, 0);
+        rlu.commit();
+        AtomicInteger aborts = new AtomicInteger();
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            int result = rlu.atomically(tx -> {
+                int value = tx.read(0);
+                if (aborts.get() == 0) {
+                    // Another thread commits between our read and our commit on the first attempt
+                    try {
+                        other.submit(() -> rlu.write(0, 100) && rlu.commit()).get();
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                tx.write(0, value + 1);
+                return value + 1;
+            }, attempt -> aborts.incrementAndGet());
+            assertEquals(1, aborts.get());
+            assertEquals(101, result);
+            assertEquals(101, rlu.read(0));
+        } finally {
+            other.shutdown();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RLUBulkTest {
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static Map<Integer, Integer> range(int from, int to, int offset) {
+        Map<Integer, Integer> entries = new HashMap<>();
+        for (int i = from; i < to; i++) entries.put(i, i + offset);
+        return entries;
+    }
+
+    private static List<Integer> keys(int from, int to) {
+        List<Integer> keys = new ArrayList<>();
+        for (int i = from; i < to; i++) keys.add(i);
+        return keys;
+    }
+
+    @Test
+    @DisplayName("writeAll stays pending until commit, then publishes every key")
+    void testWriteAllCommit() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().shards(4));
+        assertTrue(rlu.writeAll(range(0, 500, 1)));
+        assertEquals(1, rlu.read(0), "The caller sees its own pending writes");
+        assertNull(pool.submit(() -> rlu.read(0)).get(), "Nothing is published before commit");
+        assertTrue(rlu.commit());
+
+        List<Integer> values = pool.submit(() -> rlu.readAll(keys(0, 500))).get();
+        for (int i = 0; i < 500; i++) assertEquals(i + 1, values.get(i));
+    }
+
+    @Test
+    @DisplayName("readAll keeps the order of the keys, with null for absent keys and pending writes shown")
+    void testReadAll() {
+        RLU<Integer> rlu = new RLU<>();
+        rlu.writeAll(range(0, 3, 10));
+        rlu.commit();
+        rlu.write(1, 99);
+        assertEquals(Arrays.asList(12, null, 99, 10), rlu.readAll(List.of(2, 7, 1, 0)));
+    }
+
+    @Test
+    @DisplayName("removeAll removes the existing keys and skips the rest")
+    void testRemoveAll() {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().compactionThreshold(0));
+        rlu.writeAll(range(0, 10, 0));
+        rlu.commit();
+        assertTrue(rlu.removeAll(keys(5, 20)));
+        assertTrue(rlu.commit());
+        assertEquals(Arrays.asList(4, null, null), rlu.readAll(List.of(4, 5, 9)));
+    }
+
+    @Test
+    @DisplayName("A bulk write whose keys changed after it read their versions does not commit")
+    void testStaleBulkWrite() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().compactionThreshold(0));
+        rlu.writeAll(range(0, 100, 0));
+        rlu.commit();
+
+        try (Transaction<Integer> tx = rlu.begin()) {
+            tx.writeAll(range(0, 100, 1000));
+            pool.submit(() -> {
+                rlu.remove(50);
+                rlu.commit();
+                rlu.compact(); // unlinks the entry the bulk write resolved
+                rlu.write(50, -1);
+                return rlu.commit();
+            }).get();
+            assertFalse(tx.commit());
+        }
+        assertEquals(0, rlu.read(0));
+        assertEquals(-1, rlu.read(50));
+    }
+
+    @Test
+    @DisplayName("In multi-version mode readAll sees one snapshot while transfers commit")
+    void testReadAllSnapshot() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().multiVersion(16));
+        int accounts = 64;
+        for (int i = 0; i < accounts; i++) rlu.write(i, 100);
+        rlu.commit();
+
+        AtomicBoolean stop = new AtomicBoolean();
+        Future<?> writer = pool.submit(() -> {
+            ThreadLocalRandom rand = ThreadLocalRandom.current();
+            while (!stop.get()) {
+                int from = rand.nextInt(accounts), to = rand.nextInt(accounts);
+                if (from == to) continue;
+                rlu.atomically(tx -> tx.writeAll(Map.of(from, tx.read(from) - 1, to, tx.read(to) + 1)));
+            }
+        });
+        List<Integer> all = keys(0, accounts);
+        for (int i = 0; i < 2000; i++) {
+            List<Integer> values;
+            try {
+                values = rlu.readAll(all);
+            } catch (SnapshotTooOldException e) {
+                continue; // the writer outran the bounded history
+            }
+            int total = 0;
+            for (Integer value : values) total += value;
+            assertEquals(100 * accounts, total);
+        }
+        stop.set(true);
+        writer.get();
+    }
+
+    @Test
+    @DisplayName("Explicit handles read, write and remove in bulk")
+    void testHandle() {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().multiVersion(4));
+        try (Transaction<Integer> tx = rlu.begin()) {
+            assertTrue(tx.writeAll(range(0, 50, 0)));
+            assertTrue(tx.removeAll(List.of(0, 1, 2)));
+            assertEquals(Arrays.asList(3, 49), tx.readAll(List.of(3, 49)));
+            assertTrue(tx.commit());
+        }
+        try (Transaction<Integer> tx = rlu.begin()) {
+            assertTrue(tx.removeAll(List.of(0, 1, 2)));
+            assertTrue(tx.commit());
+        }
+        assertEquals(Arrays.asList(null, 3, 49), rlu.readAll(List.of(1, 3, 49)));
+    }
+
+    @Test
+    @DisplayName("The global-clock engine reads in bulk within one section and writes in bulk")
+    void testGlobalClock() {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().globalClock(true));
+        assertTrue(rlu.writeAll(range(0, 20, 5)));
+        assertTrue(rlu.commit());
+        assertEquals(Arrays.asList(5, 24, null), rlu.readAll(List.of(0, 19, 20)));
+        assertTrue(rlu.removeAll(List.of(0, 20)));
+        assertTrue(rlu.commit());
+        assertNull(rlu.read(0));
+    }
+
+    @Test
+    @DisplayName("Bulk operations fall back to per-key calls on the baseline stores")
+    void testBaselineDefaults() {
+        TransactionalStore<Integer> store = new StampedLockStore<>();
+        store.atomically(tx -> tx.writeAll(range(0, 10, 1)));
+        List<Integer> values = store.atomically(tx -> {
+            tx.removeAll(List.of(0, 1));
+            return tx.readAll(List.of(0, 2));
+        });
+        assertEquals(Arrays.asList(null, 3), values);
+        assertNull(store.read(1));
+    }
+}
@@ -0,0 +1,343 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RLUChangeStreamTest {
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Queues what it receives; requests {@code initial} batches on subscribe.
+     */
+    private static class Recorder implements Flow.Subscriber<ChangeBatch<Integer>> {
+        final BlockingQueue<ChangeBatch<Integer>> batches = new LinkedBlockingQueue<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        final CompletableFuture<Throwable> error = new CompletableFuture<>();
+        final long initial;
+        volatile Flow.Subscription subscription;
+
+        Recorder(long initial) {
+            this.initial = initial;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initial > 0) subscription.request(initial);
+        }
+
+        @Override
+        public void onNext(ChangeBatch<Integer> batch) {
+            batches.add(batch);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.complete(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        ChangeBatch<Integer> next() throws InterruptedException {
+            ChangeBatch<Integer> batch = batches.poll(10, TimeUnit.SECONDS);
+            assertNotNull(batch, "no batch delivered");
+            return batch;
+        }
+    }
+
+    private static RLU<Integer> capturing(int capacity, Backpressure backpressure) {
+        return new RLU<>(new RLUConfig().changeCapture(capacity, backpressure));
+    }
+
+    @Test
+    @DisplayName("Each commit arrives as one batch with its keys, new values and versions")
+    void testBatches() throws Exception {
+        RLU<Integer> rlu = capturing(64, Backpressure.BLOCK);
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        rlu.changes().subscribe(recorder);
+
+        rlu.write(1, 10);
+        rlu.write(2, 20);
+        assertTrue(rlu.commit());
+        rlu.write(1, 11);
+        rlu.remove(2);
+        assertTrue(rlu.commit());
+        rlu.write(3, 30);
+        rlu.abortTransaction();
+
+        ChangeBatch<Integer> first = recorder.next();
+        assertEquals(0, first.getSequence());
+        assertFalse(first.isCoalesced());
+        Map<Integer, ChangeBatch.Change<Integer>> changes = byKey(first);
+        assertEquals(2, changes.size());
+        assertEquals(10, changes.get(1).getValue());
+        assertEquals(1, changes.get(1).getVersion());
+        assertEquals(20, changes.get(2).getValue());
+
+        ChangeBatch<Integer> second = recorder.next();
+        assertEquals(1, second.getSequence());
+        changes = byKey(second);
+        assertEquals(11, changes.get(1).getValue());
+        assertEquals(2, changes.get(1).getVersion());
+        assertNull(changes.get(2).getValue(), "A remove arrives as a null value");
+        assertNull(recorder.batches.poll(100, TimeUnit.MILLISECONDS), "Aborted writes are not published");
+    }
+
+    @Test
+    @DisplayName("Concurrent commits arrive whole, in commit order per key, on every engine configuration")
+    void testConcurrentOrder() throws Exception {
+        for (RLUConfig config : List.of(new RLUConfig(), new RLUConfig().multiVersion(4).shards(4),
+                new RLUConfig().combining(true), new RLUConfig().batchCommit(false))) {
+            RLU<Integer> rlu = new RLU<>(config.changeCapture(16, Backpressure.BLOCK));
+            Recorder recorder = new Recorder(Long.MAX_VALUE);
+            rlu.changes().subscribe(recorder);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    for (int i = 1; i <= 500; i++) {
+                        rlu.write(thread * 2, i);
+                        rlu.write(thread * 2 + 1, i);
+                        rlu.write(100, i); // shared, so some commits fail
+                        rlu.commit();
+                    }
+                }));
+            }
+            for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+            rlu.close();
+            assertTrue(recorder.completed.await(10, TimeUnit.SECONDS));
+
+            Map<Integer, ChangeBatch.Change<Integer>> last = new HashMap<>();
+            for (ChangeBatch<Integer> batch : recorder.batches) {
+                if (config.isBatchCommit()) assertEquals(3, batch.getChanges().size(), batch.toString());
+                for (ChangeBatch.Change<Integer> change : batch.getChanges()) {
+                    ChangeBatch.Change<Integer> previous = last.put(change.getKey(), change);
+                    int expected = previous != null ? previous.getVersion() + 1 : 1;
+                    assertEquals(expected, change.getVersion(), "versions of " + change.getKey() + " skip or go back");
+                }
+            }
+            assertEquals(9, last.size());
+            for (ChangeBatch.Change<Integer> change : last.values()) {
+                assertEquals(rlu.read(change.getKey()), change.getValue(), "the last change is not the committed value");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("BLOCK holds a committer until the subscriber requests more")
+    void testBlock() throws Exception {
+        RLU<Integer> rlu = capturing(2, Backpressure.BLOCK);
+        Recorder recorder = new Recorder(0);
+        rlu.changes().subscribe(recorder);
+
+        Future<?> writer = pool.submit(() -> {
+            for (int i = 0; i < 3; i++) {
+                rlu.write(i, i);
+                rlu.commit();
+            }
+        });
+        assertThrows(TimeoutException.class, () -> writer.get(200, TimeUnit.MILLISECONDS), "The third commit has no room");
+        recorder.subscription.request(1);
+        writer.get(10, TimeUnit.SECONDS);
+        recorder.subscription.request(Long.MAX_VALUE);
+        for (int i = 0; i < 3; i++) assertEquals(i, recorder.next().getSequence());
+    }
+
+    @Test
+    @DisplayName("BLOCK lets onNext read the keys of a committer it holds up")
+    void testBlockReadFromOnNext() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().serializable(true).changeCapture(2, Backpressure.BLOCK));
+        CountDownLatch reading = new CountDownLatch(1);
+        Recorder recorder = new Recorder(1) {
+            @Override
+            public void onNext(ChangeBatch<Integer> batch) {
+                try {
+                    reading.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                rlu.atomically(tx -> tx.read(0) + tx.read(1)); // refresh a cache from the store
+                super.onNext(batch);
+                subscription.request(1);
+            }
+        };
+        rlu.changes().subscribe(recorder);
+
+        Future<?> writer = pool.submit(() -> {
+            for (int i = 0; i < 3; i++) { // the first is being delivered, the second fills the ring
+                rlu.write(0, i);
+                rlu.write(1, i);
+                rlu.commit();
+            }
+        });
+        assertThrows(TimeoutException.class, () -> writer.get(200, TimeUnit.MILLISECONDS), "The third commit has no room");
+        reading.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+        for (int i = 0; i < 3; i++) assertEquals(i, recorder.next().getSequence());
+    }
+
+    @Test
+    @DisplayName("BLOCK delivers a batch larger than the ring in pieces, still as one batch")
+    void testBlockLargeBatch() throws Exception {
+        RLU<Integer> rlu = capturing(4, Backpressure.BLOCK);
+        Recorder recorder = new Recorder(Long.MAX_VALUE);
+        rlu.changes().subscribe(recorder);
+        for (int i = 0; i < 50; i++) rlu.write(i, i);
+        assertTrue(rlu.commit());
+        assertEquals(50, recorder.next().getChanges().size());
+    }
+
+    @Test
+    @DisplayName("DROP skips batches that do not fit, leaving gaps, and never holds the committer")
+    void testDrop() throws Exception {
+        RLU<Integer> rlu = capturing(4, Backpressure.DROP);
+        Recorder recorder = new Recorder(0);
+        rlu.changes().subscribe(recorder);
+        for (int i = 0; i < 10; i++) {
+            rlu.write(i, i);
+            assertTrue(rlu.commit());
+        }
+        recorder.subscription.request(Long.MAX_VALUE);
+        for (int i = 0; i < 4; i++) assertEquals(i, recorder.next().getSequence());
+        rlu.write(0, -1);
+        rlu.commit();
+        ChangeBatch<Integer> after = recorder.next();
+        assertEquals(10, after.getSequence(), "Batches 4 to 9 were dropped");
+        assertEquals(-1, after.getChanges().get(0).getValue());
+    }
+
+    @Test
+    @DisplayName("COALESCE keeps the newest change of each key while the subscriber is behind")
+    void testCoalesce() throws Exception {
+        RLU<Integer> rlu = capturing(2, Backpressure.COALESCE);
+        Recorder recorder = new Recorder(0);
+        rlu.changes().subscribe(recorder);
+        for (int i = 1; i <= 10; i++) {
+            rlu.write(i % 3, i);
+            assertTrue(rlu.commit());
+        }
+        recorder.subscription.request(Long.MAX_VALUE);
+        assertEquals(0, recorder.next().getSequence());
+        assertEquals(1, recorder.next().getSequence());
+        ChangeBatch<Integer> coalesced = recorder.next();
+        assertTrue(coalesced.isCoalesced());
+        assertEquals(9, coalesced.getSequence(), "Numbered after the last commit it covers");
+        Map<Integer, ChangeBatch.Change<Integer>> changes = byKey(coalesced);
+        assertEquals(3, changes.size());
+        assertEquals(9, changes.get(0).getValue());
+        assertEquals(10, changes.get(1).getValue());
+        assertEquals(8, changes.get(2).getValue());
+
+        rlu.write(0, 0);
+        rlu.commit();
+        ChangeBatch<Integer> caughtUp = recorder.next();
+        assertFalse(caughtUp.isCoalesced());
+        assertEquals(10, caughtUp.getSequence());
+    }
+
+    @Test
+    @DisplayName("Cancel stops delivery, close completes subscribers, bad requests fail")
+    void testLifecycle() throws Exception {
+        RLU<Integer> rlu = capturing(8, Backpressure.BLOCK);
+        Recorder cancelled = new Recorder(Long.MAX_VALUE);
+        Recorder invalid = new Recorder(0);
+        Recorder open = new Recorder(Long.MAX_VALUE);
+        rlu.changes().subscribe(cancelled);
+        rlu.changes().subscribe(invalid);
+        rlu.changes().subscribe(open);
+
+        invalid.subscription.request(0);
+        assertInstanceOf(IllegalArgumentException.class, invalid.error.get(10, TimeUnit.SECONDS));
+        cancelled.subscription.cancel();
+        for (int i = 0; i < 20; i++) {
+            rlu.write(1, i);
+            assertTrue(rlu.commit(), "Neither subscriber holds the committer back");
+        }
+        rlu.close();
+        assertTrue(open.completed.await(10, TimeUnit.SECONDS));
+        assertEquals(20, open.batches.size());
+        assertTrue(cancelled.batches.isEmpty());
+        assertEquals(1, cancelled.completed.getCount());
+
+        Recorder late = new Recorder(1);
+        rlu.changes().subscribe(late);
+        assertTrue(late.completed.await(10, TimeUnit.SECONDS), "Subscribing after close completes at once");
+    }
+
+    @Test
+    @DisplayName("Change capture is opt-in and not supported by the global-clock engine")
+    void testConfiguration() {
+        assertThrows(IllegalStateException.class, () -> new RLU<Integer>().changes());
+        assertThrows(IllegalArgumentException.class, () -> new RLUConfig().changeCapture(3, Backpressure.DROP));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RLU<Integer>(new RLUConfig().globalClock(true).changeCapture(8, Backpressure.DROP)));
+    }
+
+    @Test
+    @DisplayName("Publishing to a DROP subscriber adds no allocation to commits")
+    void testCommitAllocation() throws Exception {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "no allocation counter");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported(), "no allocation counter");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        RLU<Integer> plain = capturing(1024, Backpressure.DROP);
+        RLU<Integer> subscribed = capturing(1024, Backpressure.DROP);
+        Recorder recorder = new Recorder(0); // never requests, so every batch past the ring drops
+        subscribed.changes().subscribe(recorder);
+
+        long id = Thread.currentThread().getId();
+        long[] allocated = new long[2];
+        List<RLU<Integer>> rlus = List.of(plain, subscribed);
+        for (int round = 0; round < 6; round++) { // the last round measures, after warm-up
+            for (int r = 0; r < 2; r++) {
+                long before = threads.getThreadAllocatedBytes(id);
+                commitAll(rlus.get(r));
+                allocated[r] = threads.getThreadAllocatedBytes(id) - before;
+            }
+        }
+        assertTrue(allocated[1] - allocated[0] < 16 * 1024,
+                allocated[1] + " bytes with a subscriber against " + allocated[0] + " without");
+    }
+
+    private static final Integer[] VALUES = new Integer[64];
+    static {
+        for (int i = 0; i < VALUES.length; i++) VALUES[i] = i;
+    }
+
+    private static void commitAll(RLU<Integer> rlu) {
+        for (int i = 0; i < 20_000; i++) {
+            rlu.write(VALUES[i & 63], VALUES[(i >> 6) & 63]);
+            rlu.write(VALUES[(i + 1) & 63], VALUES[i & 63]);
+            rlu.commit();
+        }
+    }
+
+    private static Map<Integer, ChangeBatch.Change<Integer>> byKey(ChangeBatch<Integer> batch) {
+        Map<Integer, ChangeBatch.Change<Integer>> changes = new HashMap<>();
+        for (ChangeBatch.Change<Integer> change : batch.getChanges()) changes.put(change.getKey(), change);
+        return changes;
+    }
+}
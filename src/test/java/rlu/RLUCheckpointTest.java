@@ -0,0 +1,116 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RLUCheckpointTest {
+    @TempDir
+    Path dir;
+
+    private RLU<Integer> open() {
+        return new RLU<>(new RLUConfig().durable(dir, Serializer.INTEGER, Durability.NONE).logSegmentSize(4096));
+    }
+
+    @Test
+    @DisplayName("Restart loads the checkpoint and replays the commits after it")
+    void testCheckpointThenReplay() {
+        int segmentsBefore;
+        try (RLU<Integer> rlu = open()) {
+            for (int k = 0; k < 1000; k++) {
+                rlu.write(k, k);
+                assertTrue(rlu.commit());
+            }
+            rlu.remove(7);
+            assertTrue(rlu.commit());
+            segmentsBefore = segmentFiles();
+            assertEquals(999, rlu.checkpoint());
+            assertTrue(segmentFiles() < segmentsBefore, "Covered log segments are deleted");
+            rlu.write(1, 100);
+            rlu.write(7, 70);
+            assertTrue(rlu.commit());
+        }
+        try (RLU<Integer> rlu = open()) {
+            assertEquals(100, rlu.read(1));
+            assertEquals(70, rlu.read(7));
+            for (int k = 8; k < 1000; k++) assertEquals(k, rlu.read(k));
+            rlu.write(2, 20);
+            assertTrue(rlu.commit(), "Versions from the checkpoint line up with new writes");
+        }
+    }
+
+    private int segmentFiles() {
+        try (Stream<Path> files = Files.list(dir)) {
+            return (int) files.filter(f -> f.getFileName().toString().startsWith("wal-")).count();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("Large checkpoints load in parallel chunks")
+    void testChunks() {
+        final int keys = 300_000; // about 3.6 MB of entries, several chunks
+        RLUConfig config = new RLUConfig().durable(dir, Serializer.INTEGER, Durability.NONE).shards(4);
+        try (RLU<Integer> rlu = new RLU<>(config)) {
+            for (int k = 0; k < keys; k += 1000) {
+                for (int i = k; i < k + 1000; i++) rlu.write(i, -i);
+                assertTrue(rlu.commit());
+            }
+            assertEquals(keys, rlu.checkpoint());
+        }
+        Checkpoint.Footer footer = Checkpoint.readFooter(dir.resolve(Checkpoint.FILE_NAME));
+        assertNotNull(footer);
+        assertTrue(footer.chunks > 1);
+        try (RLU<Integer> rlu = new RLU<>(config)) {
+            for (int k = 0; k < keys; k++) assertEquals(-k, rlu.read(k));
+        }
+    }
+
+    @Test
+    @DisplayName("Checkpoints run while writers commit")
+    void testOnlineCheckpoint() throws Exception {
+        final int keys = 64;
+        Integer[] expected = new Integer[keys];
+        try (RLU<Integer> rlu = open()) {
+            AtomicBoolean stop = new AtomicBoolean();
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                for (int t = 0; t < 2; t++) {
+                    final int thread = t;
+                    executor.submit(() -> {
+                        for (int round = 0; !stop.get(); round++) {
+                            for (int k = thread; k < keys; k += 2) rlu.write(k, round);
+                            rlu.commit();
+                        }
+                    });
+                }
+                for (int i = 0; i < 20; i++) rlu.checkpoint();
+            } finally {
+                stop.set(true);
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+            }
+            for (int k = 0; k < keys; k++) expected[k] = rlu.read(k);
+        }
+        try (RLU<Integer> rlu = open()) {
+            for (int k = 0; k < keys; k++) assertEquals(expected[k], rlu.read(k), "Key " + k);
+        }
+    }
+
+    @Test
+    @DisplayName("Checkpoints need a write-ahead log")
+    void testNotDurable() {
+        assertThrows(IllegalStateException.class, () -> new RLU<Integer>().checkpoint());
+        assertNull(Checkpoint.readFooter(dir.resolve(Checkpoint.FILE_NAME)));
+    }
+}
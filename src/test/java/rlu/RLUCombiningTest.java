@@ -0,0 +1,177 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RLUCombiningTest {
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static long combined(RLU<Integer> rlu) {
+        return rlu.getShardStats().stream().mapToLong(ShardStats::getCombinedCommits).sum();
+    }
+
+    private void incrementConcurrently(RLU<Integer> rlu, int threads, int increments, int keys) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < increments; i++) {
+                    int key = i % keys;
+                    rlu.atomically(tx -> tx.write(key, tx.read(key) + 1));
+                }
+            }));
+        }
+        for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Combined commits of a hot counter lose no increments")
+    void testHotCounter() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().combining(true).serializable(true).shards(4));
+        rlu.write(0, 0);
+        rlu.commit();
+        incrementConcurrently(rlu, 4, 5000, 1);
+        assertEquals(20_000, rlu.read(0));
+    }
+
+    @Test
+    @DisplayName("Combined commits over several keys, with and without a write-ahead log, lose no increments")
+    void testModes(@TempDir Path directory) throws Exception {
+        for (RLUConfig config : List.of(new RLUConfig().combining(true).serializable(true),
+                new RLUConfig().combining(true).serializable(true).durable(directory, Serializer.INTEGER, Durability.GROUP_SYNC))) {
+            RLU<Integer> rlu = new RLU<>(config);
+            for (int i = 0; i < 4; i++) rlu.write(i, 0);
+            rlu.commit();
+            incrementConcurrently(rlu, 4, 2000, 4);
+            int total = 0;
+            for (int i = 0; i < 4; i++) total += rlu.read(i);
+            assertEquals(8000, total);
+            rlu.close();
+        }
+    }
+
+    @Test
+    @DisplayName("A stale batch fails under combining, and batches spanning shards commit directly")
+    void testStaleAndCrossShard() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().combining(true).shards(8));
+        rlu.write(1, 1);
+        rlu.commit();
+        try (Transaction<Integer> tx = rlu.begin()) {
+            tx.write(1, 10);
+            assertTrue(pool.submit(() -> rlu.write(1, 2) && rlu.commit()).get());
+            assertFalse(tx.commit());
+        }
+        assertEquals(2, rlu.read(1));
+
+        for (int i = 0; i < 100; i++) rlu.write(i, -i);
+        assertTrue(rlu.commit());
+        assertEquals(-99, rlu.read(99));
+    }
+
+    @Test
+    @DisplayName("The thread holding the combiner applies batches queued behind it")
+    void testCombinerAppliesOthers() throws Exception {
+        Combiner<Integer> combiner = new Combiner<>();
+        Combiner.Request<Integer> first = new WriteSet<Integer>().commitRequest();
+        Combiner.Request<Integer> second = new WriteSet<Integer>().commitRequest();
+        first.reset(null);
+        second.reset(null);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ConcurrentHashMap<Combiner.Request<Integer>, Thread> appliedBy = new ConcurrentHashMap<>();
+
+        Future<?> holder = pool.submit(() -> combiner.commit(first, request -> {
+            appliedBy.put(request, Thread.currentThread());
+            if (request == first) {
+                holding.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }));
+        holding.await();
+        Future<Thread> waiter = pool.submit(() -> {
+            combiner.commit(second, request -> appliedBy.put(request, Thread.currentThread()));
+            return Thread.currentThread();
+        });
+        Thread.sleep(100); // let the waiter queue its request behind the busy combiner
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+        Thread waiterThread = waiter.get(10, TimeUnit.SECONDS);
+
+        assertTrue(second.done);
+        assertNotSame(waiterThread, appliedBy.get(second), "Applied by the combiner, not its owner");
+        assertEquals(1, combiner.combined());
+    }
+
+    @Test
+    @DisplayName("An error on one combined batch completes every waiter and reaches only its owner")
+    void testCombinerError() throws Exception {
+        Combiner<Integer> combiner = new Combiner<>();
+        Combiner.Request<Integer> first = new WriteSet<Integer>().commitRequest();
+        Combiner.Request<Integer> failing = new WriteSet<Integer>().commitRequest();
+        Combiner.Request<Integer> last = new WriteSet<Integer>().commitRequest();
+        first.reset(null);
+        failing.reset(null);
+        last.reset(null);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Consumer<Combiner.Request<Integer>> apply = request -> {
+            if (request == failing) throw new AssertionError("apply failed");
+            if (request == first) {
+                holding.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+
+        Future<?> holder = pool.submit(() -> combiner.commit(first, apply));
+        holding.await();
+        Future<?> failingWaiter = pool.submit(() -> combiner.commit(failing, apply));
+        Future<?> lastWaiter = pool.submit(() -> combiner.commit(last, apply));
+        Thread.sleep(100); // let both waiters queue behind the busy combiner
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+        failingWaiter.get(10, TimeUnit.SECONDS);
+        lastWaiter.get(10, TimeUnit.SECONDS);
+
+        assertTrue(failing.done);
+        assertTrue(last.done);
+        assertNull(first.failure);
+        assertNull(last.failure);
+        AssertionError error = assertThrows(AssertionError.class, failing::rethrowFailure);
+        assertEquals("apply failed", error.getMessage());
+    }
+
+    @Test
+    @DisplayName("Without combining no commit is counted as combined")
+    void testStats() throws Exception {
+        RLU<Integer> plain = new RLU<>();
+        plain.write(0, 0);
+        plain.commit();
+        incrementConcurrently(plain, 2, 1000, 1);
+        assertEquals(0, combined(plain));
+    }
+}
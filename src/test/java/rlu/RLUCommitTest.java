@@ -1,3 +1,5 @@
+package rlu;
+
 import org.junit.jupiter.api.*;
 import java.util.concurrent.*;
 
@@ -84,4 +86,35 @@ class RLUCommitTest {
             }
         }
     }
+
+    @Test
+    @DisplayName("Overlapping batches are published all-or-nothing")
+    void testOverlappingBatchesAreAtomic() throws InterruptedException {
+        int keys = 8;
+        for (int key = 0; key < keys; key++) rlu.write(key, -1);
+        rlu.commit();
+
+        CountDownLatch done = new CountDownLatch(NUM_THREADS);
+        for (int i = 0; i < NUM_THREADS; i++) {
+            final int threadId = i;
+            executor.submit(() -> {
+                for (int round = 0; round < 200; round++) {
+                    int value = threadId * 1000 + round;
+                    // Write the keys in a different order per thread; the commit locks them in one order
+                    for (int k = 0; k < keys; k++) {
+                        int key = (threadId % 2 == 0) ? k : keys - 1 - k;
+                        rlu.write(key, value);
+                    }
+                    rlu.commit();
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS), "Committers did not finish, possible livelock");
+
+        Integer first = rlu.read(0);
+        for (int key = 1; key < keys; key++) {
+            assertEquals(first, rlu.read(key), "Key " + key + " was written by a different batch than key 0");
+        }
+    }
 }
@@ -0,0 +1,243 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RLUCompactionTest {
+    private ExecutorService other;
+
+    @BeforeEach
+    void setUp() {
+        other = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        other.shutdown();
+    }
+
+    private static long entries(RLU<Integer> rlu) {
+        return rlu.getShardStats().stream().mapToLong(ShardStats::getEntries).sum();
+    }
+
+    private boolean elsewhere(Callable<Boolean> task) throws Exception {
+        return other.submit(task).get();
+    }
+
+    @Test
+    @DisplayName("compact() unlinks removed keys, which can then be written again")
+    void testCompact() {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().compactionThreshold(0).shards(4));
+        for (int i = 0; i < 100; i++) rlu.write(i, i);
+        assertTrue(rlu.commit());
+        for (int i = 0; i < 100; i++) rlu.remove(i);
+        assertTrue(rlu.commit());
+        assertEquals(100, entries(rlu), "Tombstones stay until compacted");
+
+        assertEquals(100, rlu.compact());
+        assertEquals(0, entries(rlu));
+        assertEquals(100, rlu.getShardStats().stream().mapToLong(ShardStats::getCompacted).sum());
+        assertEquals(0, rlu.compact(), "Nothing left to compact");
+
+        rlu.write(7, 70);
+        assertTrue(rlu.commit());
+        assertEquals(70, rlu.read(7));
+        assertNull(rlu.read(8));
+    }
+
+    @Test
+    @DisplayName("Keys written again before compaction are kept")
+    void testRewrittenKeyKept() {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().compactionThreshold(0));
+        rlu.write(1, 10);
+        assertTrue(rlu.commit());
+        rlu.remove(1);
+        assertTrue(rlu.commit());
+        rlu.write(1, 11);
+        assertTrue(rlu.commit());
+        assertEquals(0, rlu.compact());
+        assertEquals(11, rlu.read(1));
+    }
+
+    @Test
+    @DisplayName("Commits compact a shard once its tombstones reach the threshold")
+    void testThreshold() {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().compactionThreshold(16));
+        for (int i = 0; i < 1000; i++) {
+            rlu.write(i, i);
+            assertTrue(rlu.commit());
+            rlu.remove(i);
+            assertTrue(rlu.commit());
+        }
+        assertTrue(entries(rlu) < 16, "entries " + entries(rlu));
+    }
+
+    @Test
+    @DisplayName("A blind write to a removed key survives the key's compaction before commit")
+    void testBlindWriteAcrossCompaction() throws Exception {
+        for (boolean batchCommit : new boolean[]{true, false}) {
+            RLU<Integer> rlu = new RLU<>(new RLUConfig().compactionThreshold(0).batchCommit(batchCommit));
+            rlu.write(1, 10);
+            assertTrue(rlu.commit());
+            rlu.remove(1);
+            assertTrue(rlu.commit());
+
+            rlu.write(1, 11);
+            assertEquals(1L, other.submit(rlu::compact).get());
+            assertTrue(rlu.commit(), "No other writer touched the key, batchCommit=" + batchCommit);
+            assertEquals(11, rlu.read(1));
+        }
+    }
+
+    @Test
+    @DisplayName("Serializable: a key read absent that comes and goes invalidates the read")
+    void testAbsentReadAcrossCompaction() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().serializable(true).compactionThreshold(0));
+        rlu.readerLock();
+        assertNull(rlu.read(1));
+        assertTrue(elsewhere(() -> rlu.write(1, 10) && rlu.commit()));
+        assertTrue(elsewhere(() -> rlu.remove(1) && rlu.commit()));
+        assertEquals(1, (long) other.submit(rlu::compact).get());
+        assertNull(rlu.read(2));
+        rlu.write(2, rlu.read(1) == null ? 20 : 21);
+        assertFalse(rlu.commit(), "Key 1 was present in between");
+    }
+
+    @Test
+    @DisplayName("Serializable: a read of a tombstone is stale once it is compacted")
+    void testTombstoneReadAcrossCompaction() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().serializable(true).compactionThreshold(0));
+        rlu.write(1, 10);
+        assertTrue(rlu.commit());
+        rlu.remove(1);
+        assertTrue(rlu.commit());
+
+        rlu.readerLock();
+        assertNull(rlu.read(1));
+        assertEquals(1, (long) other.submit(rlu::compact).get());
+        assertTrue(elsewhere(() -> rlu.write(1, 12) && rlu.commit()));
+        rlu.write(2, 20);
+        assertFalse(rlu.commit(), "Key 1 was written again in a new entry");
+    }
+
+    @Test
+    @DisplayName("Multi-version: a tombstone stays while a snapshot from before it runs")
+    void testSnapshotHoldsTombstone() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().multiVersion(8).compactionThreshold(0));
+        rlu.write(1, 10);
+        assertTrue(rlu.commit());
+
+        rlu.readerLock();
+        assertEquals(10, rlu.read(1));
+        assertTrue(elsewhere(() -> rlu.remove(1) && rlu.commit()));
+        assertEquals(0, (long) other.submit(rlu::compact).get());
+        assertEquals(10, rlu.read(1), "The snapshot still sees the removed value");
+        rlu.readerUnlock();
+
+        assertEquals(1, rlu.compact());
+        assertNull(rlu.read(1));
+    }
+
+    @Test
+    @DisplayName("Ordered: compacted keys leave the index, rewritten keys come back once")
+    void testOrderedIndex() {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().ordered(true).compactionThreshold(0));
+        for (int i = 0; i < 10; i++) rlu.write(i, i);
+        assertTrue(rlu.commit());
+        for (int i = 0; i < 10; i += 2) rlu.remove(i);
+        assertTrue(rlu.commit());
+        assertEquals(5, rlu.compact());
+        rlu.write(4, 40);
+        assertTrue(rlu.commit());
+
+        List<Integer> keys = new ArrayList<>();
+        for (Iterator<Map.Entry<Integer, Integer>> it = rlu.scan(null, null); it.hasNext(); ) keys.add(it.next().getKey());
+        assertEquals(List.of(1, 3, 4, 5, 7, 9), keys);
+        assertEquals(1, rlu.firstKey());
+    }
+
+    @Test
+    @DisplayName("Insert/remove churn over fresh keys keeps the heap flat")
+    void testChurnHeapStaysFlat() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().shards(4));
+        int threads = 4;
+        int rounds = 250_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            churn(rlu, pool, threads, 0, rounds / 10); // warm up to steady state
+            long before = usedHeapAfterGc();
+            churn(rlu, pool, threads, rounds / 10, rounds);
+            long after = usedHeapAfterGc();
+
+            long keys = (long) threads * rounds;
+            assertTrue(entries(rlu) <= 4L * 2 * 1024, "entries " + entries(rlu) + " after " + keys + " removals");
+            // Without compaction every removed key keeps an entry, about 100 bytes each
+            assertTrue(after - before < 16L << 20, "heap grew by " + ((after - before) >> 10) + " KiB");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void churn(RLU<Integer> rlu, ExecutorService pool, int threads, int from, int to) throws Exception {
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int base = t;
+            done.add(pool.submit(() -> {
+                for (int i = from; i < to; i++) {
+                    int key = i * threads + base; // disjoint per thread, never reused
+                    rlu.write(key, i);
+                    assertTrue(rlu.commit());
+                    rlu.remove(key);
+                    assertTrue(rlu.commit());
+                }
+            }));
+        }
+        for (Future<?> f : done) f.get();
+    }
+
+    @Test
+    @DisplayName("A write based on a value removed and compacted since fails instead of vanishing")
+    void testStaleWriteAcrossCompaction() throws Exception {
+        for (boolean batchCommit : new boolean[]{true, false}) {
+            RLU<Integer> rlu = new RLU<>(new RLUConfig().compactionThreshold(0).batchCommit(batchCommit));
+            rlu.write(1, 10);
+            assertTrue(rlu.commit());
+
+            rlu.write(1, 11);
+            assertTrue(elsewhere(() -> rlu.remove(1) && rlu.commit()));
+            assertEquals(1L, other.submit(rlu::compact).get());
+            assertFalse(rlu.commit(), "The key changed under the write, batchCommit=" + batchCommit);
+            assertNull(rlu.read(1));
+        }
+    }
+
+    @Test
+    @DisplayName("Without batch commit, a stale entry fails the commit while the others still publish")
+    void testNonBatchConflictReported() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().batchCommit(false));
+        rlu.write(1, 10);
+        assertTrue(rlu.commit());
+
+        rlu.write(1, 11);
+        rlu.write(2, 20);
+        assertTrue(elsewhere(() -> rlu.write(1, 12) && rlu.commit()));
+        assertFalse(rlu.commit());
+        assertEquals(12, rlu.read(1));
+        assertEquals(20, rlu.read(2));
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,163 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RLUDurabilityTest {
+    @TempDir
+    Path dir;
+
+    private RLU<Integer> open(Durability durability) {
+        return new RLU<>(new RLUConfig().durable(dir, Serializer.INTEGER, durability).logSegmentSize(4096));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Durability.class)
+    @DisplayName("Committed batches and removals are replayed on restart")
+    void testReplay(Durability durability) {
+        try (RLU<Integer> rlu = open(durability)) {
+            for (int k = 0; k < 10; k++) rlu.write(k, k);
+            assertTrue(rlu.commit());
+            rlu.write(3, 33);
+            rlu.remove(4);
+            assertTrue(rlu.commit());
+            rlu.write(5, 55); // never committed
+        }
+        try (RLU<Integer> rlu = open(durability)) {
+            assertEquals(33, rlu.read(3));
+            assertNull(rlu.read(4));
+            assertEquals(5, rlu.read(5));
+            assertEquals(9, rlu.read(9));
+            rlu.write(4, 44);
+            assertTrue(rlu.commit(), "Versions continue after replay");
+        }
+        try (RLU<Integer> rlu = open(durability)) {
+            assertEquals(44, rlu.read(4));
+        }
+    }
+
+    @Test
+    @DisplayName("Failed commits are not logged")
+    void testAbortNotLogged() throws Exception {
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try (RLU<Integer> rlu = open(Durability.GROUP_SYNC)) {
+            rlu.write(1, 1);
+            assertTrue(rlu.commit());
+            rlu.write(1, 2); // captures version 1
+            assertTrue(other.submit(() -> rlu.write(1, 3) && rlu.commit()).get());
+            assertFalse(rlu.commit());
+        } finally {
+            other.shutdown();
+        }
+        try (RLU<Integer> rlu = open(Durability.GROUP_SYNC)) {
+            assertEquals(3, rlu.read(1));
+        }
+    }
+
+    @Test
+    @DisplayName("The log rolls over to new segments and replays across them")
+    void testSegments() {
+        try (RLU<Integer> rlu = open(Durability.NONE)) {
+            for (int k = 0; k < 2000; k++) {
+                rlu.write(k, -k);
+                assertTrue(rlu.commit());
+            }
+        }
+        try (RLU<Integer> rlu = new RLU<>(new RLUConfig().durable(dir, Serializer.INTEGER, Durability.NONE).logSegmentSize(4096).batchCommit(false))) {
+            for (int k = 0; k < 2000; k++) assertEquals(-k, rlu.read(k));
+            rlu.write(0, 1);
+            assertTrue(rlu.commit(), "Per-entry commits are logged too");
+        }
+        try (RLU<Integer> rlu = open(Durability.NONE)) {
+            assertEquals(1, rlu.read(0));
+        }
+        try (var files = Files.list(dir)) {
+            assertTrue(files.count() > 1);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Test
+    @DisplayName("A torn record at the tail is dropped")
+    void testTornTail() throws IOException {
+        try (RLU<Integer> rlu = open(Durability.GROUP_SYNC)) {
+            rlu.write(1, 1);
+            assertTrue(rlu.commit());
+            rlu.write(2, 2);
+            assertTrue(rlu.commit());
+        }
+        Path segment = dir.resolve("wal-0000000000.log");
+        // Flip a payload byte of the second record: 8-byte segment header, then records of
+        // 8 header + 13 payload bytes (count, flag, key, value)
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, 8 + 21 + 8 + 12);
+            b.flip();
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) (b.get() ^ 1)}), 8 + 21 + 8 + 12);
+        }
+        try (RLU<Integer> rlu = open(Durability.GROUP_SYNC)) {
+            assertEquals(1, rlu.read(1));
+            assertNull(rlu.read(2), "Record with a bad checksum is not applied");
+            rlu.write(3, 3);
+            assertTrue(rlu.commit());
+        }
+        try (RLU<Integer> rlu = open(Durability.GROUP_SYNC)) {
+            assertEquals(3, rlu.read(3), "Appends continue where the valid log ended");
+            assertNull(rlu.read(2));
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent group-sync committers are all durable")
+    void testGroupCommit() throws Exception {
+        final int threads = 4, perThread = 200;
+        try (RLU<Integer> rlu = open(Durability.GROUP_SYNC)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                CountDownLatch done = new CountDownLatch(threads);
+                for (int t = 0; t < threads; t++) {
+                    final int base = t * perThread;
+                    executor.submit(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            rlu.write(base + i, i);
+                            rlu.commit();
+                        }
+                        done.countDown();
+                    });
+                }
+                assertTrue(done.await(60, TimeUnit.SECONDS));
+            } finally {
+                executor.shutdown();
+            }
+        }
+        try (RLU<Integer> rlu = open(Durability.GROUP_SYNC)) {
+            for (int k = 0; k < threads * perThread; k++) assertEquals(k % perThread, rlu.read(k));
+        }
+    }
+
+    @Test
+    @DisplayName("Commits fail once the log is closed")
+    void testClosed() {
+        RLU<Integer> rlu = open(Durability.ASYNC);
+        rlu.close();
+        rlu.write(1, 1);
+        assertThrows(IllegalStateException.class, rlu::commit);
+        rlu.write(1, 1);
+        assertThrows(IllegalStateException.class, rlu::commit, "Entries were unlocked after the failure");
+        assertThrows(IllegalArgumentException.class,
+                () -> new RLU<Integer>(new RLUConfig().globalClock(true).durable(dir, Serializer.INTEGER, Durability.NONE)));
+    }
+}
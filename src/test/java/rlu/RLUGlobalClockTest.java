@@ -0,0 +1,122 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RLUGlobalClockTest {
+    private RLU<Integer> rlu;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        rlu = new RLU<>(new RLUConfig().globalClock(true));
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Basic write, commit and remove in global-clock mode")
+    void testBasicOperations() {
+        assertTrue(rlu.write(1, 100));
+        assertEquals(100, rlu.read(1), "Writer should see its own uncommitted copy");
+        assertTrue(rlu.commit());
+        assertEquals(100, rlu.read(1));
+
+        assertTrue(rlu.remove(1));
+        assertTrue(rlu.commit());
+        assertNull(rlu.read(1));
+        assertFalse(rlu.remove(1), "Removing a missing key should fail");
+    }
+
+    @Test
+    @DisplayName("Uncommitted copies are invisible to other threads")
+    void testIsolation() throws Exception {
+        Future<?> writer = executor.submit(() -> rlu.write(7, 70));
+        writer.get();
+        assertNull(executor.submit(() -> rlu.read(7)).get());
+    }
+
+    @Test
+    @DisplayName("A second writer on a locked key aborts")
+    void testWriteWriteConflict() throws Exception {
+        ExecutorService first = Executors.newSingleThreadExecutor();
+        ExecutorService second = Executors.newSingleThreadExecutor();
+        try {
+            assertTrue(first.submit(() -> rlu.write(1, 10)).get());
+            assertFalse(second.submit(() -> rlu.write(1, 20)).get(), "Key is locked by the first writer");
+            assertFalse(second.submit(rlu::commit).get(), "Aborted section has nothing to commit");
+            assertTrue(first.submit(rlu::commit).get());
+            assertEquals(10, rlu.read(1));
+        } finally {
+            first.shutdown();
+            second.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Readers never see half of a batch")
+    void testSnapshotReads() throws Exception {
+        rlu.write(1, 0);
+        rlu.write(2, 0);
+        rlu.commit();
+
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicInteger torn = new AtomicInteger();
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 1; i <= 2000; i++) {
+                assertTrue(rlu.write(1, i));
+                assertTrue(rlu.write(2, i));
+                assertTrue(rlu.commit());
+            }
+            done.set(true);
+        });
+        Future<?>[] readers = new Future<?>[3];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = executor.submit(() -> {
+                while (!done.get()) {
+                    rlu.readerLock();
+                    Integer a = rlu.read(1);
+                    Integer b = rlu.read(2);
+                    rlu.readerUnlock();
+                    if (!a.equals(b)) torn.incrementAndGet();
+                }
+            });
+        }
+        writer.get(30, TimeUnit.SECONDS);
+        for (Future<?> reader : readers) reader.get(30, TimeUnit.SECONDS);
+
+        assertEquals(0, torn.get(), "Readers observed a partially applied batch");
+        assertEquals(2000, rlu.read(1));
+        assertEquals(2000, rlu.read(2));
+    }
+
+    @Test
+    @DisplayName("synchronize waits for sections that are already running")
+    void testSynchronizeWaitsForReaders() throws Exception {
+        CountDownLatch inSection = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> reader = executor.submit(() -> {
+            rlu.readerLock();
+            inSection.countDown();
+            release.await();
+            rlu.readerUnlock();
+            return null;
+        });
+        inSection.await();
+
+        Future<?> sync = executor.submit(rlu::synchronize);
+        assertThrows(TimeoutException.class, () -> sync.get(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        sync.get(5, TimeUnit.SECONDS);
+        reader.get();
+    }
+}
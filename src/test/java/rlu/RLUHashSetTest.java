@@ -0,0 +1,98 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RLUHashSetTest {
+
+    @Test
+    @DisplayName("Add, contains and remove keep the set semantics")
+    void testBasicOperations() {
+        RLUHashSet<Integer> set = new RLUHashSet<>(4);
+        assertTrue(set.add(5));
+        assertTrue(set.add(1));
+        assertTrue(set.add(9));
+        assertFalse(set.add(5), "Duplicate add should fail");
+
+        assertTrue(set.contains(1));
+        assertTrue(set.contains(5));
+        assertFalse(set.contains(2));
+
+        assertTrue(set.remove(5));
+        assertFalse(set.remove(5), "Second remove should fail");
+        assertFalse(set.contains(5));
+        assertTrue(set.contains(9));
+    }
+
+    @Test
+    @DisplayName("Sorted list keeps order across inserts at the head, middle and tail")
+    void testLinkedListOrdering() {
+        RLULinkedList<Integer> list = new RLULinkedList<>();
+        int[] keys = {50, 10, 30, 70, 20, 60, 40};
+        for (int key : keys) assertTrue(list.add(key));
+        for (int key : keys) assertTrue(list.contains(key));
+        assertTrue(list.remove(10));
+        assertTrue(list.remove(70));
+        assertTrue(list.remove(40));
+        assertFalse(list.contains(10));
+        assertFalse(list.contains(70));
+        assertTrue(list.contains(30));
+    }
+
+    @Test
+    @DisplayName("Concurrent adders on disjoint keys lose nothing")
+    void testConcurrentDisjointAdds() throws InterruptedException {
+        RLUHashSet<Integer> set = new RLUHashSet<>(8);
+        int numThreads = 4;
+        int perThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        for (int t = 0; t < numThreads; t++) {
+            final int base = t * perThread;
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    assertTrue(set.add(base + i));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        for (int key = 0; key < numThreads * perThread; key++) {
+            assertTrue(set.contains(key), "Key " + key + " is missing");
+        }
+    }
+
+    @Test
+    @DisplayName("Successful adds and removes of the same keys balance out")
+    void testConcurrentAddRemoveBalance() throws InterruptedException {
+        RLUHashSet<Integer> set = new RLUHashSet<>(2);
+        int keyRange = 32;
+        AtomicInteger balance = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                ThreadLocalRandom rand = ThreadLocalRandom.current();
+                for (int i = 0; i < 5000; i++) {
+                    int key = rand.nextInt(keyRange);
+                    if (rand.nextBoolean()) {
+                        if (set.add(key)) balance.incrementAndGet();
+                    } else {
+                        if (set.remove(key)) balance.decrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        int present = 0;
+        for (int key = 0; key < keyRange; key++) {
+            if (set.contains(key)) present++;
+        }
+        assertEquals(balance.get(), present, "Set contents disagree with successful add/remove count");
+    }
+}
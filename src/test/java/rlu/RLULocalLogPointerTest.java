@@ -1,3 +1,5 @@
+package rlu;
+
 import org.junit.jupiter.api.*;
 import java.util.concurrent.*;
 
@@ -0,0 +1,164 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BinaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RLUMergeTest {
+    private static final BinaryOperator<Integer> ADD = (current, delta) -> current == null ? delta : current + delta;
+    private static final BinaryOperator<Integer> MAX = (current, value) -> current == null ? value : Math.max(current, value);
+
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Runs {@code increments} merges of +1 on {@code keys} counters from each of four threads.
+     * @return attempts that did not commit
+     */
+    private long mergeConcurrently(RLU<Integer> rlu, int increments, int keys) throws Exception {
+        ConcurrentLinkedQueue<Integer> failures = new ConcurrentLinkedQueue<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < increments; i++) {
+                    int key = i % keys;
+                    rlu.merge(key, 1, ADD);
+                    if (!rlu.commit()) failures.add(key);
+                }
+            }));
+        }
+        for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        return failures.size();
+    }
+
+    @Test
+    @DisplayName("Concurrent merges of a counter never conflict and lose no increments")
+    void testCounter() throws Exception {
+        for (RLUConfig config : List.of(new RLUConfig(), new RLUConfig().serializable(true),
+                new RLUConfig().multiVersion(4), new RLUConfig().batchCommit(false), new RLUConfig().combining(true))) {
+            RLU<Integer> rlu = new RLU<>(config);
+            assertEquals(0, mergeConcurrently(rlu, 5000, 2));
+            assertEquals(10_000, rlu.read(0));
+            assertEquals(10_000, rlu.read(1));
+        }
+    }
+
+    @Test
+    @DisplayName("A merge commits even though the key changed after the transaction began")
+    void testNoVersionValidation() throws Exception {
+        RLU<Integer> rlu = new RLU<>();
+        rlu.write(1, 5);
+        rlu.commit();
+        try (Transaction<Integer> tx = rlu.begin()) {
+            tx.merge(1, 10, MAX);
+            tx.write(2, 2);
+            assertTrue(pool.submit(() -> rlu.write(1, 20) && rlu.commit()).get());
+            assertTrue(tx.commit());
+        }
+        assertEquals(20, rlu.read(1), "max(20, 10), applied to the value at commit");
+        assertEquals(2, rlu.read(2));
+    }
+
+    @Test
+    @DisplayName("Reads show pending merges, which compose and apply on top of the caller's own writes")
+    void testReadsAndComposition() {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().ordered(true));
+        rlu.write(1, 100);
+        rlu.commit();
+
+        rlu.merge(1, 5, ADD);
+        rlu.merge(1, 3, (current, factor) -> current * factor);
+        assertEquals(315, rlu.read(1));
+        assertEquals(315, rlu.scan(1, 2).next().getValue());
+
+        rlu.write(2, 7);
+        rlu.merge(2, 1, ADD);
+        rlu.merge(3, 9, ADD);
+        assertEquals(9, rlu.read(3), "An absent key merges with null");
+        assertTrue(rlu.commit());
+        assertEquals(315, rlu.read(1));
+        assertEquals(8, rlu.read(2));
+        assertEquals(9, rlu.read(3));
+
+        rlu.merge(3, 0, (current, ignored) -> null);
+        assertTrue(rlu.commit());
+        assertNull(rlu.read(3), "A null result removes the key");
+    }
+
+    @Test
+    @DisplayName("In serializable mode, reading the merged value makes the commit depend on it")
+    void testSerializableRead() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().serializable(true));
+        rlu.write(1, 1);
+        rlu.commit();
+        try (Transaction<Integer> tx = rlu.begin()) {
+            tx.merge(1, 1, ADD);
+            assertEquals(2, tx.read(1));
+            assertTrue(pool.submit(() -> rlu.merge(1, 10, ADD) && rlu.commit()).get());
+            assertFalse(tx.commit());
+        }
+        assertEquals(11, rlu.read(1));
+    }
+
+    @Test
+    @DisplayName("A merge into a compacted key lands on the key's new entry")
+    void testMergeAfterCompaction() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().compactionThreshold(0));
+        rlu.write(1, 1);
+        rlu.commit();
+        try (Transaction<Integer> tx = rlu.begin()) {
+            tx.merge(1, 5, ADD);
+            pool.submit(() -> {
+                rlu.remove(1);
+                rlu.commit();
+                rlu.compact();
+            }).get();
+            assertTrue(tx.commit());
+        }
+        assertEquals(5, rlu.read(1));
+    }
+
+    @Test
+    @DisplayName("The write-ahead log records the merged value")
+    void testDurable(@TempDir Path dir) {
+        RLUConfig config = new RLUConfig().durable(dir, Serializer.INTEGER, Durability.NONE);
+        try (RLU<Integer> rlu = new RLU<>(config)) {
+            rlu.write(1, 40);
+            rlu.commit();
+            rlu.merge(1, 2, ADD);
+            rlu.commit();
+        }
+        try (RLU<Integer> reopened = new RLU<>(config)) {
+            assertEquals(42, reopened.read(1));
+        }
+    }
+
+    @Test
+    @DisplayName("The global-clock engine and the baseline stores apply merges as read and write")
+    void testOtherEngines() {
+        RLU<Integer> clock = new RLU<>(new RLUConfig().globalClock(true));
+        assertTrue(clock.merge(1, 3, ADD));
+        assertTrue(clock.commit());
+        assertEquals(3, clock.read(1));
+
+        TransactionalStore<Integer> store = new ReadWriteLockStore<>();
+        store.atomically(tx -> tx.merge(1, 3, ADD) && tx.merge(1, 4, MAX));
+        assertEquals(4, store.read(1));
+    }
+}
@@ -0,0 +1,152 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RLUMetricsTest {
+    private ExecutorService other;
+
+    @BeforeEach
+    void setUp() {
+        other = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        other.shutdown();
+    }
+
+    @Test
+    @DisplayName("Metrics are off unless configured")
+    void testDisabledByDefault() {
+        assertNull(new RLU<Integer>().getMetrics());
+        assertNotNull(new RLU<Integer>(new RLUConfig().metrics(true)).getMetrics());
+    }
+
+    @Test
+    @DisplayName("Commits, reads and write-set sizes are counted")
+    void testCommitsCounted() {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().metrics(true));
+        RLUMetrics metrics = rlu.getMetrics();
+        for (int i = 0; i < 10; i++) {
+            rlu.write(i, i);
+            rlu.write(i + 100, i);
+            assertTrue(rlu.commit());
+            rlu.read(i);
+        }
+        assertFalse(rlu.commit(), "Empty commit");
+
+        assertEquals(10, metrics.getCommits());
+        assertEquals(0, metrics.getAborts());
+        assertEquals(10, metrics.getReads());
+        assertEquals(2.0, metrics.getMeanWriteSetSize());
+        assertTrue(metrics.getCommitLatencyP99Nanos() >= metrics.getCommitLatencyP50Nanos());
+    }
+
+    @Test
+    @DisplayName("A stale batch is an abort and its key is reported as conflicting")
+    void testConflictRecorded() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().metrics(true));
+        RLUMetrics metrics = rlu.getMetrics();
+        rlu.write(7, 1);
+        assertTrue(rlu.commit());
+
+        rlu.write(7, 2); // captures version 1
+        assertTrue(other.submit(() -> rlu.write(7, 3) && rlu.commit()).get());
+        assertFalse(rlu.commit());
+
+        assertEquals(2, metrics.getCommits());
+        assertEquals(1, metrics.getAborts());
+        assertEquals(1.0 / 3, metrics.getAbortRate(), 1e-9);
+        List<Map.Entry<Object, Long>> top = metrics.topConflictingKeys(5);
+        assertEquals(1, top.size());
+        assertEquals(7, top.get(0).getKey());
+        assertEquals(1L, top.get(0).getValue());
+    }
+
+    @Test
+    @DisplayName("Counts of exited threads are kept")
+    void testExitedThreadsKept() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().metrics(true));
+        for (int t = 0; t < 4; t++) {
+            int key = t;
+            Thread thread = new Thread(() -> {
+                rlu.write(key, key);
+                rlu.commit();
+            });
+            thread.start();
+            thread.join();
+        }
+        rlu.write(99, 99);
+        rlu.commit(); // may reuse a dead thread's slot
+        assertEquals(5, rlu.getMetrics().getCommits());
+    }
+
+    @Test
+    @DisplayName("Global-clock lock conflicts count as aborts")
+    void testGlobalClockAbort() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().globalClock(true).metrics(true));
+        assertTrue(rlu.write(1, 1));
+        assertFalse(other.submit(() -> rlu.write(1, 2)).get(), "Key 1 is locked by this thread");
+        assertTrue(rlu.commit());
+
+        RLUMetrics metrics = rlu.getMetrics();
+        assertEquals(1, metrics.getCommits());
+        assertEquals(1, metrics.getAborts());
+        assertEquals(1, metrics.topConflictingKeys(1).get(0).getKey());
+    }
+
+    @Test
+    @DisplayName("Metrics are readable through the platform MBean server")
+    void testJmx() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().metrics(true));
+        RLUMetrics metrics = rlu.getMetrics();
+        metrics.registerMBean("metrics-test");
+        try {
+            rlu.write(1, 1);
+            rlu.commit();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("rlu:type=RLU,name=" + ObjectName.quote("metrics-test"));
+            assertEquals(1L, server.getAttribute(name, "Commits"));
+            assertThrows(IllegalStateException.class, () -> metrics.registerMBean("metrics-test"));
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, metrics.getCommits());
+        } finally {
+            metrics.unregisterMBean();
+        }
+    }
+
+    @Test
+    @DisplayName("A key that turns hot after the conflict table filled up reaches the top")
+    void testLateHotKey() {
+        RLUMetrics metrics = new RLUMetrics(16);
+        for (int key = 0; key < 100; key++) metrics.recordConflict(key); // warm-up fills the table
+        for (int i = 0; i < 50; i++) {
+            metrics.recordConflict(-1);
+            metrics.recordConflict(1000 + i); // cold keys keep churning through
+        }
+        List<Map.Entry<Object, Long>> top = metrics.topConflictingKeys(3);
+        assertEquals(-1, top.get(0).getKey());
+        assertTrue(top.get(0).getValue() >= 50, "Never undercounted");
+        assertTrue(top.get(1).getValue() < top.get(0).getValue());
+    }
+
+    @Test
+    @DisplayName("Percentiles are bucket upper bounds")
+    void testPercentile() {
+        long[] buckets = new long[64];
+        buckets[RLUMetrics.bucket(100)] = 99;
+        buckets[RLUMetrics.bucket(5000)] = 1;
+        assertEquals(127, RLUMetrics.percentile(buckets, 0.50));
+        assertEquals(127, RLUMetrics.percentile(buckets, 0.99));
+        assertEquals(8191, RLUMetrics.percentile(buckets, 0.999));
+    }
+}
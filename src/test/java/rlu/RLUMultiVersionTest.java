@@ -0,0 +1,213 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RLUMultiVersionTest {
+    private RLU<Integer> rlu;
+    private ExecutorService other;
+
+    @BeforeEach
+    void setUp() {
+        rlu = new RLU<>(new RLUConfig().multiVersion(8));
+        other = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        other.shutdown();
+    }
+
+    private boolean commitElsewhere(int key, Integer value) throws Exception {
+        return other.submit(() -> rlu.write(key, value) && rlu.commit()).get();
+    }
+
+    @Test
+    @DisplayName("A section keeps reading the values from when it started")
+    void testSnapshotRead() throws Exception {
+        rlu.write(1, 10);
+        assertTrue(rlu.commit());
+
+        rlu.readerLock();
+        assertEquals(10, rlu.read(1));
+        assertTrue(commitElsewhere(1, 11));
+        assertTrue(commitElsewhere(2, 20));
+        assertEquals(10, rlu.read(1), "Commit after the snapshot is invisible");
+        assertNull(rlu.read(2), "Key created after the snapshot is absent");
+        rlu.readerUnlock();
+
+        assertEquals(11, rlu.read(1));
+        assertEquals(20, rlu.read(2));
+    }
+
+    @Test
+    @DisplayName("A section sees its own pending writes")
+    void testOwnWritesVisible() throws Exception {
+        rlu.write(1, 10);
+        assertTrue(rlu.commit());
+        rlu.readerLock();
+        rlu.write(1, 12);
+        assertEquals(12, rlu.read(1));
+        assertTrue(rlu.commit(), "commit() also ends the section");
+        assertTrue(commitElsewhere(1, 13));
+        assertEquals(13, rlu.read(1));
+    }
+
+    @Test
+    @DisplayName("Versions nobody can see are dropped when the key is next committed")
+    void testReclamation() {
+        LogEntry<Integer> entry = new LogEntry<>(1, 0L, true);
+        long stamp = entry.lock(0);
+        entry.publishVersion(stamp, 1, 1, 1, 0, 8);
+        assertEquals(2, entry.versionCount(), "Version 0 is still visible at horizon 0");
+        stamp = entry.lock(1);
+        entry.publishVersion(stamp, 2, 2, 2, 1, 8);
+        assertEquals(2, entry.versionCount(), "Version 1 is still visible at horizon 1");
+        stamp = entry.lock(2);
+        entry.publishVersion(stamp, 3, 3, 3, 3, 8);
+        assertEquals(1, entry.versionCount(), "Only the newest version is visible at horizon 3");
+        assertEquals(3, entry.readAsOf(3));
+    }
+
+    @Test
+    @DisplayName("A running section keeps the versions it can see")
+    void testSectionPinsVersions() throws Exception {
+        rlu.write(1, 0);
+        assertTrue(rlu.commit());
+        rlu.readerLock();
+        for (int i = 1; i <= 5; i++) assertTrue(commitElsewhere(1, i));
+        assertEquals(0, rlu.read(1));
+        rlu.readerUnlock();
+        assertTrue(commitElsewhere(1, 6));
+        assertEquals(6, rlu.read(1));
+    }
+
+    @Test
+    @DisplayName("A snapshot whose version fell off the bounded chain fails")
+    void testSnapshotTooOld() throws Exception {
+        RLU<Integer> bounded = new RLU<>(new RLUConfig().multiVersion(2));
+        bounded.write(1, 0);
+        assertTrue(bounded.commit());
+        bounded.readerLock();
+        for (int i = 1; i <= 3; i++) {
+            int value = i;
+            assertTrue(other.submit(() -> bounded.write(1, value) && bounded.commit()).get());
+        }
+        assertThrows(SnapshotTooOldException.class, () -> bounded.read(1));
+        bounded.readerUnlock();
+        assertEquals(3, bounded.read(1));
+    }
+
+    @Test
+    @DisplayName("Concurrent snapshots always see whole batches")
+    void testConsistentSnapshots() throws Exception {
+        final int keys = 8;
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger torn = new AtomicInteger();
+        AtomicInteger tooOld = new AtomicInteger();
+        Thread[] writers = new Thread[2];
+        for (int w = 0; w < writers.length; w++) {
+            int writer = w;
+            writers[w] = new Thread(() -> {
+                for (int round = 0; !stop.get(); round++) {
+                    for (int i = 0; i < keys; i++) rlu.write(i, writer * 1_000_000 + round);
+                    rlu.commit();
+                }
+            });
+            writers[w].start();
+        }
+        Future<?> reader = other.submit(() -> {
+            for (int round = 0; round < 20_000; round++) {
+                rlu.readerLock();
+                try {
+                    Integer first = rlu.read(0);
+                    for (int i = 1; i < keys; i++) {
+                        if (!java.util.Objects.equals(first, rlu.read(i))) torn.incrementAndGet();
+                    }
+                } catch (SnapshotTooOldException e) {
+                    tooOld.incrementAndGet(); // bound of 8 versions reached, start over
+                } finally {
+                    rlu.readerUnlock();
+                }
+            }
+        });
+        reader.get(30, TimeUnit.SECONDS);
+        stop.set(true);
+        for (Thread writer : writers) writer.join();
+        assertEquals(0, torn.get(), "Every snapshot sees each batch entirely or not at all");
+        assertTrue(tooOld.get() < 20_000, "Most snapshots complete");
+    }
+
+    @Test
+    @DisplayName("A write to a key committed after the snapshot fails the commit: first committer wins")
+    void testFirstCommitterWins() throws Exception {
+        rlu.write(1, 10);
+        assertTrue(rlu.commit());
+
+        rlu.readerLock();
+        int read = rlu.read(1);
+        assertTrue(commitElsewhere(1, 11));
+        rlu.write(1, read + 1);
+        assertFalse(rlu.commit(), "Would overwrite 11, which the snapshot never saw");
+        assertEquals(11, rlu.read(1));
+
+        rlu.readerLock();
+        rlu.write(1, rlu.read(1) + 1);
+        assertTrue(commitElsewhere(2, 20)); // another key
+        assertTrue(rlu.commit());
+        assertEquals(12, rlu.read(1));
+
+        try (Transaction<Integer> tx = rlu.begin()) {
+            assertTrue(commitElsewhere(1, 13));
+            tx.write(1, tx.read(1) + 1);
+            assertFalse(tx.commit());
+        }
+        assertEquals(13, rlu.read(1));
+    }
+
+    @Test
+    @DisplayName("Concurrent read-modify-write increments in atomically lose no update")
+    void testAtomicallyCounter() throws Exception {
+        rlu.write(1, 0);
+        assertTrue(rlu.commit());
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) rlu.atomically(tx -> tx.write(1, tx.read(1) + 1));
+                }));
+            }
+            for (Future<?> f : futures) f.get(120, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(80_000, rlu.read(1));
+    }
+
+    @Test
+    @DisplayName("Multi-version mode cannot be combined with serializable mode")
+    void testRejectsSerializable() {
+        assertThrows(IllegalArgumentException.class, () -> new RLUConfig().multiVersion(8).serializable(true));
+        assertThrows(IllegalArgumentException.class, () -> new RLUConfig().serializable(true).multiVersion(8));
+        assertDoesNotThrow(() -> new RLUConfig().serializable(true).multiVersion(0));
+    }
+
+    @Test
+    @DisplayName("Single-version mode keeps no history")
+    void testSingleVersion() {
+        RLU<Integer> single = new RLU<>();
+        single.readerLock();
+        single.write(1, 1);
+        assertTrue(single.commit());
+        assertEquals(1, single.read(1));
+        assertThrows(IllegalArgumentException.class, () -> new RLUConfig().multiVersion(-1));
+    }
+}
@@ -0,0 +1,150 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RLUOrderedTest {
+    private RLU<Integer> rlu;
+    private ExecutorService other;
+
+    @BeforeEach
+    void setUp() {
+        rlu = new RLU<>(new RLUConfig().ordered(true));
+        other = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        other.shutdown();
+    }
+
+    private static List<Integer> keys(Iterator<Map.Entry<Integer, Integer>> it) {
+        List<Integer> keys = new ArrayList<>();
+        it.forEachRemaining(e -> keys.add(e.getKey()));
+        return keys;
+    }
+
+    @Test
+    @DisplayName("Scans return keys in [from, to) in order")
+    void testScanRange() {
+        for (int k : new int[]{50, 10, 40, 20, 30}) rlu.write(k, k * 10);
+        assertTrue(rlu.commit());
+
+        assertEquals(List.of(20, 30, 40), keys(rlu.scan(20, 50)));
+        assertEquals(List.of(10, 20, 30, 40, 50), keys(rlu.scan(null, null)));
+        assertEquals(List.of(40, 50), keys(rlu.scan(35, null)));
+        assertEquals(List.of(), keys(rlu.scan(60, 70)));
+
+        Iterator<Map.Entry<Integer, Integer>> it = rlu.scan(10, 20);
+        assertEquals(Map.entry(10, 100), it.next());
+        assertFalse(it.hasNext());
+        assertThrows(NoSuchElementException.class, it::next);
+    }
+
+    @Test
+    @DisplayName("firstKey and ceiling skip removed keys")
+    void testFirstKeyAndCeiling() {
+        assertNull(rlu.firstKey());
+        for (int k = 1; k <= 5; k++) rlu.write(k, k);
+        assertTrue(rlu.commit());
+        rlu.remove(1);
+        rlu.remove(3);
+        assertTrue(rlu.commit());
+
+        assertEquals(2, rlu.firstKey());
+        assertEquals(4, rlu.ceiling(3));
+        assertEquals(2, rlu.ceiling(2));
+        assertNull(rlu.ceiling(6));
+        assertEquals(List.of(2, 4, 5), keys(rlu.scan(null, null)));
+    }
+
+    @Test
+    @DisplayName("A scan shows the caller's pending writes to existing keys")
+    void testPendingWritesVisible() {
+        rlu.write(1, 1);
+        rlu.write(2, 2);
+        assertTrue(rlu.commit());
+        rlu.write(1, 100);
+        rlu.remove(2);
+        Iterator<Map.Entry<Integer, Integer>> it = rlu.scan(null, null);
+        assertEquals(Map.entry(1, 100), it.next());
+        assertFalse(it.hasNext());
+        rlu.discard(1);
+        rlu.discard(2);
+    }
+
+    @Test
+    @DisplayName("Scans over a multi-version snapshot ignore later commits")
+    void testSnapshotScan() throws Exception {
+        RLU<Integer> mv = new RLU<>(new RLUConfig().ordered(true).multiVersion(8));
+        for (int k = 0; k < 10; k++) mv.write(k, 0);
+        assertTrue(mv.commit());
+
+        mv.readerLock();
+        Iterator<Map.Entry<Integer, Integer>> it = mv.scan(null, null);
+        assertEquals(Map.entry(0, 0), it.next());
+        assertTrue(other.submit(() -> {
+            for (int k = 0; k < 12; k++) mv.write(k, 1);
+            return mv.commit();
+        }).get());
+        int seen = 1;
+        while (it.hasNext()) {
+            assertEquals(0, it.next().getValue());
+            seen++;
+        }
+        mv.readerUnlock();
+        assertEquals(10, seen, "Keys 10 and 11 were inserted after the snapshot");
+        assertEquals(12, keys(mv.scan(null, null)).size());
+    }
+
+    @Test
+    @DisplayName("Lazy scans keep working under concurrent commits")
+    void testConcurrentScan() throws Exception {
+        for (int k = 0; k < 1000; k += 2) rlu.write(k, k);
+        assertTrue(rlu.commit());
+        AtomicBoolean stop = new AtomicBoolean();
+        Future<?> writer = other.submit(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (!stop.get()) {
+                int k = random.nextInt(500) * 2 + 1; // odd keys come and go
+                if (random.nextBoolean()) rlu.write(k, k); else rlu.remove(k);
+                rlu.commit();
+            }
+        });
+        AtomicInteger rounds = new AtomicInteger();
+        try {
+            for (; rounds.get() < 200; rounds.incrementAndGet()) {
+                int previous = -1, even = 0;
+                for (Iterator<Map.Entry<Integer, Integer>> it = rlu.scan(null, null); it.hasNext(); ) {
+                    Map.Entry<Integer, Integer> e = it.next();
+                    assertTrue(e.getKey() > previous, "Keys are strictly ascending");
+                    assertEquals(e.getKey(), e.getValue());
+                    if (e.getKey() % 2 == 0) even++;
+                    previous = e.getKey();
+                }
+                assertEquals(500, even, "Keys nobody touches are always seen");
+            }
+        } finally {
+            stop.set(true);
+            writer.get();
+        }
+    }
+
+    @Test
+    @DisplayName("Scans need an ordered RLU")
+    void testUnordered() {
+        assertThrows(IllegalStateException.class, () -> new RLU<Integer>().scan(null, null));
+        assertThrows(IllegalStateException.class, () -> new RLU<Integer>(new RLUConfig().globalClock(true)).firstKey());
+        assertThrows(IllegalArgumentException.class, () -> new RLU<Integer>(new RLUConfig().globalClock(true).ordered(true)));
+    }
+}
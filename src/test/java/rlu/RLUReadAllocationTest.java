@@ -0,0 +1,103 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plain reads must not allocate: they are most of the traffic, and per-read garbage shows up as
+ * GC pauses at high read rates. Measured with the calling thread's allocation counter, after a
+ * warm-up so class loading and interpreter profiling are out of the way.
+ */
+class RLUReadAllocationTest {
+    private static final int KEYS = 1024;
+    private static final int READS = 200_000;
+    // Well under one byte per read; a read that allocates anything costs at least 16
+    private static final long BUDGET = 16 * 1024;
+
+    private static com.sun.management.ThreadMXBean threads;
+    private static Integer[] keys;
+
+    @BeforeAll
+    static void setUp() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "no allocation counter");
+        threads = (com.sun.management.ThreadMXBean) bean;
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported(), "no allocation counter");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        keys = new Integer[KEYS];
+        for (int i = 0; i < KEYS; i++) keys[i] = i;
+    }
+
+    private static RLU<Integer> loaded(RLUConfig config) {
+        RLU<Integer> rlu = new RLU<>(config);
+        for (Integer key : keys) rlu.write(key, key);
+        rlu.commit();
+        return rlu;
+    }
+
+    private static long readAll(RLU<Integer> rlu) {
+        long sum = 0;
+        for (int i = 0; i < READS; i++) {
+            Integer value = rlu.read(keys[i & (KEYS - 1)]);
+            if (value != null) sum += value;
+        }
+        return sum;
+    }
+
+    private static long allocatedByReads(RLU<Integer> rlu) {
+        for (int i = 0; i < 5; i++) readAll(rlu); // warm up
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        long sum = readAll(rlu);
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+        assertTrue(sum > 0);
+        return allocated;
+    }
+
+    @Test
+    @DisplayName("Reads without pending writes allocate nothing")
+    void testDefault() {
+        RLU<Integer> rlu = loaded(new RLUConfig());
+        long allocated = allocatedByReads(rlu);
+        assertTrue(allocated < BUDGET, allocated + " bytes for " + READS + " reads");
+    }
+
+    @Test
+    @DisplayName("Reads of a sharded, ordered RLU allocate nothing")
+    void testShardedOrdered() {
+        RLU<Integer> rlu = loaded(new RLUConfig().shards(8).ordered(true));
+        long allocated = allocatedByReads(rlu);
+        assertTrue(allocated < BUDGET, allocated + " bytes for " + READS + " reads");
+    }
+
+    @Test
+    @DisplayName("Snapshot reads in multi-version mode allocate nothing")
+    void testMultiVersion() {
+        RLU<Integer> rlu = loaded(new RLUConfig().multiVersion(4));
+        for (Integer key : keys) rlu.write(key, key + 1);
+        rlu.commit();
+        long outside = allocatedByReads(rlu);
+        assertTrue(outside < BUDGET, outside + " bytes for " + READS + " reads");
+        rlu.readerLock();
+        try {
+            long inside = allocatedByReads(rlu);
+            assertTrue(inside < BUDGET, inside + " bytes for " + READS + " snapshot reads");
+        } finally {
+            rlu.readerUnlock();
+        }
+    }
+
+    @Test
+    @DisplayName("Reads alongside the caller's own pending writes allocate nothing")
+    void testWithPendingWrites() {
+        RLU<Integer> rlu = loaded(new RLUConfig());
+        rlu.write(keys[0], -1);
+        long allocated = allocatedByReads(rlu);
+        assertTrue(allocated < BUDGET, allocated + " bytes for " + READS + " reads");
+        assertEquals(-1, rlu.read(keys[0]));
+        rlu.abortTransaction();
+    }
+}
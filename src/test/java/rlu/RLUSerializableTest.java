@@ -0,0 +1,117 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RLUSerializableTest {
+    private RLU<Integer> rlu;
+    private ExecutorService other;
+
+    @BeforeEach
+    void setUp() {
+        rlu = new RLU<>(new RLUConfig().serializable(true));
+        other = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        other.shutdown();
+    }
+
+    @Test
+    @DisplayName("A commit fails when a key it read was changed by another thread")
+    void testStaleReadAborts() throws Exception {
+        rlu.write(1, 10);
+        rlu.write(2, 20);
+        assertTrue(rlu.commit());
+
+        Integer x = rlu.read(1);
+        assertTrue(other.submit(() -> rlu.write(1, 11) && rlu.commit()).get());
+        rlu.write(2, x + 1);
+
+        assertFalse(rlu.commit(), "Read of key 1 is stale, commit must fail");
+        assertEquals(20, rlu.read(2), "Nothing from the failed transaction is published");
+    }
+
+    @Test
+    @DisplayName("A key that was absent when read must still be absent at commit")
+    void testPhantomInsertAborts() throws Exception {
+        assertNull(rlu.read(5));
+        assertTrue(other.submit(() -> rlu.write(5, 50) && rlu.commit()).get());
+        rlu.write(6, 60);
+        assertFalse(rlu.commit());
+        assertNull(rlu.read(6));
+    }
+
+    @Test
+    @DisplayName("Read-only transactions are validated too, without publishing anything")
+    void testReadOnlyValidated() throws Exception {
+        rlu.write(1, 1);
+        rlu.commit();
+        rlu.read(1);
+        assertTrue(rlu.commit(), "Nothing changed since the read");
+
+        rlu.read(1);
+        assertTrue(other.submit(() -> rlu.write(1, 2) && rlu.commit()).get());
+        assertFalse(rlu.commit(), "Key 1 changed after it was read");
+
+        // The stale read must not leak into the next transaction
+        rlu.write(3, 3);
+        assertTrue(rlu.commit());
+    }
+
+    @Test
+    @DisplayName("A read-only atomically body that saw two states runs again")
+    void testReadOnlyAtomicallyRetries() {
+        rlu.write(1, 50);
+        rlu.write(2, 50);
+        rlu.commit();
+        AtomicInteger attempts = new AtomicInteger();
+        int total = rlu.atomically(tx -> {
+            int first = tx.read(1);
+            if (attempts.incrementAndGet() == 1) {
+                try { // a transfer lands between the two reads
+                    assertTrue(other.submit(() -> rlu.atomically(t -> t.write(1, t.read(1) - 10) && t.write(2, t.read(2) + 10))).get());
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            }
+            return first + tx.read(2);
+        });
+        assertEquals(100, total);
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    @DisplayName("Concurrent read-modify-write increments lose no updates")
+    void testNoLostUpdates() throws InterruptedException {
+        rlu.write(0, 0);
+        rlu.commit();
+
+        int numThreads = 4;
+        int increments = 500;
+        AtomicInteger committed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        for (int t = 0; t < numThreads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < increments; i++) {
+                    while (true) {
+                        Integer current = rlu.read(0);
+                        rlu.write(0, current + 1);
+                        if (rlu.commit()) break;
+                    }
+                    committed.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(numThreads * increments, committed.get());
+        assertEquals(numThreads * increments, rlu.read(0), "Every committed increment must be visible");
+    }
+}
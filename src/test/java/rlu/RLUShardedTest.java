@@ -0,0 +1,99 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RLUShardedTest {
+    private static final int SHARDS = 8;
+    private RLU<Integer> rlu;
+
+    @BeforeEach
+    void setUp() {
+        rlu = new RLU<>(new RLUConfig().shards(SHARDS).metrics(true));
+    }
+
+    @Test
+    @DisplayName("Keys spread over every shard and read back")
+    void testSpread() {
+        for (int k = 0; k < 1000; k++) {
+            rlu.write(k, k);
+            assertTrue(rlu.commit());
+        }
+        for (int k = 0; k < 1000; k++) assertEquals(k, rlu.read(k));
+
+        List<ShardStats> stats = rlu.getShardStats();
+        assertEquals(SHARDS, stats.size());
+        long entries = 0;
+        for (ShardStats shard : stats) {
+            assertTrue(shard.getEntries() > 0, "Shard " + shard.getShard() + " got no keys");
+            assertEquals(shard.getEntries(), shard.getWrites());
+            assertEquals(shard.getEntries(), shard.getSingleShardCommits());
+            entries += shard.getEntries();
+        }
+        assertEquals(1000, entries);
+    }
+
+    @Test
+    @DisplayName("Batches are counted as single-shard or cross-shard")
+    void testCrossShardStats() {
+        MainLog<Integer> log = new MainLog<>(new RLUConfig().shards(SHARDS), new RLUMetrics());
+        WriteSet<Integer> batch = new WriteSet<>();
+        for (int k = 0; k < 64; k++) batch.put(k, k, 0);
+        assertTrue(log.commit(batch, true));
+        assertEquals(1, log.getCrossShardCommits());
+        for (int k = 0; k < 64; k++) assertEquals(k, log.getValue(k));
+
+        batch.put(0, 1, 1);
+        assertTrue(log.commit(batch, true));
+        assertEquals(1, log.getCrossShardCommits());
+        long single = 0;
+        for (ShardStats shard : log.getShardStats()) single += shard.getSingleShardCommits();
+        assertEquals(1, single);
+    }
+
+    @Test
+    @DisplayName("Batches spanning shards are published all-or-nothing")
+    void testCrossShardAtomicity() throws Exception {
+        final int keys = 32; // lands in every shard
+        for (int k = 0; k < keys; k++) rlu.write(k, -1);
+        assertTrue(rlu.commit());
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            CountDownLatch done = new CountDownLatch(3);
+            for (int t = 0; t < 3; t++) {
+                final int thread = t;
+                executor.submit(() -> {
+                    for (int round = 0; round < 300; round++) {
+                        for (int k = 0; k < keys; k++) {
+                            rlu.write(thread % 2 == 0 ? k : keys - 1 - k, thread * 1000 + round);
+                        }
+                        rlu.commit();
+                    }
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS), "Committers did not finish, possible deadlock");
+        } finally {
+            executor.shutdown();
+        }
+
+        Integer first = rlu.read(0);
+        for (int k = 1; k < keys; k++) {
+            assertEquals(first, rlu.read(k), "Key " + k + " was written by a different batch than key 0");
+        }
+    }
+
+    @Test
+    @DisplayName("Shard counts must be powers of two")
+    void testConfig() {
+        assertThrows(IllegalArgumentException.class, () -> new RLUConfig().shards(0));
+        assertThrows(IllegalArgumentException.class, () -> new RLUConfig().shards(6));
+        assertEquals(1, new RLU<Integer>().getShardStats().size());
+        assertTrue(new RLU<Integer>(new RLUConfig().globalClock(true)).getShardStats().isEmpty());
+    }
+}
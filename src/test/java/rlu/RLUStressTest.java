@@ -1,3 +1,5 @@
+package rlu;
+
 import org.junit.jupiter.api.Test;
 
 import java.util.Random;
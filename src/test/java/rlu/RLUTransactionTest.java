@@ -0,0 +1,118 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RLUTransactionTest {
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("A handle begun on one thread can be written and committed on others")
+    void testHandoffAcrossThreads() throws Exception {
+        RLU<Integer> rlu = new RLU<>();
+        Transaction<Integer> tx = rlu.begin();
+        tx.write(1, 10);
+
+        boolean committed = CompletableFuture.supplyAsync(() -> {
+            tx.write(2, 20);
+            return tx;
+        }, pool).thenApplyAsync(Transaction::commit, pool).get();
+
+        assertTrue(committed);
+        assertEquals(10, rlu.read(1));
+        assertEquals(20, rlu.read(2));
+    }
+
+    @Test
+    @DisplayName("Handles on the same thread do not see each other's pending writes")
+    void testHandlesAreIsolated() {
+        RLU<Integer> rlu = new RLU<>();
+        Transaction<Integer> a = rlu.begin();
+        Transaction<Integer> b = rlu.begin();
+        a.write(1, 10);
+        assertEquals(10, a.read(1));
+        assertNull(b.read(1));
+        assertNull(rlu.read(1), "The thread's own log is untouched");
+
+        b.write(1, 11);
+        assertTrue(a.commit());
+        assertFalse(b.commit(), "Written on a version a already replaced");
+        assertEquals(10, rlu.read(1));
+    }
+
+    @Test
+    @DisplayName("Finished handles return their logs to the pool")
+    void testLogsAreReused() throws Exception {
+        RLU<Integer> rlu = new RLU<>();
+        for (int i = 0; i < 1000; i++) {
+            try (Transaction<Integer> tx = rlu.begin()) {
+                tx.write(i % 10, i);
+                if (i % 2 == 0) tx.commit();
+            }
+        }
+        assertEquals(1, rlu.pooledLogsCreated());
+
+        CompletableFuture<?>[] hops = new CompletableFuture<?>[1000];
+        for (int i = 0; i < hops.length; i++) {
+            int key = i;
+            hops[i] = CompletableFuture.supplyAsync(rlu::begin, pool)
+                    .thenApplyAsync(tx -> tx.write(key, key) && tx.commit(), pool);
+        }
+        CompletableFuture.allOf(hops).get();
+        assertTrue(rlu.pooledLogsCreated() <= 16L * LogPool.PER_STRIPE,
+                "created " + rlu.pooledLogsCreated());
+        assertEquals(999, rlu.read(999));
+    }
+
+    @Test
+    @DisplayName("In multi-version mode a handle reads as of its begin")
+    void testHandleSnapshot() throws Exception {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().multiVersion(8));
+        rlu.write(1, 10);
+        assertTrue(rlu.commit());
+
+        Transaction<Integer> tx = rlu.begin();
+        assertTrue(pool.submit(() -> rlu.write(1, 11) && rlu.commit()).get());
+        assertEquals(10, pool.submit(() -> tx.read(1)).get(), "Snapshot travels with the handle");
+        assertTrue(pool.submit(() -> rlu.write(1, 12) && rlu.commit()).get());
+        assertEquals(12, rlu.read(1));
+        assertEquals(3, rlu.retainedVersions(), "The handle's version is kept");
+        tx.abort();
+
+        assertTrue(pool.submit(() -> rlu.write(1, 13) && rlu.commit()).get());
+        assertEquals(2, rlu.retainedVersions(), "Versions only the handle could see are reclaimed");
+    }
+
+    @Test
+    @DisplayName("A finished handle cannot be used again")
+    void testFinishedHandle() {
+        RLU<Integer> rlu = new RLU<>();
+        Transaction<Integer> tx = rlu.begin();
+        assertTrue(tx.commit(), "A read-only handle commits");
+        assertThrows(IllegalStateException.class, () -> tx.read(1));
+        assertThrows(IllegalStateException.class, () -> tx.write(1, 1));
+        assertThrows(IllegalStateException.class, tx::commit);
+        assertThrows(IllegalStateException.class, tx::abort);
+        tx.close(); // closing a finished handle is a no-op
+    }
+
+    @Test
+    @DisplayName("The global-clock engine has no explicit handles")
+    void testGlobalClockRejected() {
+        RLU<Integer> rlu = new RLU<>(new RLUConfig().globalClock(true));
+        assertThrows(IllegalStateException.class, rlu::begin);
+    }
+}
@@ -0,0 +1,94 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadRegistryTest {
+
+    @Test
+    @DisplayName("Each thread gets its own state and keeps it")
+    void testPerThreadState() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        ThreadRegistry<int[]> registry = new ThreadRegistry<>(() -> new int[]{created.incrementAndGet()}, s -> {});
+
+        int[] mine = registry.get();
+        assertSame(mine, registry.get(), "Repeated lookups must return the same state");
+
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            int[] theirs = other.submit(registry::get).get();
+            assertNotSame(mine, theirs);
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Deregistered slots are reset and reused")
+    void testDeregisterReusesSlot() throws Exception {
+        AtomicInteger resets = new AtomicInteger();
+        ThreadRegistry<int[]> registry = new ThreadRegistry<>(() -> new int[1], s -> resets.incrementAndGet());
+
+        int[] first = registry.get();
+        registry.deregister();
+        assertEquals(1, resets.get());
+
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            assertSame(first, other.submit(registry::get).get(), "The released slot should be handed out again");
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Slots of dead threads are reclaimed, so capacity stays bounded under churn")
+    void testThreadChurnStaysBounded() throws InterruptedException {
+        ThreadRegistry<int[]> registry = new ThreadRegistry<>(() -> new int[1], s -> s[0] = 0);
+
+        for (int round = 0; round < 200; round++) {
+            Thread[] threads = new Thread[4];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread(() -> registry.get()[0]++);
+                threads[i].start();
+            }
+            for (Thread t : threads) t.join();
+        }
+
+        assertTrue(registry.capacity() <= 16,
+                "800 short-lived threads should reuse slots, but capacity grew to " + registry.capacity());
+    }
+
+    @Test
+    @DisplayName("RLU keeps working across thread churn")
+    void testRLUUnderThreadChurn() throws InterruptedException {
+        RLU<Integer> rlu = new RLU<>();
+        for (int round = 0; round < 100; round++) {
+            final int value = round;
+            Thread writer = new Thread(() -> {
+                rlu.write(1, value);
+                rlu.commit();
+            });
+            writer.start();
+            writer.join();
+            assertEquals(value, rlu.read(1));
+        }
+
+        // A thread that dies with uncommitted writes must not leak them into the next owner
+        Thread abandoned = new Thread(() -> rlu.write(2, 2));
+        abandoned.start();
+        abandoned.join();
+        AtomicInteger committed = new AtomicInteger();
+        Thread next = new Thread(() -> {
+            if (rlu.commit()) committed.incrementAndGet();
+        });
+        next.start();
+        next.join();
+        assertEquals(0, committed.get(), "Reclaimed slot should start empty");
+        assertNull(rlu.read(2));
+    }
+}
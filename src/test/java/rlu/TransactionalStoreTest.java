@@ -0,0 +1,134 @@
+package rlu;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionalStoreTest {
+
+    /**
+     * RLU in serializable mode, so that its transactions are isolated like the baselines' are.
+     */
+    private static TransactionalStore<Integer> store(String name, boolean ordered) {
+        switch (name) {
+            case "rlu":
+                return new RLU<>(new RLUConfig().ordered(ordered).serializable(true));
+            case "globallock":
+                return new GlobalLockStore<>(ordered);
+            case "rwlock":
+                return new ReadWriteLockStore<>(ordered);
+            case "stamped":
+                return new StampedLockStore<>(ordered);
+            default:
+                return new CopyOnWriteStore<>(ordered);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"rlu", "globallock", "rwlock", "stamped", "cow"})
+    void testOwnWritesAndRemoves(String name) {
+        TransactionalStore<Integer> store = store(name, false);
+        Integer result = store.atomically(tx -> {
+            tx.write(1, 10);
+            tx.write(2, 20);
+            assertEquals(10, tx.read(1));
+            assertTrue(tx.remove(2));
+            assertNull(tx.read(2));
+            assertFalse(tx.remove(3));
+            return 3;
+        });
+        assertEquals(3, result);
+        assertEquals(10, store.read(1));
+        assertNull(store.read(2));
+
+        store.atomically(tx -> tx.write(1, null));
+        assertNull(store.read(1));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"rlu", "globallock", "rwlock", "stamped", "cow"})
+    void testThrowingBodyPublishesNothing(String name) {
+        TransactionalStore<Integer> store = store(name, false);
+        store.atomically(tx -> tx.write(1, 10));
+        assertThrows(IllegalStateException.class, () -> store.atomically(tx -> {
+            tx.write(1, 11);
+            tx.write(2, 20);
+            throw new IllegalStateException("rolled back");
+        }));
+        assertEquals(10, store.read(1));
+        assertNull(store.read(2));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"rlu", "globallock", "rwlock", "stamped", "cow"})
+    void testScanSeesPendingWrites(String name) {
+        TransactionalStore<Integer> store = store(name, true);
+        store.atomically(tx -> {
+            for (int i = 0; i < 10; i++) tx.write(i, i);
+            return null;
+        });
+        List<Integer> values = store.atomically(tx -> {
+            tx.write(3, 30);
+            tx.remove(4);
+            List<Integer> seen = new ArrayList<>();
+            Iterator<Map.Entry<Integer, Integer>> it = tx.scan(2, 6);
+            while (it.hasNext()) seen.add(it.next().getValue());
+            return seen;
+        });
+        assertEquals(List.of(2, 30, 5), values);
+        assertThrows(IllegalStateException.class,
+                () -> store(name, false).atomically(tx -> tx.scan(null, null)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"rlu", "globallock", "rwlock", "stamped", "cow"})
+    void testConcurrentTransfersKeepTheTotal(String name) throws Exception {
+        TransactionalStore<Integer> store = store(name, false);
+        int accounts = 8;
+        store.atomically(tx -> {
+            for (int i = 0; i < accounts; i++) tx.write(i, 100);
+            return null;
+        });
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    ThreadLocalRandom rand = ThreadLocalRandom.current();
+                    for (int i = 0; i < 2000; i++) {
+                        int from = rand.nextInt(accounts);
+                        int to = rand.nextInt(accounts);
+                        if (rand.nextInt(4) == 0) {
+                            int total = store.atomically(tx -> {
+                                int sum = 0;
+                                for (int a = 0; a < accounts; a++) sum += tx.read(a);
+                                return sum;
+                            });
+                            assertEquals(100 * accounts, total);
+                        } else {
+                            store.atomically(tx -> {
+                                if (from == to) return null;
+                                tx.write(from, tx.read(from) - 1);
+                                tx.write(to, tx.read(to) + 1);
+                                return null;
+                            });
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdown();
+        }
+        int total = 0;
+        for (int i = 0; i < accounts; i++) total += store.read(i);
+        assertEquals(100 * accounts, total);
+    }
+}
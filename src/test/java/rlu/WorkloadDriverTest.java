@@ -0,0 +1,144 @@
+package rlu;
+
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkloadDriverTest {
+
+    private static Properties props(String... pairs) {
+        Properties p = new Properties();
+        for (String pair : pairs) {
+            int eq = pair.indexOf('=');
+            p.setProperty(pair.substring(0, eq), pair.substring(eq + 1));
+        }
+        return p;
+    }
+
+    @Test
+    @DisplayName("Zipfian keys are skewed, but the hottest are spread over the key space")
+    void testZipfian() {
+        int keys = 10_000;
+        long[] hits = new long[keys];
+        KeyChooser chooser = KeyChooser.zipfian(keys, 0.99);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 1_000_000; i++) hits[(int) chooser.next(random)]++;
+
+        long[] sorted = hits.clone();
+        java.util.Arrays.sort(sorted);
+        long top100 = 0;
+        for (int i = keys - 100; i < keys; i++) top100 += sorted[i];
+        assertTrue(top100 > 400_000, "1% of the keys get " + top100 + " of 1M hits");
+        long firstHundred = 0;
+        for (int i = 0; i < 100; i++) firstHundred += hits[i];
+        assertTrue(firstHundred < 100_000, "scrambled: the first keys are not the hot ones");
+    }
+
+    @Test
+    @DisplayName("Hotspot sends its share of operations to the hot keys")
+    void testHotspot() {
+        KeyChooser chooser = KeyChooser.hotspot(1000, 0.1, 0.9);
+        SplittableRandom random = new SplittableRandom(2);
+        int hot = 0;
+        for (int i = 0; i < 100_000; i++) {
+            long key = chooser.next(random);
+            assertTrue(key >= 0 && key < 1000);
+            if (key < 100) hot++;
+        }
+        assertEquals(0.9, hot / 100_000.0, 0.01);
+    }
+
+    @Test
+    @DisplayName("Latest favours the most recently inserted keys")
+    void testLatest() {
+        AtomicLong inserted = new AtomicLong(1000);
+        KeyChooser chooser = KeyChooser.latest(inserted, 1000, 0.99);
+        SplittableRandom random = new SplittableRandom(3);
+        inserted.set(5000);
+        int recent = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long key = chooser.next(random);
+            assertTrue(key >= 0 && key < 5000);
+            if (key >= 4990) recent++;
+        }
+        assertTrue(recent > 3000, "newest 10 keys got " + recent);
+    }
+
+    @Test
+    @DisplayName("Histogram percentiles are within the bucket precision")
+    void testHistogram() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) h.record(v);
+        assertEquals(100_000, h.count());
+        assertEquals(50_000, h.percentile(0.5), 50_000 * 0.0625);
+        assertEquals(99_000, h.percentile(0.99), 99_000 * 0.0625);
+        assertEquals(100_000, h.percentile(1.0));
+        for (long v : new long[]{0, 1, 31, 32, 33, 1000, 123_456_789}) {
+            int index = LatencyHistogram.index(v);
+            assertTrue(LatencyHistogram.upperBound(index) >= v);
+            if (index > 0) assertTrue(LatencyHistogram.upperBound(index - 1) < v, "value " + v);
+        }
+    }
+
+    @Test
+    @DisplayName("Scenarios are checked before anything runs")
+    void testValidation() {
+        assertThrows(IllegalArgumentException.class, () -> new Workload("w", props("readproportion=0.5")));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Workload("w", props("readproportion=1", "updateproportion=0", "requestdistribution=pareto")));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Workload("w", props("readproportion=0.5", "updateproportion=0", "scanproportion=0.5", "store=hashset")));
+        assertThrows(IllegalArgumentException.class, () -> Workload.load("no-such-workload", new Properties()));
+
+        Workload bundled = Workload.load("ycsb-e", props("threadcount=2,4"));
+        assertEquals("ycsb-e", bundled.name);
+        assertTrue(bundled.ordered());
+        assertArrayEquals(new int[]{2, 4}, bundled.threadCounts);
+    }
+
+    @Test
+    @DisplayName("A short multi-key run reports every operation and the transactions as CSV and JSON")
+    void testRun() {
+        Workload workload = new Workload("mixed", props("recordcount=1000", "readproportion=0.4", "updateproportion=0.2",
+                "insertproportion=0.1", "removeproportion=0.1", "readmodifywriteproportion=0.1", "scanproportion=0.1",
+                "opspertransaction=3", "requestdistribution=zipfian", "threadcount=2", "warmupms=50", "runms=200",
+                "serializable=true"));
+        List<WorkloadDriver.Row> rows = WorkloadDriver.run(workload);
+        assertEquals(Workload.Op.values().length + 1, rows.size());
+        for (WorkloadDriver.Row row : rows) {
+            assertTrue(row.latency.count() > 0, row.operation);
+            assertEquals(2, row.threads);
+        }
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        WorkloadDriver.write(rows, "csv", new PrintStream(csv, true, StandardCharsets.UTF_8));
+        String[] lines = csv.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(rows.size() + 1, lines.length);
+        assertTrue(lines[0].startsWith("scenario,store,threads,operation,count,ops_per_sec"));
+        assertTrue(lines[lines.length - 1].startsWith("mixed,rlu,2,TRANSACTION,"));
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        WorkloadDriver.write(rows, "json", new PrintStream(json, true, StandardCharsets.UTF_8));
+        String text = json.toString(StandardCharsets.UTF_8);
+        assertTrue(text.startsWith("[") && text.trim().endsWith("]"));
+        assertTrue(text.contains("\"operation\": \"SCAN\""));
+        assertTrue(text.contains("\"p99\": "));
+    }
+
+    @Test
+    @DisplayName("The hashset store runs the bucketed scenarios")
+    void testHashSetStore() {
+        Workload workload = Workload.load("mpp-20", props("store=hashset", "threadcount=2", "warmupms=20", "runms=100"));
+        List<WorkloadDriver.Row> rows = WorkloadDriver.run(workload);
+        assertEquals("hashset", rows.get(0).store);
+        assertTrue(rows.get(rows.size() - 1).latency.count() > 0);
+    }
+}
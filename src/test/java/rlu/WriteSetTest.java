@@ -0,0 +1,73 @@
+package rlu;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteSetTest {
+
+    @Test
+    public void testPutOverwriteAndDiscard() {
+        WriteSet<Integer> writeSet = new WriteSet<>();
+        writeSet.put(1, 100, 0);
+        writeSet.put(1, 200, 3); // overwrite keeps a single pending entry
+        assertEquals(1, writeSet.pendingCount());
+
+        int slot = writeSet.indexOf(1);
+        assertEquals(200, writeSet.valueAt(slot));
+        assertEquals(3, writeSet.versionAt(slot));
+
+        writeSet.discard(1);
+        assertEquals(-1, writeSet.indexOf(1));
+        assertTrue(writeSet.isEmpty());
+
+        writeSet.put(1, 300, 4); // a discarded key can be written again
+        assertEquals(300, writeSet.valueAt(writeSet.indexOf(1)));
+        assertEquals(1, writeSet.pendingCount());
+    }
+
+    @Test
+    public void testPendingRemoveIsNullValue() {
+        WriteSet<Integer> writeSet = new WriteSet<>();
+        writeSet.put(5, null, 2);
+        int slot = writeSet.indexOf(5);
+        assertTrue(slot >= 0, "A pending remove is still a pending write");
+        assertNull(writeSet.valueAt(slot));
+    }
+
+    @Test
+    public void testGrowKeepsInsertionOrder() {
+        WriteSet<Integer> writeSet = new WriteSet<>(2);
+        for (int key = 0; key < 1000; key++) {
+            writeSet.put(key, -key, key);
+        }
+        writeSet.discard(500);
+        assertEquals(999, writeSet.pendingCount());
+
+        int expected = 0;
+        for (int n = 0; n < writeSet.size(); n++) {
+            int slot = writeSet.slotAt(n);
+            if (!writeSet.isPending(slot)) continue;
+            if (expected == 500) expected++;
+            assertEquals(expected, writeSet.keyAt(slot));
+            assertEquals(-expected, writeSet.valueAt(slot));
+            expected++;
+        }
+        assertEquals(1000, expected);
+    }
+
+    @Test
+    public void testClearInPlace() {
+        WriteSet<Integer> writeSet = new WriteSet<>();
+        for (int round = 0; round < 3; round++) {
+            for (int key = 0; key < 8; key++) {
+                writeSet.put(key, round, 0);
+            }
+            assertEquals(8, writeSet.pendingCount());
+            writeSet.clear();
+            assertTrue(writeSet.isEmpty());
+            assertEquals(0, writeSet.size());
+            assertEquals(-1, writeSet.indexOf(3));
+        }
+    }
+}